@@ -0,0 +1,60 @@
+@echo off
+setlocal EnableDelayedExpansion
+
+rem ==== Headless JMH benchmarks for the simulation engine (no JavaFX needed) ====
+rem Any arguments go to JMH, e.g.  bench.bat TickBenchmark -p size=500x500 -p engine=columnar
+rem "bench.bat check [size] [density]" instead runs AllocationCheck, which fails (exit code 1)
+rem if the movement phase allocates.
+
+set "DIR=%~dp0"
+set "SRC=%DIR%..\src\ecosystem"
+set "LIB=%DIR%lib"
+set "OUT=%DIR%out"
+set "JMH_VERSION=1.37"
+set "MAVEN=https://repo1.maven.org/maven2"
+
+set "JAVAC_EXE=javac"
+set "JAVA_EXE=java"
+if defined JAVA_HOME (
+  set "JAVAC_EXE=%JAVA_HOME%\bin\javac.exe"
+  set "JAVA_EXE=%JAVA_HOME%\bin\java.exe"
+)
+
+rem ==== JMH and its dependencies are downloaded once into lib (not committed) ====
+if not exist "%LIB%" mkdir "%LIB%"
+call :fetch org/openjdk/jmh/jmh-core/%JMH_VERSION%/jmh-core-%JMH_VERSION%.jar jmh-core-%JMH_VERSION%.jar || exit /b 1
+call :fetch org/openjdk/jmh/jmh-generator-annprocess/%JMH_VERSION%/jmh-generator-annprocess-%JMH_VERSION%.jar jmh-generator-annprocess-%JMH_VERSION%.jar || exit /b 1
+call :fetch net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar jopt-simple-5.0.4.jar || exit /b 1
+call :fetch org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar commons-math3-3.6.1.jar || exit /b 1
+set "CP="
+for %%j in ("%LIB%\*.jar") do set "CP=!CP!%%~fj;"
+
+rem ==== Engine sources only: the ui package and Main need JavaFX ====
+set "SRC_FILES="%SRC%\Settings.java""
+for %%f in ("%SRC%\models\*.java" "%SRC%\logic\*.java" "%DIR%src\ecosystem\models\*.java") do (
+  set "SRC_FILES=!SRC_FILES! "%%~ff""
+)
+
+if exist "%OUT%" rmdir /S /Q "%OUT%"
+mkdir "%OUT%"
+echo Compiling engine and benchmarks...
+"%JAVAC_EXE%" -cp "%CP%" -processorpath "%CP%" -d "%OUT%" %SRC_FILES%
+if errorlevel 1 (
+  echo [ERROR] Build failed. Check the error messages above.
+  exit /b 1
+)
+
+if /I "%~1"=="check" (
+  "%JAVA_EXE%" -Djava.awt.headless=true -cp "%OUT%" ecosystem.models.AllocationCheck %2 %3
+  exit /b !errorlevel!
+)
+
+rem -prof gc adds bytes allocated per tick (gc.alloc.rate.norm)
+"%JAVA_EXE%" -Djava.awt.headless=true -cp "%OUT%;%CP%" org.openjdk.jmh.Main -prof gc %*
+endlocal
+exit /b
+
+:fetch
+if exist "%LIB%\%2" exit /b 0
+curl -sSfL -o "%LIB%\%2" "%MAVEN%/%1"
+exit /b
@@ -0,0 +1,51 @@
+#!/bin/sh
+# Headless JMH benchmarks for the simulation engine (Linux/macOS, no JavaFX needed).
+# Compiles Settings + models + logic together with the suites in ./src, then runs JMH.
+# Any arguments go to JMH, e.g.
+#   ./bench.sh TickBenchmark -p size=500x500 -p engine=columnar
+#   ./bench.sh PhaseBenchmark -p size=1000x1000 -p density=0.2
+# `./bench.sh check [size] [density]` instead runs AllocationCheck, which fails (exit 1)
+# if the movement phase allocates.
+set -e
+
+DIR="$(cd "$(dirname "$0")" && pwd)"
+SRC="$DIR/../src/ecosystem"
+LIB="$DIR/lib"
+OUT="$DIR/out"
+JMH_VERSION=1.37
+MAVEN=https://repo1.maven.org/maven2
+
+JAVAC=javac
+JAVA=java
+if [ -n "$JAVA_HOME" ]; then
+  JAVAC="$JAVA_HOME/bin/javac"
+  JAVA="$JAVA_HOME/bin/java"
+fi
+
+# JMH and its dependencies are downloaded once into ./lib (not committed)
+mkdir -p "$LIB"
+fetch() {
+  jar="$LIB/$(basename "$1")"
+  [ -f "$jar" ] || curl -sSfL -o "$jar" "$MAVEN/$1"
+}
+fetch org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar
+fetch org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar
+fetch net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar
+fetch org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar
+CP="$(ls "$LIB"/*.jar | tr '\n' ':')"
+
+echo "Compiling engine and benchmarks..."
+rm -rf "$OUT"
+mkdir -p "$OUT"
+# The ui package and Main need JavaFX and are left out on purpose
+"$JAVAC" -cp "$CP" -processorpath "$CP" -d "$OUT" \
+  "$SRC/Settings.java" "$SRC"/models/*.java "$SRC"/logic/*.java \
+  "$DIR"/src/ecosystem/models/*.java
+
+if [ "$1" = check ]; then
+  shift
+  exec "$JAVA" -Djava.awt.headless=true -cp "$OUT" ecosystem.models.AllocationCheck "$@"
+fi
+
+# -prof gc adds bytes allocated per tick (gc.alloc.rate.norm)
+exec "$JAVA" -Djava.awt.headless=true -cp "$OUT:$CP" org.openjdk.jmh.Main -prof gc "$@"
@@ -0,0 +1,95 @@
+/**
+ * Regression check for the allocation-free movement phase: counts the bytes the current
+ * thread allocates around warmed-up `Animal.chooseMoveCell` calls and `Grid.moveAnimals()`
+ * days, and exits with status 1 if either allocates anything per animal. Each is measured
+ * over several days and the smallest count is kept, so a buffer growing once on a busy
+ * day is not mistaken for a per-animal allocation.
+ *
+ * Usage: bench.sh check [size] [density]   (defaults 500x500 and 0.2)
+ */
+package ecosystem.models;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+public final class AllocationCheck {
+    private static final int WARMUP_DAYS = 30;
+    private static final int MEASURED_DAYS = 5;
+    // chooseMoveCell calls per animal in one measurement, after as many to warm up
+    private static final int ROUNDS = 20;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationCheck() {}
+
+    public static void main(String[] args) {
+        String size = args.length > 0 ? args[0] : "500x500";
+        double density = args.length > 1 ? Double.parseDouble(args[1]) : 0.2;
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM cannot count allocated bytes per thread");
+            System.exit(2);
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        Grid grid = BenchmarkWorlds.build(size, density, 0.1, "sequential");
+        for (int d = 0; d < WARMUP_DAYS; d++) grid.stepAll();
+
+        long chooseBytes = Long.MAX_VALUE, moveBytes = Long.MAX_VALUE;
+        int animals = 0;
+        for (int d = 0; d < MEASURED_DAYS; d++) {
+            List<Animal> list = animals(grid);
+            animals = list.size();
+            chooseMoveCells(grid, list);
+            chooseBytes = Math.min(chooseBytes, chooseMoveCells(grid, list));
+
+            grid.beginDay();
+            grid.growPlants();
+            long before = allocated();
+            grid.moveAnimals();
+            moveBytes = Math.min(moveBytes, allocated() - before);
+            grid.eatPhase();
+            grid.reproducePhase();
+            grid.finishDay();
+        }
+
+        System.out.printf("%s density %.2f, %d animals%n", size, density, animals);
+        boolean ok = report("chooseMoveCell", chooseBytes, (long) animals * ROUNDS, "calls");
+        ok &= report("moveAnimals", moveBytes, animals, "animals");
+        if (!ok) System.exit(1);
+    }
+
+    /** Bytes allocated by ROUNDS calls of chooseMoveCell for every animal. */
+    private static long chooseMoveCells(Grid grid, List<Animal> animals) {
+        RandomGenerator rng = grid.random();
+        int sink = 0;
+        long before = allocated();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int i = 0; i < animals.size(); i++) sink += animals.get(i).chooseMoveCell(grid, rng);
+        }
+        long bytes = allocated() - before;
+        if (sink == 42) System.out.print("");
+        return bytes;
+    }
+
+    private static List<Animal> animals(Grid grid) {
+        List<Animal> animals = new ArrayList<>();
+        for (Organism o : grid.getOrganisms()) {
+            if (o instanceof Animal && o.isAlive()) animals.add((Animal) o);
+        }
+        return animals;
+    }
+
+    private static long allocated() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static boolean report(String what, long bytes, long count, String unit) {
+        boolean ok = bytes == 0;
+        System.out.printf("%-15s %10d bytes over %d %s (%.3f each)  %s%n",
+            what, bytes, count, unit, count == 0 ? 0.0 : (double) bytes / count, ok ? "OK" : "FAIL");
+        return ok;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Reproducible worlds for the JMH suites: grid size, initial density, water coverage
+ * and engine mode come from benchmark parameters, everything else from the default
+ * `Settings`. Terrain is built here rather than by the JavaFX `EnvironmentGenerator`
+ * so the benchmarks run headless.
+ */
+package ecosystem.models;
+
+import ecosystem.Settings;
+
+import java.util.SplittableRandom;
+
+final class BenchmarkWorlds {
+    // Fixed seed: every run of a parameter combination starts from the same world
+    static final long SEED = 42L;
+    // Water is laid out in square blocks of this many cells, closer to real maps than per-cell noise
+    private static final int WATER_BLOCK = 8;
+
+    private BenchmarkWorlds() {}
+
+    /**
+     * @param size    "WIDTHxHEIGHT", e.g. "500x500"
+     * @param density share of cells initially occupied (70% plants, 25% herbivores, 5% carnivores)
+     * @param water   share of the map covered by water
+     * @param engine  "sequential", "parallel", "columnar" or "columnar-offheap"
+     */
+    static Grid build(String size, double density, double water, String engine) {
+        int sep = size.indexOf('x');
+        int width = Integer.parseInt(size.substring(0, sep));
+        int height = Integer.parseInt(size.substring(sep + 1));
+        int occupied = (int) (width * height * density);
+
+        Settings s = new Settings();
+        s.setGridWidth(width);
+        s.setGridHeight(height);
+        s.setInitialPlants(occupied * 70 / 100);
+        s.setInitialHerbivores(occupied * 25 / 100);
+        s.setInitialCarnivores(occupied * 5 / 100);
+        s.setSeed(SEED);
+        s.setParallelEngine("parallel".equals(engine));
+        s.setColumnarStore(engine.startsWith("columnar"));
+        s.setOffHeapStore("columnar-offheap".equals(engine));
+        s.setEngineThreads(Runtime.getRuntime().availableProcessors());
+
+        Grid grid = new Grid(s);
+        grid.setTerrain(terrain(width, height, water));
+        grid.populateBasic(
+            s.getInitialPlants(), s.getInitialHerbivores(), s.getInitialCarnivores(),
+            s.getHerbivoreStartEnergy(), s.getHerbivoreMoveCost(), s.getHerbivoreEatGain(),
+            s.getCarnivoreStartEnergy(), s.getCarnivoreMoveCost(), s.getCarnivoreEatGain(),
+            s.getHerbivoreReproduceThreshold(), s.getHerbivoreMetabolismCost(), s.getHerbivoreAbsorptionRate(),
+            s.getCarnivoreReproduceThreshold(), s.getCarnivoreMetabolismCost(), s.getCarnivoreAbsorptionRate());
+        grid.ensureOrganismsOnValidTerrain();
+        return grid;
+    }
+
+    /** Grass everywhere except randomly chosen water blocks covering roughly `water` of the map. */
+    static int[][] terrain(int width, int height, double water) {
+        SplittableRandom rng = new SplittableRandom(SEED);
+        int[][] terrain = new int[width][height];
+        for (int bx = 0; bx < width; bx += WATER_BLOCK) {
+            for (int by = 0; by < height; by += WATER_BLOCK) {
+                int t = rng.nextDouble() < water ? Grid.TERRAIN_WATER : Grid.TERRAIN_GRASS;
+                for (int x = bx; x < Math.min(width, bx + WATER_BLOCK); x++) {
+                    for (int y = by; y < Math.min(height, by + WATER_BLOCK); y++) terrain[x][y] = t;
+                }
+            }
+        }
+        return terrain;
+    }
+}
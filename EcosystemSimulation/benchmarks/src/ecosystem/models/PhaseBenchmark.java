@@ -0,0 +1,96 @@
+/**
+ * Cost of each sequential day phase, normalized per organism: the `organism`
+ * counter reports ns per start-of-day organism next to the raw ns per phase.
+ * Each invocation runs the phases before the measured one in setup and the rest
+ * in teardown, so the world keeps advancing one full day per invocation.
+ * Small grids make phases shorter than JMH's per-invocation timer overhead;
+ * compare phases on the larger sizes. The gc profiler also counts what setup and
+ * teardown allocate, so take bytes per tick from `TickBenchmark`.
+ */
+package ecosystem.models;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhaseBenchmark {
+    // Order matches Grid.stepSequential()
+    private static final String[] PHASES = {"dayStart", "plants", "move", "eat", "reproduce", "finish"};
+
+    @Param({"50x30", "200x200", "500x500", "1000x1000", "2000x2000"})
+    public String size;
+
+    @Param({"0.05", "0.2"})
+    public double density;
+
+    @Param({"0.0", "0.3"})
+    public double water;
+
+    @Param({"dayStart", "plants", "move", "eat", "reproduce", "finish"})
+    public String phase;
+
+    /** Organisms alive at the start of the measured day; reported as time per organism. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Organisms {
+        public long organism;
+    }
+
+    private Grid grid;
+    private int measured;
+    private int population;
+
+    @Setup(Level.Iteration)
+    public void buildWorld() {
+        grid = BenchmarkWorlds.build(size, density, water, "sequential");
+        measured = java.util.Arrays.asList(PHASES).indexOf(phase);
+    }
+
+    @Setup(Level.Invocation)
+    public void runPhasesBefore() {
+        population = grid.getOrganisms().size();
+        for (int i = 0; i < measured; i++) runPhase(i);
+    }
+
+    @TearDown(Level.Invocation)
+    public void runPhasesAfter() {
+        for (int i = measured + 1; i < PHASES.length; i++) runPhase(i);
+        grid.setDay(grid.getDay() + 1);
+    }
+
+    @Benchmark
+    public void phase(Organisms counter) {
+        runPhase(measured);
+        counter.organism += population;
+    }
+
+    private void runPhase(int i) {
+        switch (i) {
+            case 0: grid.beginDay(); break;
+            case 1: grid.growPlants(); break;
+            case 2: grid.moveAnimals(); break;
+            case 3: grid.eatPhase(); break;
+            case 4: grid.reproducePhase(); break;
+            default: grid.finishDay(); break;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Whole-day throughput of `Grid.stepAll()`: the primary score is ticks per second.
+ * Run with `-prof gc` (bench.sh does by default) to also get bytes allocated per
+ * tick (`gc.alloc.rate.norm`). The world is rebuilt before every iteration so
+ * iterations start from the same population instead of wherever the last one drifted.
+ */
+package ecosystem.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickBenchmark {
+    @Param({"50x30", "200x200", "500x500", "1000x1000", "2000x2000"})
+    public String size;
+
+    @Param({"0.05", "0.2"})
+    public double density;
+
+    @Param({"0.0", "0.3"})
+    public double water;
+
+    @Param({"sequential", "parallel", "columnar", "columnar-offheap"})
+    public String engine;
+
+    private Grid grid;
+
+    @Setup(Level.Iteration)
+    public void buildWorld() {
+        grid = BenchmarkWorlds.build(size, density, water, engine);
+    }
+
+    @TearDown(Level.Iteration)
+    public void releaseWorld() {
+        grid.shutdown();
+    }
+
+    @Benchmark
+    public void tick() {
+        grid.stepAll();
+    }
+}
@@ -34,6 +34,24 @@ public class Settings {
     private int carnivoreMetabolismCost = 2;
     private double carnivoreAbsorptionRate = 1.0;
 
+    // Random seed: the same seed (and settings) reproduces the same world
+    private long seed = new java.util.SplittableRandom().nextLong();
+
+    // Engine: run stepAll() phases on a fork-join pool split into row stripes
+    private boolean parallelEngine = false;
+    // Storage: keep the population in primitive columns (single-threaded engine; wins over parallelEngine)
+    private boolean columnarStore = false;
+    // Storage: keep those columns and the occupancy chunks in native memory, off the Java heap (columnarStore only)
+    private boolean offHeapStore = false;
+    private int engineThreads = Runtime.getRuntime().availableProcessors();
+    // Growth: roll plant spread per frontier cell instead of per plant (same odds, other random draws)
+    private boolean frontierGrowth = false;
+    // Storage: plants as per-cell energy/age instead of objects (sequential object engine only)
+    private boolean plantField = false;
+
+    // Checkpoints: a full save every N days plus a per-day delta journal (0 = off)
+    private int checkpointEvery = 0;
+    private String checkpointDir = "checkpoints";
     
     public Settings() {
     }
@@ -81,4 +99,96 @@ public class Settings {
     public void setCarnivoreMetabolismCost(int carnivoreMetabolismCost) { this.carnivoreMetabolismCost = carnivoreMetabolismCost; }
     public double getCarnivoreAbsorptionRate() { return carnivoreAbsorptionRate; }
     public void setCarnivoreAbsorptionRate(double carnivoreAbsorptionRate) { this.carnivoreAbsorptionRate = carnivoreAbsorptionRate; }
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+    public boolean isParallelEngine() { return parallelEngine; }
+    public void setParallelEngine(boolean parallelEngine) { this.parallelEngine = parallelEngine; }
+    public boolean isColumnarStore() { return columnarStore; }
+    public void setColumnarStore(boolean columnarStore) { this.columnarStore = columnarStore; }
+    public boolean isOffHeapStore() { return offHeapStore; }
+    public void setOffHeapStore(boolean offHeapStore) { this.offHeapStore = offHeapStore; }
+    public boolean isFrontierGrowth() { return frontierGrowth; }
+    public void setFrontierGrowth(boolean frontierGrowth) { this.frontierGrowth = frontierGrowth; }
+    public boolean isPlantField() { return plantField; }
+    public void setPlantField(boolean plantField) { this.plantField = plantField; }
+    public int getEngineThreads() { return engineThreads; }
+    public void setEngineThreads(int engineThreads) { this.engineThreads = Math.max(1, engineThreads); }
+    public int getCheckpointEvery() { return checkpointEvery; }
+    public void setCheckpointEvery(int checkpointEvery) { this.checkpointEvery = Math.max(0, checkpointEvery); }
+    public String getCheckpointDir() { return checkpointDir; }
+    public void setCheckpointDir(String checkpointDir) { this.checkpointDir = checkpointDir; }
+
+    /**
+     * Set one parameter by name (the field name, as in save files and batch .properties files).
+     * Throws IllegalArgumentException for unknown keys and NumberFormatException for bad values.
+     */
+    public void set(String key, String value) {
+        String v = value.trim();
+        switch (key.trim()) {
+            case "gridWidth": setGridWidth(Integer.parseInt(v)); break;
+            case "gridHeight": setGridHeight(Integer.parseInt(v)); break;
+            case "initialPlants": setInitialPlants(Integer.parseInt(v)); break;
+            case "initialHerbivores": setInitialHerbivores(Integer.parseInt(v)); break;
+            case "initialCarnivores": setInitialCarnivores(Integer.parseInt(v)); break;
+            case "plantEnergy": setPlantEnergy(Integer.parseInt(v)); break;
+            case "plantGrowRate": setPlantGrowRate(Double.parseDouble(v)); break;
+            case "herbivoreStartEnergy": setHerbivoreStartEnergy(Integer.parseInt(v)); break;
+            case "herbivoreMoveCost": setHerbivoreMoveCost(Integer.parseInt(v)); break;
+            case "herbivoreEatGain": setHerbivoreEatGain(Integer.parseInt(v)); break;
+            case "herbivoreReproduceThreshold": setHerbivoreReproduceThreshold(Integer.parseInt(v)); break;
+            case "herbivoreMetabolismCost": setHerbivoreMetabolismCost(Integer.parseInt(v)); break;
+            case "herbivoreAbsorptionRate": setHerbivoreAbsorptionRate(Double.parseDouble(v)); break;
+            case "carnivoreStartEnergy": setCarnivoreStartEnergy(Integer.parseInt(v)); break;
+            case "carnivoreMoveCost": setCarnivoreMoveCost(Integer.parseInt(v)); break;
+            case "carnivoreEatGain": setCarnivoreEatGain(Integer.parseInt(v)); break;
+            case "carnivoreReproduceThreshold": setCarnivoreReproduceThreshold(Integer.parseInt(v)); break;
+            case "carnivoreMetabolismCost": setCarnivoreMetabolismCost(Integer.parseInt(v)); break;
+            case "carnivoreAbsorptionRate": setCarnivoreAbsorptionRate(Double.parseDouble(v)); break;
+            case "seed": setSeed(Long.parseLong(v)); break;
+            case "parallelEngine": setParallelEngine(Boolean.parseBoolean(v)); break;
+            case "columnarStore": setColumnarStore(Boolean.parseBoolean(v)); break;
+            case "offHeapStore": setOffHeapStore(Boolean.parseBoolean(v)); break;
+            case "engineThreads": setEngineThreads(Integer.parseInt(v)); break;
+            case "frontierGrowth": setFrontierGrowth(Boolean.parseBoolean(v)); break;
+            case "plantField": setPlantField(Boolean.parseBoolean(v)); break;
+            case "checkpointEvery": setCheckpointEvery(Integer.parseInt(v)); break;
+            case "checkpointDir": setCheckpointDir(v); break;
+            default: throw new IllegalArgumentException("Unknown setting: " + key);
+        }
+    }
+
+    /** All parameters by name, in the form `set` accepts (used by binary save files). */
+    public java.util.Map<String, String> toMap() {
+        java.util.Map<String, String> m = new java.util.LinkedHashMap<>();
+        m.put("gridWidth", Integer.toString(gridWidth));
+        m.put("gridHeight", Integer.toString(gridHeight));
+        m.put("initialPlants", Integer.toString(initialPlants));
+        m.put("initialHerbivores", Integer.toString(initialHerbivores));
+        m.put("initialCarnivores", Integer.toString(initialCarnivores));
+        m.put("plantEnergy", Integer.toString(plantEnergy));
+        m.put("plantGrowRate", Double.toString(plantGrowRate));
+        m.put("herbivoreStartEnergy", Integer.toString(herbivoreStartEnergy));
+        m.put("herbivoreMoveCost", Integer.toString(herbivoreMoveCost));
+        m.put("herbivoreEatGain", Integer.toString(herbivoreEatGain));
+        m.put("herbivoreReproduceThreshold", Integer.toString(herbivoreReproduceThreshold));
+        m.put("herbivoreMetabolismCost", Integer.toString(herbivoreMetabolismCost));
+        m.put("herbivoreAbsorptionRate", Double.toString(herbivoreAbsorptionRate));
+        m.put("carnivoreStartEnergy", Integer.toString(carnivoreStartEnergy));
+        m.put("carnivoreMoveCost", Integer.toString(carnivoreMoveCost));
+        m.put("carnivoreEatGain", Integer.toString(carnivoreEatGain));
+        m.put("carnivoreReproduceThreshold", Integer.toString(carnivoreReproduceThreshold));
+        m.put("carnivoreMetabolismCost", Integer.toString(carnivoreMetabolismCost));
+        m.put("carnivoreAbsorptionRate", Double.toString(carnivoreAbsorptionRate));
+        m.put("seed", Long.toString(seed));
+        m.put("parallelEngine", Boolean.toString(parallelEngine));
+        m.put("columnarStore", Boolean.toString(columnarStore));
+        m.put("offHeapStore", Boolean.toString(offHeapStore));
+        m.put("engineThreads", Integer.toString(engineThreads));
+        m.put("frontierGrowth", Boolean.toString(frontierGrowth));
+        m.put("plantField", Boolean.toString(plantField));
+        m.put("checkpointEvery", Integer.toString(checkpointEvery));
+        m.put("checkpointDir", checkpointDir);
+        return m;
+    }
 }
@@ -0,0 +1,227 @@
+/**
+ * Headless batch runner: builds `SimulationEngine`s from a .properties file and/or
+ * key=value flags, runs them for N days without any rendering, and writes each
+ * world's population time series to CSV. Independent worlds (replicas with derived
+ * seeds) run concurrently on a fixed thread pool. No JavaFX is needed.
+ *
+ * Usage: java ecosystem.logic.BatchRunner [options] [key=value ...]
+ *   --config FILE   settings in .properties form (keys as in Settings.set); flags override it
+ *   --days N        days to simulate per world (default 1000)
+ *   --worlds N      independent worlds; world i > 0 gets a seed derived from the base seed (default 1)
+ *   --threads N     worlds run at the same time (default: available processors)
+ *   --every K       record every K-th day (default 1)
+ *   --out DIR       output directory for world-N.csv files (default batch-out)
+ *   --resume        continue each world from its newest checkpoint, if it has one
+ *   --terrain       give each world the terrain map the GUI would generate for its seed
+ *   --instrument    time the phases of every tick (also over JMX as ecosystem:type=EngineStats,name=world-N)
+ *                   and print each world's mean phase times with its summary
+ *
+ * With checkpointEvery=K, world N checkpoints every K days into checkpointDir/world-N.
+ */
+package ecosystem.logic;
+
+import ecosystem.Settings;
+import ecosystem.models.Grid;
+import ecosystem.models.PhaseStats;
+import ecosystem.models.PopulationStore;
+import ecosystem.models.RandomStreams;
+import ecosystem.models.TerrainGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BatchRunner {
+    private final Map<String, String> overrides = new LinkedHashMap<>();
+    private int days = 1000;
+    private int worlds = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int every = 1;
+    private Path outDir = Paths.get("batch-out");
+    private boolean resume;
+    private boolean instrument;
+    private boolean terrain;
+
+    public static void main(String[] args) {
+        BatchRunner runner = new BatchRunner();
+        try {
+            runner.parseArgs(args);
+            runner.run();
+        } catch (IllegalArgumentException | IOException ex) {
+            System.err.println("BatchRunner: " + ex.getMessage());
+            System.exit(2);
+        }
+    }
+
+    void parseArgs(String[] args) throws IOException {
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("--resume")) {
+                resume = true;
+            } else if (a.equals("--instrument")) {
+                instrument = true;
+            } else if (a.equals("--terrain")) {
+                terrain = true;
+            } else if (a.startsWith("--")) {
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + a);
+                String v = args[++i];
+                switch (a) {
+                    case "--config": loadConfig(Paths.get(v)); break;
+                    case "--days": days = Integer.parseInt(v); break;
+                    case "--worlds": worlds = Integer.parseInt(v); break;
+                    case "--threads": threads = Math.max(1, Integer.parseInt(v)); break;
+                    case "--every": every = Math.max(1, Integer.parseInt(v)); break;
+                    case "--out": outDir = Paths.get(v); break;
+                    default: throw new IllegalArgumentException("Unknown option " + a);
+                }
+            } else {
+                String[] kv = a.split("=", 2);
+                if (kv.length < 2) throw new IllegalArgumentException("Expected key=value, got " + a);
+                overrides.put(kv[0], kv[1]);
+            }
+        }
+        // fail fast on unknown keys or bad values, before any world starts
+        settingsFor(0);
+        // without an explicit seed, replicas would not be reproducible from the output
+        if (!overrides.containsKey("seed")) overrides.put("seed", Long.toString(new Settings().getSeed()));
+    }
+
+    private void loadConfig(Path file) throws IOException {
+        Properties p = new Properties();
+        try (Reader r = Files.newBufferedReader(file)) {
+            p.load(r);
+        }
+        // flags given earlier on the command line keep priority over the file
+        for (String k : p.stringPropertyNames()) overrides.putIfAbsent(k, p.getProperty(k));
+    }
+
+    /** Settings of world i: the shared overrides, with a derived seed for every world but the first. */
+    Settings settingsFor(int world) {
+        Settings s = new Settings();
+        for (Map.Entry<String, String> e : overrides.entrySet()) s.set(e.getKey(), e.getValue());
+        if (world > 0) s.setSeed(RandomStreams.derive(s.getSeed(), world, RandomStreams.LANE_SETUP));
+        return s;
+    }
+
+    void run() throws IOException {
+        Files.createDirectories(outDir);
+        System.out.printf("%d world(s) x %d days on %d thread(s) -> %s%n", worlds, days, threads, outDir.toAbsolutePath());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, worlds));
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int w = 0; w < worlds; w++) {
+                final int world = w;
+                results.add(pool.submit(() -> runWorld(world)));
+            }
+            for (Future<String> f : results) {
+                try {
+                    System.out.println(f.get());
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    System.err.println("World failed: " + cause);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Run one world to completion; returns its summary line. */
+    private String runWorld(int world) throws IOException {
+        Settings s = settingsFor(world);
+        Path checkpoints = null;
+        if (s.getCheckpointEvery() > 0) {
+            checkpoints = Paths.get(s.getCheckpointDir()).resolve("world-" + world);
+            s.setCheckpointDir(checkpoints.toString());
+        }
+        SimulationEngine engine;
+        List<String> rows = null;
+        Path csv = outDir.resolve("world-" + world + ".csv");
+        if (resume && checkpoints != null && Checkpointer.hasCheckpoint(checkpoints)) {
+            Checkpointer.Recovery r = Checkpointer.recover(checkpoints);
+            engine = r.newEngine(false);
+            rows = rowsThrough(csv, engine.getDay());
+        } else {
+            engine = new SimulationEngine(s, false);
+            if (terrain) {
+                Grid g = engine.getGrid();
+                long seed = RandomStreams.derive(s.getSeed(), 0, RandomStreams.LANE_TERRAIN);
+                g.setTerrainCells(TerrainGenerator.generate(g.getWidth(), g.getHeight(), seed).cells);
+                g.ensureOrganismsOnValidTerrain();
+            }
+        }
+        PhaseStats phases = instrument ? engine.enableInstrumentation("world-" + world) : null;
+        long start = System.nanoTime();
+        int simulated = 0;
+        try (BufferedWriter w = Files.newBufferedWriter(csv)) {
+            if (rows == null) {
+                w.write("# seed=" + s.getSeed() + "\n");
+                w.write("day,plants,herbivores,carnivores\n");
+                writeRow(w, engine.getDay(), engine.getGrid());
+            } else {
+                for (String row : rows) w.write(row + "\n");
+                w.write("# resumed at day " + engine.getDay() + "\n");
+            }
+            for (int d = engine.getDay(); d <= days; d++) {
+                engine.tick();
+                simulated++;
+                Grid g = engine.getGrid();
+                boolean extinct = g.count(PopulationStore.TYPE_PLANT) + g.count(PopulationStore.TYPE_HERBIVORE)
+                    + g.count(PopulationStore.TYPE_CARNIVORE) == 0;
+                // test the day the row is written for: the tick has just moved it past d
+                int day = engine.getDay();
+                if (day % every == 0 || d == days || extinct) writeRow(w, day, g);
+                // nothing changes in an empty world
+                if (extinct) break;
+            }
+        } finally {
+            engine.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Grid g = engine.getGrid();
+        String summary = String.format("world %d (seed %d): %d days in %.2fs (%.1f ticks/s), final P=%d H=%d C=%d",
+            world, s.getSeed(), simulated, seconds, simulated / seconds, g.count(PopulationStore.TYPE_PLANT),
+            g.count(PopulationStore.TYPE_HERBIVORE), g.count(PopulationStore.TYPE_CARNIVORE));
+        return phases == null ? summary : summary + "\n  " + formatPhases(phases);
+    }
+
+    /** Mean and p99 milliseconds per day of each phase, plus the conflict counters. */
+    static String formatPhases(PhaseStats p) {
+        StringBuilder sb = new StringBuilder("ms/day (mean/p99):");
+        for (int i = 0; i < PhaseStats.PHASES; i++) {
+            sb.append(String.format(" %s %.3f/%.3f", PhaseStats.phaseName(i), p.getMeanNanos(i) / 1e6, p.getPercentileNanos(i, 99) / 1e6));
+        }
+        return sb.append(String.format(", move conflicts %d, failed reproductions %d", p.getMoveConflicts(), p.getFailedReproductions())).toString();
+    }
+
+    /** Lines of an earlier CSV up to the given day (rows after it are redone), or null if there is none. */
+    private static List<String> rowsThrough(Path csv, int day) throws IOException {
+        if (!Files.exists(csv)) return null;
+        List<String> kept = new ArrayList<>();
+        for (String line : Files.readAllLines(csv)) {
+            int comma = line.indexOf(',');
+            if (line.startsWith("#") || line.startsWith("day,") || comma < 0) {
+                kept.add(line);
+            } else if (Integer.parseInt(line.substring(0, comma)) <= day) {
+                kept.add(line);
+            }
+        }
+        return kept;
+    }
+
+    private static void writeRow(BufferedWriter w, int day, Grid g) throws IOException {
+        w.write(day + "," + g.count(PopulationStore.TYPE_PLANT) + "," + g.count(PopulationStore.TYPE_HERBIVORE)
+            + "," + g.count(PopulationStore.TYPE_CARNIVORE) + "\n");
+    }
+}
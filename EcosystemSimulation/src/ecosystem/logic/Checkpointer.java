@@ -0,0 +1,243 @@
+/**
+ * Automatic checkpoints for a `SimulationEngine`: a full V2 save every N days plus a
+ * delta journal of each day in between, so a long run that dies (crash, killed job)
+ * resumes close to where it stopped instead of from day 1. Given the seed, the
+ * checkpoints and journals also record the whole run compactly.
+ *
+ * The tick thread only copies: the world into a `WorldFile.Image` on checkpoint days,
+ * the day's changes into a small `DeltaJournal` payload otherwise. All files are written
+ * in order on one background I/O thread, so `tick()` never waits for the disk.
+ *
+ * Directory layout, for checkpoint number n: checkpoint-n.ecosim (written to a .tmp file
+ * and renamed once complete) and journal-n.bin (the days after it). The two newest pairs
+ * are kept. `recover` loads the newest readable checkpoint and replays its journal.
+ */
+package ecosystem.logic;
+
+import ecosystem.Settings;
+import ecosystem.models.DeltaJournal;
+import ecosystem.models.Grid;
+import ecosystem.models.WorldFile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class Checkpointer {
+    private static final int KEEP = 2;
+    private static final String CHECKPOINT_PREFIX = "checkpoint-", CHECKPOINT_SUFFIX = ".ecosim";
+
+    private final SimulationEngine engine;
+    private final Settings settings;
+    private final Path dir;
+    private final int everyDays;
+    private final DeltaJournal.Recorder recorder;
+    private final ExecutorService io;
+    private volatile long terrainVariant;
+
+    // tick thread: number of the last checkpoint, its day, and the terrain it holds
+    private long sequence;
+    private long checkpointDay;
+    private byte[] checkpointTerrain;
+
+    // I/O thread: the journal of the newest checkpoint
+    private DeltaJournal.Writer journal;
+    private volatile IOException failure;
+
+    Checkpointer(SimulationEngine engine, Settings settings, Path dir, int everyDays) throws IOException {
+        if (everyDays < 1) throw new IllegalArgumentException("Checkpoint interval must be at least 1 day");
+        Files.createDirectories(dir);
+        this.engine = engine;
+        this.settings = settings;
+        this.dir = dir;
+        this.everyDays = everyDays;
+        // continue the numbering of an earlier run in the same directory, so recovery finds the newest
+        List<Long> existing = sequences(dir);
+        this.sequence = existing.isEmpty() ? 0 : existing.get(0);
+        this.io = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-io");
+            t.setDaemon(true);
+            return t;
+        });
+        this.recorder = new DeltaJournal.Recorder(engine.getGrid());
+        checkpoint();
+    }
+
+    public Path getDirectory() { return dir; }
+    public int getEveryDays() { return everyDays; }
+    public long getCheckpointDay() { return checkpointDay; }
+
+    /** Written into the checkpoint headers, so a recovered world gets its terrain colors back. */
+    public void setTerrainVariant(long variant) { this.terrainVariant = variant; }
+
+    /** Last write error, or null. Checkpointing failures never stop the simulation. */
+    public IOException getFailure() { return failure; }
+
+    /** Called by the engine after every tick, on the thread that steps the grid. */
+    void afterTick() {
+        Grid grid = engine.getGrid();
+        // the journal has no record for terrain edits: those need a full checkpoint
+        if (grid.getDay() - checkpointDay >= everyDays || grid.getTerrainCells() != checkpointTerrain) {
+            checkpoint();
+            return;
+        }
+        byte[] delta = recorder.record();
+        submit(() -> {
+            if (journal != null) journal.append(delta);
+        });
+    }
+
+    /** Copy the world now and write it as the next checkpoint in the background. */
+    public void checkpoint() {
+        Grid grid = engine.getGrid();
+        WorldFile.Image image = WorldFile.Image.capture(settings, grid, grid.getDay(), terrainVariant);
+        recorder.reset();
+        checkpointDay = grid.getDay();
+        checkpointTerrain = grid.getTerrainCells();
+        long n = ++sequence;
+        submit(() -> writeCheckpoint(n, image));
+    }
+
+    /** Finish the pending writes (waiting up to 30 s) and stop the I/O thread. */
+    public void close() {
+        submit(this::closeJournal);
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(30, TimeUnit.SECONDS)) System.err.println("Checkpoint writes still pending in " + dir);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    private void submit(IoTask task) {
+        io.execute(() -> {
+            try {
+                task.run();
+            } catch (IOException ex) {
+                if (failure == null) ex.printStackTrace();
+                failure = ex;
+            }
+        });
+    }
+
+    private void writeCheckpoint(long n, WorldFile.Image image) throws IOException {
+        closeJournal();
+        Path target = checkpointFile(dir, n);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        image.write(tmp);
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = new DeltaJournal.Writer(journalFile(dir, n), image.getDay());
+        for (long old : sequences(dir)) {
+            if (old > n - KEEP) continue;
+            Files.deleteIfExists(checkpointFile(dir, old));
+            Files.deleteIfExists(journalFile(dir, old));
+        }
+    }
+
+    private void closeJournal() throws IOException {
+        if (journal == null) return;
+        try {
+            journal.force();
+        } finally {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /** What `recover` rebuilt: the world at the last journaled day, and where it came from. */
+    public static final class Recovery {
+        private final Settings settings;
+        private final Grid grid;
+        private final long terrainVariant;
+        private final long checkpointDay;
+        private final int journalDays;
+
+        private Recovery(Settings settings, Grid grid, long terrainVariant, long checkpointDay, int journalDays) {
+            this.settings = settings;
+            this.grid = grid;
+            this.terrainVariant = terrainVariant;
+            this.checkpointDay = checkpointDay;
+            this.journalDays = journalDays;
+        }
+
+        public Settings getSettings() { return settings; }
+        public Grid getGrid() { return grid; }
+        public long getTerrainVariant() { return terrainVariant; }
+        public long getCheckpointDay() { return checkpointDay; }
+        /** Days replayed from the journal on top of the checkpoint. */
+        public int getJournalDays() { return journalDays; }
+
+        /** An engine for the recovered world (it checkpoints again if its settings say so). */
+        public SimulationEngine newEngine(boolean verbose) {
+            SimulationEngine e = new SimulationEngine(settings, grid, verbose);
+            e.setDay((int) grid.getDay());
+            return e;
+        }
+    }
+
+    /** True if the directory holds at least one complete checkpoint. */
+    public static boolean hasCheckpoint(Path dir) throws IOException {
+        return !sequences(dir).isEmpty();
+    }
+
+    /** Rebuild the newest recoverable state from a checkpoint directory. */
+    public static Recovery recover(Path dir) throws IOException {
+        IOException last = null;
+        for (long n : sequences(dir)) {
+            Grid grid = null;
+            try (WorldFile.Reader in = WorldFile.Reader.open(checkpointFile(dir, n))) {
+                grid = WorldFile.readGrid(in);
+                Path j = journalFile(dir, n);
+                int days = Files.exists(j) ? DeltaJournal.replay(j, grid) : 0;
+                return new Recovery(in.getSettings(), grid, in.getTerrainVariant(), in.getDay(), days);
+            } catch (IOException ex) {
+                // damaged: fall back to the previous checkpoint
+                if (grid != null) grid.shutdown();
+                last = ex;
+            }
+        }
+        throw last != null ? last : new IOException("No checkpoint in " + dir);
+    }
+
+    /** Checkpoint numbers present in the directory, newest first. */
+    private static List<Long> sequences(Path dir) throws IOException {
+        List<Long> found = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return found;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, CHECKPOINT_PREFIX + "*" + CHECKPOINT_SUFFIX)) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                try {
+                    found.add(Long.parseLong(name.substring(CHECKPOINT_PREFIX.length(), name.length() - CHECKPOINT_SUFFIX.length())));
+                } catch (NumberFormatException ex) {
+                    // not one of ours
+                }
+            }
+        }
+        found.sort(java.util.Collections.reverseOrder());
+        return found;
+    }
+
+    private static Path checkpointFile(Path dir, long n) {
+        return dir.resolve(CHECKPOINT_PREFIX + n + CHECKPOINT_SUFFIX);
+    }
+
+    private static Path journalFile(Path dir, long n) {
+        return dir.resolve("journal-" + n + ".bin");
+    }
+}
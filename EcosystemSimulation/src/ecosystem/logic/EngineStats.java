@@ -0,0 +1,92 @@
+/**
+ * `EngineStatsMXBean` over a `PhaseStats`, plus its registration with the platform MBean server.
+ */
+package ecosystem.logic;
+
+import ecosystem.models.PhaseStats;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class EngineStats implements EngineStatsMXBean {
+    // which bean holds each name, so a replaced engine does not unregister its successor
+    private static final java.util.Map<ObjectName, EngineStats> OWNERS = new java.util.HashMap<>();
+
+    private final PhaseStats stats;
+    private ObjectName registeredAs;
+
+    EngineStats(PhaseStats stats) {
+        this.stats = stats;
+    }
+
+    public PhaseStats getStats() { return stats; }
+
+    @Override public long getDays() { return stats.getDays(); }
+    @Override public long getMoveConflicts() { return stats.getMoveConflicts(); }
+    @Override public long getFailedReproductions() { return stats.getFailedReproductions(); }
+    @Override public void reset() { stats.reset(); }
+
+    @Override
+    public String[] getPhaseNames() {
+        String[] names = new String[PhaseStats.PHASES];
+        for (int p = 0; p < names.length; p++) names[p] = PhaseStats.phaseName(p);
+        return names;
+    }
+
+    @Override
+    public double[] getMeanMicros() {
+        double[] v = new double[PhaseStats.PHASES];
+        for (int p = 0; p < v.length; p++) v[p] = stats.getMeanNanos(p) / 1e3;
+        return v;
+    }
+
+    @Override public double[] getP50Micros() { return percentile(50); }
+    @Override public double[] getP99Micros() { return percentile(99); }
+
+    @Override
+    public double[] getMaxMicros() {
+        double[] v = new double[PhaseStats.PHASES];
+        for (int p = 0; p < v.length; p++) v[p] = stats.getMaxNanos(p) / 1e3;
+        return v;
+    }
+
+    private double[] percentile(double pct) {
+        double[] v = new double[PhaseStats.PHASES];
+        for (int p = 0; p < v.length; p++) v[p] = stats.getPercentileNanos(p, pct) / 1e3;
+        return v;
+    }
+
+    /** Register under ecosystem:type=EngineStats,name=`name`, replacing an earlier bean of that name. */
+    void register(String name) {
+        synchronized (OWNERS) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName on = new ObjectName("ecosystem:type=EngineStats,name=" + name);
+                if (server.isRegistered(on)) server.unregisterMBean(on);
+                server.registerMBean(this, on);
+                OWNERS.put(on, this);
+                registeredAs = on;
+            } catch (JMException ex) {
+                System.err.println("Engine stats not published over JMX: " + ex.getMessage());
+            }
+        }
+    }
+
+    void unregister() {
+        synchronized (OWNERS) {
+            if (registeredAs == null) return;
+            // a newer engine may have taken the name over
+            if (OWNERS.get(registeredAs) == this) {
+                OWNERS.remove(registeredAs);
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs);
+                } catch (JMException ex) {
+                    // already gone
+                }
+            }
+            registeredAs = null;
+        }
+    }
+}
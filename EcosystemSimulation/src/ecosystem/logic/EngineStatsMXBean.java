@@ -0,0 +1,18 @@
+/**
+ * JMX view of an engine's phase timings (see `ecosystem.models.PhaseStats`), registered as
+ * ecosystem:type=EngineStats,name=... while instrumentation is on. Times are in microseconds
+ * per day; the arrays follow `getPhaseNames()`.
+ */
+package ecosystem.logic;
+
+public interface EngineStatsMXBean {
+    long getDays();
+    String[] getPhaseNames();
+    double[] getMeanMicros();
+    double[] getP50Micros();
+    double[] getP99Micros();
+    double[] getMaxMicros();
+    long getMoveConflicts();
+    long getFailedReproductions();
+    void reset();
+}
@@ -0,0 +1,200 @@
+/**
+ * Per-day population time series of a run, per species: count, total and mean energy,
+ * births (for plants: the spread), deaths and kills. Each tick adds the grid's `DayTally`,
+ * which the engines fill while stepping, so recording never rescans the population.
+ *
+ * Memory is constant: the series live in fixed-size primitive columns. When they are
+ * full, neighboring samples are merged pairwise (levels averaged, events summed) and
+ * each sample covers twice as many days from then on, so a run of any length keeps
+ * its whole history at a resolution that degrades gradually.
+ *
+ * Recorded on the tick thread; the readers (chart, CSV export) may run on any thread.
+ */
+package ecosystem.logic;
+
+import ecosystem.models.DayTally;
+import ecosystem.models.PopulationStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class PopulationMetrics {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    // Series
+    public static final int COUNT = 0;
+    public static final int ENERGY = 1;
+    public static final int MEAN_ENERGY = 2;
+    public static final int BIRTHS = 3;
+    public static final int DEATHS = 4;
+    public static final int KILLS = 5;
+
+    private static final int[] TYPES = {PopulationStore.TYPE_PLANT, PopulationStore.TYPE_HERBIVORE, PopulationStore.TYPE_CARNIVORE};
+    private static final String[] TYPE_NAMES = {"plant", "herbivore", "carnivore"};
+
+    private final int capacity;
+    // one sample per `stride` days: last day covered and number of days covered
+    private final long[] day;
+    private final int[] span;
+    // [species][sample]: levels averaged over the sample's days, events summed
+    private final double[][] count;
+    private final double[][] energy;
+    private final long[][] births;
+    private final long[][] deaths;
+    private final long[][] kills;
+    private int size;
+    private int stride = 1;
+    private long version;
+
+    // days added since the last full sample
+    private int pendingDays;
+    private final double[] pendingCount = new double[TYPES.length];
+    private final double[] pendingEnergy = new double[TYPES.length];
+    private final long[] pendingBirths = new long[TYPES.length];
+    private final long[] pendingDeaths = new long[TYPES.length];
+    private final long[] pendingKills = new long[TYPES.length];
+
+    public PopulationMetrics(int capacity) {
+        if (capacity < 2 || capacity % 2 != 0) throw new IllegalArgumentException("Metrics capacity must be even and at least 2");
+        this.capacity = capacity;
+        this.day = new long[capacity];
+        this.span = new int[capacity];
+        this.count = new double[TYPES.length][capacity];
+        this.energy = new double[TYPES.length][capacity];
+        this.births = new long[TYPES.length][capacity];
+        this.deaths = new long[TYPES.length][capacity];
+        this.kills = new long[TYPES.length][capacity];
+    }
+
+    public int getCapacity() { return capacity; }
+
+    /** Number of samples held. */
+    public synchronized int size() { return size; }
+
+    /** Days per sample for the samples added from now on. */
+    public synchronized int getStride() { return stride; }
+
+    /** Bumped whenever a sample is added or the series are downsampled. */
+    public synchronized long getVersion() { return version; }
+
+    /** Add the tally of the day just stepped (called by the engine after every tick). */
+    public synchronized void record(DayTally t) {
+        // full: halve the resolution before the next sample starts, so every sample covers `stride` days
+        if (size == capacity && pendingDays == 0) downsample();
+        for (int k = 0; k < TYPES.length; k++) {
+            int type = TYPES[k];
+            pendingCount[k] += t.getCount(type);
+            pendingEnergy[k] += t.getEnergy(type);
+            pendingBirths[k] += t.getBirths(type);
+            pendingDeaths[k] += t.getDeaths(type);
+            pendingKills[k] += t.getKills(type);
+        }
+        if (++pendingDays < stride) return;
+        int i = size++;
+        day[i] = t.getDay();
+        span[i] = pendingDays;
+        for (int k = 0; k < TYPES.length; k++) {
+            count[k][i] = pendingCount[k] / pendingDays;
+            energy[k][i] = pendingEnergy[k] / pendingDays;
+            births[k][i] = pendingBirths[k];
+            deaths[k][i] = pendingDeaths[k];
+            kills[k][i] = pendingKills[k];
+            pendingCount[k] = 0;
+            pendingEnergy[k] = 0;
+            pendingBirths[k] = 0;
+            pendingDeaths[k] = 0;
+            pendingKills[k] = 0;
+        }
+        pendingDays = 0;
+        version++;
+    }
+
+    /**
+     * Copy one series of a species (PopulationStore.TYPE_*) into the arrays, oldest first, and
+     * return the number of samples copied. Events are per-day averages (the sample's sum divided
+     * by its days), so samples stay on one scale as they merge; writeCsv() gives the sums.
+     */
+    public synchronized int copy(int type, int series, long[] days, double[] values) {
+        int k = index(type);
+        int n = Math.min(size, Math.min(days.length, values.length));
+        int from = size - n;
+        for (int j = 0; j < n; j++) {
+            int i = from + j;
+            days[j] = day[i];
+            values[j] = value(k, series, i);
+        }
+        return n;
+    }
+
+    /** Write every sample as CSV: one row per sample, levels averaged and events summed over its days. */
+    public void writeCsv(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("day,days");
+        for (String name : TYPE_NAMES) {
+            sb.append(',').append(name).append("_count,").append(name).append("_energy,").append(name).append("_mean_energy,")
+              .append(name.equals("plant") ? "plant_spread" : name + "_births").append(',').append(name).append("_deaths");
+            if (!name.equals("plant")) sb.append(',').append(name).append("_kills");
+        }
+        sb.append('\n');
+        synchronized (this) {
+            for (int i = 0; i < size; i++) {
+                sb.append(day[i]).append(',').append(span[i]);
+                for (int k = 0; k < TYPES.length; k++) {
+                    sb.append(',').append(format(count[k][i])).append(',').append(format(energy[k][i]))
+                      .append(',').append(format(value(k, MEAN_ENERGY, i)))
+                      .append(',').append(births[k][i]).append(',').append(deaths[k][i]);
+                    if (TYPES[k] != PopulationStore.TYPE_PLANT) sb.append(',').append(kills[k][i]);
+                }
+                sb.append('\n');
+            }
+        }
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write(sb.toString());
+        }
+    }
+
+    private double value(int k, int series, int i) {
+        switch (series) {
+            case COUNT: return count[k][i];
+            case ENERGY: return energy[k][i];
+            case MEAN_ENERGY: return count[k][i] > 0 ? energy[k][i] / count[k][i] : 0;
+            case BIRTHS: return (double) births[k][i] / span[i];
+            case DEATHS: return (double) deaths[k][i] / span[i];
+            case KILLS: return (double) kills[k][i] / span[i];
+            default: throw new IllegalArgumentException("Unknown series " + series);
+        }
+    }
+
+    /** Merge samples pairwise in place; the buffer ends half full and the stride doubles. */
+    private void downsample() {
+        for (int j = 0; j < size / 2; j++) {
+            int a = 2 * j, b = a + 1;
+            int days = span[a] + span[b];
+            for (int k = 0; k < TYPES.length; k++) {
+                count[k][j] = (count[k][a] * span[a] + count[k][b] * span[b]) / days;
+                energy[k][j] = (energy[k][a] * span[a] + energy[k][b] * span[b]) / days;
+                births[k][j] = births[k][a] + births[k][b];
+                deaths[k][j] = deaths[k][a] + deaths[k][b];
+                kills[k][j] = kills[k][a] + kills[k][b];
+            }
+            day[j] = day[b];
+            span[j] = days;
+        }
+        size /= 2;
+        stride *= 2;
+        version++;
+    }
+
+    private static int index(int type) {
+        for (int k = 0; k < TYPES.length; k++) {
+            if (TYPES[k] == type) return k;
+        }
+        throw new IllegalArgumentException("Unknown organism type " + type);
+    }
+
+    private static String format(double v) {
+        return v == Math.rint(v) ? Long.toString((long) v) : String.format(java.util.Locale.ROOT, "%.2f", v);
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * In-memory recording of a run for time scrubbing: a keyframe (`WorldFile.Image`) every
+ * N days and the `DeltaJournal` payload of each day in between. `seek(day)` rebuilds any
+ * recorded day from the keyframe before it, so it costs at most N delta applications
+ * instead of a re-run from day 1.
+ *
+ * Memory is bounded: a finished segment (a keyframe plus its deltas) is deflated on a
+ * background thread, and the oldest segments are dropped once the budget is exceeded.
+ * Recording happens on the tick thread; `seek` may run on another thread while the
+ * engine is paused. The replayed grid is for viewing only: it is never stepped.
+ */
+package ecosystem.logic;
+
+import ecosystem.Settings;
+import ecosystem.models.DeltaJournal;
+import ecosystem.models.Grid;
+import ecosystem.models.WorldFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public class ReplayRecorder {
+    public static final int DEFAULT_KEYFRAME_EVERY = 50;
+    public static final long DEFAULT_BUDGET_BYTES = 256L << 20;
+
+    private final SimulationEngine engine;
+    private final int keyframeEvery;
+    private final long budgetBytes;
+    private final ExecutorService packer;
+
+    // tick thread
+    private DeltaJournal.Recorder recorder;
+    private byte[] keyframeTerrain;
+
+    // oldest first; guarded by this
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    // the last replayed grid, moved forward in place while scrubbing ahead within one segment
+    private Grid view;
+    private Segment viewSegment;
+    private int viewDeltas;
+
+    /** A keyframe and the days after it; raw while being recorded, deflated once finished. */
+    private static final class Segment {
+        final long day;
+        WorldFile.Image keyframe;
+        byte[] packedKeyframe;
+        List<byte[]> deltas = new ArrayList<>();
+        byte[] packedDeltas;
+        int deltaCount;
+        long bytes;
+
+        Segment(WorldFile.Image keyframe) {
+            this.day = keyframe.getDay();
+            this.keyframe = keyframe;
+            this.bytes = keyframe.getBytes();
+        }
+
+        long lastDay() { return day + deltaCount; }
+    }
+
+    ReplayRecorder(SimulationEngine engine, int keyframeEvery, long budgetBytes) {
+        if (keyframeEvery < 1) throw new IllegalArgumentException("Keyframe interval must be at least 1 day");
+        this.engine = engine;
+        this.keyframeEvery = keyframeEvery;
+        this.budgetBytes = budgetBytes;
+        this.packer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "replay-packer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getKeyframeEvery() { return keyframeEvery; }
+
+    /** Earliest day that can still be replayed, or -1 before the first tick. */
+    public synchronized long getFirstDay() {
+        return segments.isEmpty() ? -1 : segments.peekFirst().day;
+    }
+
+    /** Latest recorded day (the engine's day after the last tick), or -1 before the first tick. */
+    public synchronized long getLastDay() {
+        return segments.isEmpty() ? -1 : segments.peekLast().lastDay();
+    }
+
+    /** Memory held by the recording, compressed segments at their packed size. */
+    public synchronized long getBytes() {
+        long total = 0;
+        for (Segment s : segments) total += s.bytes;
+        return total;
+    }
+
+    /** Called by the engine before every tick: the first keyframe is the world as it was before it. */
+    void beforeTick() {
+        boolean empty;
+        synchronized (this) {
+            empty = segments.isEmpty();
+        }
+        if (empty) keyframe();
+    }
+
+    /** Called by the engine after every tick, on the thread that steps the grid. */
+    void afterTick() {
+        Segment current;
+        synchronized (this) {
+            current = segments.peekLast();
+        }
+        // a terrain edit is not in the deltas: start over from a keyframe
+        if (current.deltaCount >= keyframeEvery || engine.getGrid().getTerrainCells() != keyframeTerrain) {
+            keyframe();
+            return;
+        }
+        byte[] delta = recorder.record();
+        synchronized (this) {
+            current.deltas.add(delta);
+            current.deltaCount++;
+            current.bytes += delta.length;
+            evict();
+        }
+    }
+
+    /**
+     * The world as it was on a recorded day, in a grid owned by this recorder: it stays
+     * valid until the next seek. Throws IllegalArgumentException for days not recorded.
+     */
+    public synchronized Grid seek(long day) throws IOException {
+        Segment seg = null;
+        for (Segment s : segments) {
+            if (s.day <= day && day <= s.lastDay()) seg = s;
+        }
+        if (seg == null) throw new IllegalArgumentException("Day " + day + " is not recorded");
+        int n = (int) (day - seg.day);
+        if (view == null || viewSegment != seg || viewDeltas > n) {
+            view = keyframeGrid(seg);
+            viewSegment = seg;
+            viewDeltas = 0;
+        }
+        if (viewDeltas < n) applyDeltas(seg, viewDeltas, n, view);
+        viewDeltas = n;
+        return view;
+    }
+
+    /** Drop the recording and stop the packing thread. */
+    public void close() {
+        packer.shutdownNow();
+        synchronized (this) {
+            segments.clear();
+            view = null;
+            viewSegment = null;
+        }
+    }
+
+    private void keyframe() {
+        Grid grid = engine.getGrid();
+        Segment s = new Segment(WorldFile.Image.capture(engine.getSettings(), grid, grid.getDay(), 0));
+        if (recorder == null) recorder = new DeltaJournal.Recorder(grid);
+        else recorder.reset();
+        keyframeTerrain = grid.getTerrainCells();
+        Segment finished;
+        synchronized (this) {
+            finished = segments.peekLast();
+            segments.addLast(s);
+            evict();
+        }
+        if (finished != null) packer.execute(() -> pack(finished));
+    }
+
+    /** Drop the oldest segments while over budget (the one being recorded always stays). */
+    private void evict() {
+        long total = 0;
+        for (Segment s : segments) total += s.bytes;
+        while (total > budgetBytes && segments.size() > 1) {
+            Segment dropped = segments.pollFirst();
+            total -= dropped.bytes;
+            if (viewSegment == dropped) {
+                view = null;
+                viewSegment = null;
+            }
+        }
+    }
+
+    /** Deflate a finished segment (packer thread); it stays readable in raw form until the swap. */
+    private void pack(Segment s) {
+        WorldFile.Image image;
+        List<byte[]> deltas;
+        synchronized (this) {
+            if (!segments.contains(s)) return;
+            image = s.keyframe;
+            deltas = s.deltas;
+        }
+        try {
+            byte[] packedKeyframe = deflate(out -> image.write(Channels.newChannel(out)));
+            byte[] packedDeltas = deflate(out -> {
+                DataOutputStream d = new DataOutputStream(out);
+                for (byte[] p : deltas) {
+                    d.writeInt(p.length);
+                    d.write(p);
+                }
+                d.flush();
+            });
+            synchronized (this) {
+                s.packedKeyframe = packedKeyframe;
+                s.packedDeltas = packedDeltas;
+                s.keyframe = null;
+                s.deltas = null;
+                s.bytes = packedKeyframe.length + packedDeltas.length;
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace(); // stays raw
+        }
+    }
+
+    private Grid keyframeGrid(Segment s) throws IOException {
+        // a replayed day is never stepped or shut down: no worker pool and no native memory for it
+        if (s.keyframe != null) {
+            Settings settings = s.keyframe.getSettings();
+            settings.setParallelEngine(false);
+            settings.setOffHeapStore(false);
+            return s.keyframe.toGrid(settings);
+        }
+        try (WorldFile.Reader in = WorldFile.Reader.open(Channels.newChannel(
+                new InflaterInputStream(new ByteArrayInputStream(s.packedKeyframe))))) {
+            Settings settings = in.getSettings();
+            settings.setParallelEngine(false);
+            settings.setOffHeapStore(false);
+            return WorldFile.readGrid(in, settings);
+        }
+    }
+
+    /** Apply deltas [from, to) of a segment to a grid holding the segment's day `from`. */
+    private static void applyDeltas(Segment s, int from, int to, Grid grid) throws IOException {
+        if (s.deltas != null) {
+            for (int i = from; i < to; i++) DeltaJournal.apply(s.deltas.get(i), grid);
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(s.packedDeltas)))) {
+            for (int i = 0; i < to; i++) {
+                byte[] p = new byte[in.readInt()];
+                in.readFully(p);
+                if (i >= from) DeltaJournal.apply(p, grid);
+            }
+        }
+    }
+
+    private interface Sink {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static byte[] deflate(Sink sink) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater, 1 << 16)) {
+            sink.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+}
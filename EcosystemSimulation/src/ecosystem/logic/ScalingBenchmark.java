@@ -0,0 +1,65 @@
+/**
+ * Command-line scaling benchmark for the parallel engine: steps the same world size
+ * with the sequential engine and with 1..N fork-join threads, printing ticks/second
+ * and speedup. No JavaFX is needed.
+ *
+ * Usage: java ecosystem.logic.ScalingBenchmark [width] [height] [days] [maxThreads]
+ */
+package ecosystem.logic;
+
+import ecosystem.Settings;
+
+public class ScalingBenchmark {
+    private static final int WARMUP_DAYS = 20;
+    // Fixed seed: every engine configuration starts from the same world
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int days = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("Grid %dx%d, %d days (after %d warm-up days)%n", width, height, days, WARMUP_DAYS);
+        System.out.printf("%-12s %12s %10s%n", "engine", "ticks/s", "speedup");
+        double baseline = run(settings(width, height, false, 1), days);
+        System.out.printf("%-12s %12.2f %10s%n", "sequential", baseline, "1.00x");
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            double tps = run(settings(width, height, true, threads), days);
+            System.out.printf("%-12s %12.2f %9.2fx%n", "parallel-" + threads, tps, tps / baseline);
+        }
+    }
+
+    private static int nextThreadCount(int threads, int maxThreads) {
+        if (threads == maxThreads) return maxThreads + 1;
+        return Math.min(threads * 2, maxThreads);
+    }
+
+    private static Settings settings(int width, int height, boolean parallel, int threads) {
+        Settings s = new Settings();
+        s.setGridWidth(width);
+        s.setGridHeight(height);
+        int cells = width * height;
+        s.setInitialPlants(cells / 10);
+        s.setInitialHerbivores(cells / 50);
+        s.setInitialCarnivores(cells / 200);
+        s.setParallelEngine(parallel);
+        s.setEngineThreads(threads);
+        s.setSeed(SEED);
+        return s;
+    }
+
+    /** Returns measured ticks per second. */
+    private static double run(Settings s, int days) {
+        SimulationEngine engine = new SimulationEngine(s, false);
+        try {
+            for (int i = 0; i < WARMUP_DAYS; i++) engine.tick();
+            long start = System.nanoTime();
+            for (int i = 0; i < days; i++) engine.tick();
+            long elapsed = System.nanoTime() - start;
+            return days / (elapsed / 1e9);
+        } finally {
+            engine.shutdown();
+        }
+    }
+}
@@ -7,13 +7,23 @@ package ecosystem.logic;
 
 import ecosystem.Settings;
 import ecosystem.models.Grid;
+import ecosystem.models.PhaseStats;
 
-public class SimulationEngine {
+public final class SimulationEngine {
         // Explicit update methods for UI sync
     
     private int day = 1;
     private Grid grid;
+    private Settings settings;
     private boolean verbose = true; // if true, print console output on each tick
+    // full saves every N days plus a journal of the days between them; null when off
+    private Checkpointer checkpointer;
+    // in-memory recording for the timeline scrubber; null when off
+    private ReplayRecorder replay;
+    // per-day population series fed from the grid's day tally; null when off
+    private PopulationMetrics metrics;
+    // phase timings of the grid, also published over JMX; null when off
+    private EngineStats stats;
 
     public void update_day() {
         // No-op: day is incremented in tick()
@@ -21,6 +31,9 @@ public class SimulationEngine {
 
     public Grid getGrid() { return grid; }
 
+    /** Settings this engine was built with. */
+    public Settings getSettings() { return settings; }
+
     public void update_organ() {
         // No-op: counts() always reflects current grid
         // But can be used to trigger UI refresh if needed
@@ -39,6 +52,7 @@ public class SimulationEngine {
 
     public SimulationEngine(Settings s, boolean verbose) {
         this.grid = new Grid(s);
+        this.settings = s;
         this.verbose = verbose;
         this.grid.populateBasic(
             s.getInitialPlants(),
@@ -57,12 +71,16 @@ public class SimulationEngine {
             s.getCarnivoreMetabolismCost(),
             s.getCarnivoreAbsorptionRate()
         );
+        enableConfiguredCheckpoints(s);
     }
 
     // Construct engine from Settings with an existing Grid (used for loading saved state)
     public SimulationEngine(Settings s, ecosystem.models.Grid grid, boolean verbose) {
         this.grid = grid;
+        this.settings = s;
+        this.day = (int) grid.getDay();
         this.verbose = verbose;
+        enableConfiguredCheckpoints(s);
     }
 
     public SimulationEngine(Settings s, ecosystem.models.Grid grid) {
@@ -71,8 +89,12 @@ public class SimulationEngine {
 
     public void tick() {
         // One tick == one simulation day
+        if (replay != null) replay.beforeTick();
         this.grid.stepAll();
         day++;
+        if (checkpointer != null) checkpointer.afterTick();
+        if (replay != null) replay.afterTick();
+        if (metrics != null) metrics.record(grid.getDayTally());
         update_organ();
         if (verbose) renderConsole();
     }
@@ -82,12 +104,104 @@ public class SimulationEngine {
 
     public void setDay(int d) {
         this.day = d;
+        // keep the grid's random streams aligned with the timeline
+        grid.setDay(d);
+    }
+
+    /** Release engine resources (e.g. parallel worker threads) once this engine is replaced. */
+    public void shutdown() {
+        disableCheckpoints();
+        disableReplay();
+        disableInstrumentation();
+        grid.shutdown();
+    }
+
+    /**
+     * Write a checkpoint of the current world now and every `everyDays` days after it,
+     * with a delta journal in between, into `dir` (see Checkpointer). Replaces any earlier setup.
+     */
+    public Checkpointer enableCheckpoints(Settings s, java.nio.file.Path dir, int everyDays) throws java.io.IOException {
+        disableCheckpoints();
+        checkpointer = new Checkpointer(this, s, dir, everyDays);
+        return checkpointer;
+    }
+
+    /** Stop checkpointing, after the pending writes are done. */
+    public void disableCheckpoints() {
+        if (checkpointer == null) return;
+        checkpointer.close();
+        checkpointer = null;
+    }
+
+    /** The active checkpointer, or null. */
+    public Checkpointer getCheckpointer() { return checkpointer; }
+
+    /**
+     * Record every following tick in memory (a keyframe every `keyframeEvery` days, deltas
+     * in between, at most about `budgetBytes`) so past days can be replayed; see ReplayRecorder.
+     */
+    public ReplayRecorder enableReplay(int keyframeEvery, long budgetBytes) {
+        disableReplay();
+        replay = new ReplayRecorder(this, keyframeEvery, budgetBytes);
+        return replay;
+    }
+
+    public void disableReplay() {
+        if (replay == null) return;
+        replay.close();
+        replay = null;
+    }
+
+    /** The active replay recorder, or null. */
+    public ReplayRecorder getReplay() { return replay; }
+
+    /** Record the population series of every following tick in `capacity` samples; see PopulationMetrics. */
+    public PopulationMetrics enableMetrics(int capacity) {
+        metrics = new PopulationMetrics(capacity);
+        return metrics;
+    }
+
+    public void disableMetrics() { metrics = null; }
+
+    /** The population series being recorded, or null. */
+    public PopulationMetrics getMetrics() { return metrics; }
+
+    /**
+     * Time every phase of the following ticks and count move conflicts and failed reproductions
+     * (see PhaseStats), published as the MBean ecosystem:type=EngineStats,name=`name`.
+     */
+    public PhaseStats enableInstrumentation(String name) {
+        disableInstrumentation();
+        stats = new EngineStats(new PhaseStats());
+        grid.setPhaseStats(stats.getStats());
+        stats.register(name);
+        return stats.getStats();
+    }
+
+    public void disableInstrumentation() {
+        if (stats == null) return;
+        grid.setPhaseStats(null);
+        stats.unregister();
+        stats = null;
+    }
+
+    /** The phase timings being recorded, or null. */
+    public PhaseStats getPhaseStats() { return stats == null ? null : stats.getStats(); }
+
+    private void enableConfiguredCheckpoints(Settings s) {
+        if (s.getCheckpointEvery() <= 0) return;
+        try {
+            enableCheckpoints(s, java.nio.file.Paths.get(s.getCheckpointDir()), s.getCheckpointEvery());
+        } catch (java.io.IOException ex) {
+            System.err.println("Checkpoints disabled: " + ex.getMessage());
+        }
     }
 
     private void renderConsole() {
         for (String r : grid.asciiGrid()) System.out.println(r);
-        java.util.Map<String, Integer> counts = grid.counts();
-        System.out.println("Plants: " + counts.getOrDefault("Plant", 0) + " | Herbivores: " + counts.getOrDefault("Herbivore", 0) + " | Carnivores: " + counts.getOrDefault("Carnivore", 0));
+        System.out.println("Plants: " + grid.count(ecosystem.models.PopulationStore.TYPE_PLANT)
+            + " | Herbivores: " + grid.count(ecosystem.models.PopulationStore.TYPE_HERBIVORE)
+            + " | Carnivores: " + grid.count(ecosystem.models.PopulationStore.TYPE_CARNIVORE));
     }
 
     public java.util.Map<String, Integer> counts() {
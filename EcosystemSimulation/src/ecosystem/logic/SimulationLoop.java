@@ -0,0 +1,225 @@
+/**
+ * Runs `SimulationEngine.tick()` on its own thread and publishes the world to the UI
+ * as `WorldSnapshot`s, so rendering never waits for a tick and a tick never waits for
+ * a frame. Three reusable snapshot buffers rotate without locks: the worker fills its
+ * back buffer and swaps it into the shared middle slot; the UI swaps its front buffer
+ * with the middle one whenever a newer snapshot is there (`poll()`).
+ *
+ * The engine's grid may only be touched by the loop thread while it runs. Code that
+ * edits the world (reset, terrain, loading) must `pause()` first, or use `whilePaused`.
+ * No JavaFX here: `poll()` and `current()` are meant to be called from a single reader thread.
+ */
+package ecosystem.logic;
+
+import ecosystem.models.Grid;
+import ecosystem.models.GridChangeSet;
+import ecosystem.models.WorldSnapshot;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+public final class SimulationLoop {
+    private SimulationEngine engine;
+
+    // worker-owned back buffer, shared middle slot, reader-owned front buffer
+    private WorldSnapshot back = new WorldSnapshot();
+    private final AtomicReference<WorldSnapshot> middle = new AtomicReference<>(new WorldSnapshot());
+    private WorldSnapshot front = new WorldSnapshot();
+    private long published;
+    // highest sequence the reader has taken; the worker only reads it
+    private volatile long consumed;
+
+    // cells changed since the last capture, and what the last published snapshot carried
+    private final BitSet changedSinceCapture = new BitSet();
+    private final BitSet carried = new BitSet();
+    private boolean carriedAll = true;
+    // a replayed day (not the engine's world) is on display until the next publishNow/play/step
+    private volatile boolean viewing;
+
+    private final Grid.GridListener changeListener = new Grid.GridListener() {
+        @Override public boolean wantsOrganismEvents() { return false; }
+        @Override public boolean wantsSnapshots() { return false; }
+        @Override public void changesCommitted(GridChangeSet changes) {
+            for (int c : changes.getChangedCells()) changedSinceCapture.set(c);
+        }
+    };
+
+    private Thread worker;
+    private volatile boolean running;
+    // ticks left for the current run; -1 runs until paused
+    private volatile long remaining;
+    // pause between ticks; 0 runs as fast as possible
+    private volatile long delayNanos = 200_000_000L;
+
+    public SimulationLoop(SimulationEngine engine) {
+        setEngine(engine);
+    }
+
+    /** Pause, switch to another engine, and publish its first snapshot. */
+    public void setEngine(SimulationEngine e) {
+        pause();
+        if (engine != null) engine.getGrid().removeListener(changeListener);
+        engine = e;
+        if (engine != null) {
+            engine.getGrid().addListener(changeListener);
+            publishNow();
+        }
+    }
+
+    public SimulationEngine getEngine() { return engine; }
+
+    public boolean isRunning() { return running; }
+
+    /** Running continuously (as opposed to paused or finishing a single step). */
+    public boolean isPlaying() { return running && remaining < 0; }
+
+    /** Delay between ticks in nanoseconds; 0 means unlimited speed. */
+    public void setDelayNanos(long nanos) {
+        delayNanos = Math.max(0, nanos);
+        Thread t = worker;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    public long getDelayNanos() { return delayNanos; }
+
+    /** Tick continuously until `pause()`. */
+    public synchronized void play() {
+        start(-1);
+    }
+
+    /** Run a single tick on the loop thread (ignored while playing). */
+    public synchronized void step() {
+        if (running) return;
+        start(1);
+    }
+
+    /** Stop ticking and wait for the loop thread to finish its current tick. */
+    public synchronized void pause() {
+        Thread t = worker;
+        if (t == null) return;
+        running = false;
+        LockSupport.unpark(t);
+        boolean interrupted = false;
+        while (t.isAlive()) {
+            try {
+                t.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        worker = null;
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /** Pause, run an edit of the world, publish the result, and resume if the loop was playing. */
+    public void whilePaused(Runnable edit) {
+        boolean wasPlaying;
+        synchronized (this) {
+            wasPlaying = isPlaying();
+            pause();
+        }
+        try {
+            edit.run();
+        } finally {
+            publishNow();
+            if (wasPlaying) play();
+        }
+    }
+
+    /** Pause, then capture and publish the current world on the calling thread; everything counts as changed. */
+    public synchronized void publishNow() {
+        pause();
+        viewing = false;
+        if (engine == null) return;
+        changedSinceCapture.clear();
+        carried.clear();
+        carriedAll = true;
+        back.capture(engine.getGrid(), ++published, null);
+        back = middle.getAndSet(back);
+    }
+
+    /**
+     * Pause and publish another grid instead of the engine's world, e.g. a day replayed
+     * by a `ReplayRecorder`. Playing or stepping switches back to the engine's world.
+     */
+    public synchronized void publishView(Grid grid) {
+        pause();
+        viewing = true;
+        back.capture(grid, ++published, null);
+        back = middle.getAndSet(back);
+    }
+
+    /** True while a grid given to `publishView` is on display. */
+    public boolean isViewing() { return viewing; }
+
+    /**
+     * Reader side: adopt the newest published snapshot if there is one.
+     * Returns the snapshot to read (the same object as `current()`).
+     */
+    public WorldSnapshot poll() {
+        if (middle.get().getSequence() > front.getSequence()) {
+            front = middle.getAndSet(front);
+            consumed = front.getSequence();
+        }
+        return front;
+    }
+
+    /** The snapshot the reader adopted last. */
+    public WorldSnapshot current() { return front; }
+
+    private void start(long ticks) {
+        if (engine == null || running) return;
+        pause(); // reap a finished single-step thread
+        if (viewing) publishNow();
+        remaining = ticks;
+        running = true;
+        worker = new Thread(this::run, "simulation-loop");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        long next = System.nanoTime();
+        boolean unpublished = false;
+        try {
+            while (running && remaining != 0) {
+                long delay = delayNanos;
+                if (delay > 0) {
+                    long wait;
+                    while (running && (wait = next - System.nanoTime()) > 0) LockSupport.parkNanos(this, wait);
+                    if (!running) break;
+                }
+                engine.tick();
+                unpublished = true;
+                if (remaining > 0) remaining--;
+                // fixed rate, but a slow tick does not cause a burst of catch-up ticks
+                next = Math.max(next + delay, System.nanoTime());
+                // at full speed, skip the capture while the reader is still behind
+                if (delay > 0 || consumed >= published) {
+                    publish();
+                    unpublished = false;
+                }
+            }
+        } catch (Throwable t) {
+            t.printStackTrace();
+        } finally {
+            running = false;
+            if (unpublished) publish();
+        }
+    }
+
+    /** Capture into the back buffer and swap it into the middle slot (loop thread). */
+    private void publish() {
+        // if the reader never took the previous snapshot, its changes must be carried over
+        boolean seen = consumed >= published;
+        if (seen) {
+            carried.clear();
+            carriedAll = false;
+        }
+        carried.or(changedSinceCapture);
+        changedSinceCapture.clear();
+        back.capture(engine.getGrid(), ++published, carriedAll ? null : carried);
+        back = middle.getAndSet(back);
+    }
+}
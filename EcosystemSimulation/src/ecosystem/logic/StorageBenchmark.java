@@ -0,0 +1,157 @@
+/**
+ * Command-line benchmark of the columnar store's two backends: steps the same world with the
+ * columns on the Java heap and off it (Settings.offHeapStore), printing milliseconds per day,
+ * the collector's pauses from building the world to the last day (count, total, longest; the
+ * columns grow while the first days run) and the peak heap and native memory in use.
+ * No JavaFX is needed.
+ *
+ * Both backends run in one JVM, the heap first; pass `heap` or `offheap` to measure one per
+ * JVM when the numbers must not share a collector history.
+ *
+ * Usage: java ecosystem.logic.StorageBenchmark [width] [height] [days] [heap|offheap|both]
+ */
+package ecosystem.logic;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import ecosystem.Settings;
+import ecosystem.models.PopulationStore;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+public class StorageBenchmark {
+    private static final int WARMUP_DAYS = 10;
+    // Fixed seed: both backends start from the same world
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int days = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        String which = args.length > 3 ? args[3] : "both";
+
+        System.out.printf("Grid %dx%d, %d days (after %d warm-up days)%n", width, height, days, WARMUP_DAYS);
+        System.out.printf("%-10s %10s %8s %10s %10s %10s %10s%n",
+            "store", "ms/day", "pauses", "pause ms", "max ms", "heap MB", "native MB");
+        if (!which.equals("offheap")) run("heap", settings(width, height, false), days);
+        if (!which.equals("heap")) run("off-heap", settings(width, height, true), days);
+    }
+
+    private static Settings settings(int width, int height, boolean offHeap) {
+        Settings s = new Settings();
+        s.setGridWidth(width);
+        s.setGridHeight(height);
+        int cells = width * height;
+        s.setInitialPlants(cells / 3);
+        s.setInitialHerbivores(cells / 30);
+        s.setInitialCarnivores(cells / 600);
+        s.setColumnarStore(true);
+        s.setOffHeapStore(offHeap);
+        s.setSeed(SEED);
+        return s;
+    }
+
+    private static void run(String name, Settings s, int days) {
+        // start from an empty heap: the previous backend's world is garbage by now
+        System.gc();
+        Pauses pauses = new Pauses();
+        pauses.start();
+        SimulationEngine engine = new SimulationEngine(s, false);
+        try {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            PopulationStore store = engine.getGrid().getPopulationStore();
+            long heap = 0, nativeBytes = 0;
+            long start = 0;
+            for (int i = 0; i < WARMUP_DAYS + days; i++) {
+                if (i == WARMUP_DAYS) start = System.nanoTime();
+                engine.tick();
+                heap = Math.max(heap, memory.getHeapMemoryUsage().getUsed());
+                nativeBytes = Math.max(nativeBytes, store.nativeBytes());
+            }
+            long elapsed = System.nanoTime() - start;
+            pauses.stop();
+            synchronized (pauses) {
+                System.out.printf("%-10s %10.1f %8d %10d %10d %10d %10d%n", name, elapsed / 1e6 / days,
+                    pauses.count, pauses.totalMs, pauses.maxMs, heap >> 20, nativeBytes >> 20);
+            }
+        } finally {
+            pauses.stop();
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * Stop-the-world collections reported by the collector beans while started. Their
+     * notifications arrive on another thread, so stop() waits (briefly) for the ones the
+     * beans have counted.
+     */
+    private static final class Pauses implements NotificationListener {
+        private int count;
+        private long totalMs;
+        private long maxMs;
+        private boolean listening;
+        private long countedBefore;
+
+        void start() {
+            countedBefore = counted();
+            for (GarbageCollectorMXBean b : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) b).addNotificationListener(this, null, null);
+            }
+            listening = true;
+        }
+
+        void stop() {
+            if (!listening) return;
+            listening = false;
+            long expected = counted() - countedBefore;
+            long deadline = System.nanoTime() + 1_000_000_000L;
+            synchronized (this) {
+                while (count < expected && System.nanoTime() < deadline) {
+                    try {
+                        wait(10);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            for (GarbageCollectorMXBean b : ManagementFactory.getGarbageCollectorMXBeans()) {
+                try {
+                    ((NotificationEmitter) b).removeNotificationListener(this);
+                } catch (ListenerNotFoundException ex) {
+                    // never added
+                }
+            }
+        }
+
+        private static long counted() {
+            long n = 0;
+            for (GarbageCollectorMXBean b : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (isPause(b.getName())) n += Math.max(0, b.getCollectionCount());
+            }
+            return n;
+        }
+
+        // concurrent cycles run beside the application; they are not pauses
+        private static boolean isPause(String collector) {
+            return !collector.contains("Concurrent") && !collector.contains("Cycles");
+        }
+
+        @Override
+        public synchronized void handleNotification(javax.management.Notification n, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) return;
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+            if (!isPause(info.getGcName())) return;
+            long ms = info.getGcInfo().getDuration();
+            count++;
+            totalMs += ms;
+            maxMs = Math.max(maxMs, ms);
+            notifyAll();
+        }
+    }
+}
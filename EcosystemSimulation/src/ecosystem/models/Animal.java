@@ -1,7 +1,7 @@
 package ecosystem.models;
 
 import java.util.List;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public abstract class Animal extends Organism {
     private int moveCost;
@@ -9,7 +9,6 @@ public abstract class Animal extends Organism {
     private int reproduceThreshold;
     private int metabolismCost;
     private double absorptionRate;
-    private static final Random RNG = new Random();
 
     public Animal(int x, int y, int energy, int moveCost,
                   int reproduceThreshold, int metabolismCost, double absorptionRate) {
@@ -20,11 +19,37 @@ public abstract class Animal extends Organism {
         this.absorptionRate = absorptionRate;
     }
 
+    Animal(int id, int x, int y, int energy, int age, int moveCost,
+           int reproduceThreshold, int metabolismCost, double absorptionRate) {
+        super(id, x, y, energy, age);
+        this.moveCost = moveCost;
+        this.reproduceThreshold = reproduceThreshold;
+        this.metabolismCost = metabolismCost;
+        this.absorptionRate = absorptionRate;
+    }
+
     protected int getMoveCost() { return moveCost; }
     protected int getReproduceThreshold() { return reproduceThreshold; }
     protected int getMetabolismCost() { return metabolismCost; }
     protected double getAbsorptionRate() { return absorptionRate; }
 
+    /** Raw energy value of one meal, before the absorption rate is applied. */
+    protected abstract int getEatGain();
+
+    /** Energy actually absorbed from one meal (never rounds a positive gain down to 0). */
+    protected int mealEnergy() {
+        int eatGain = getEatGain();
+        int gained = (int)Math.round(eatGain * absorptionRate);
+        if (gained <= 0 && eatGain > 0) gained = 1;
+        return gained;
+    }
+
+    /** Organism type this animal feeds on during the eating phase. */
+    protected abstract Class<? extends Organism> getPreyType();
+
+    /** Create a child of the same species carrying this animal's parameters. */
+    protected abstract Animal createOffspring(int x, int y, int energy);
+
     @Override
     public void onDayStart() {
         // Increase age and apply basal metabolism cost
@@ -51,7 +76,7 @@ public abstract class Animal extends Organism {
     protected void randomMove(Grid grid) {
         List<int[]> neighbors = grid.getNeighborPositions(getX(), getY());
         if (!neighbors.isEmpty()) {
-            int[] pos = neighbors.get(RNG.nextInt(neighbors.size()));
+            int[] pos = neighbors.get(grid.random().nextInt(neighbors.size()));
             if (grid.isCellEmpty(pos[0], pos[1])) {
                 this.setPosition(pos[0], pos[1]);
                 this.adjustEnergy(-getMoveCost());
@@ -64,15 +89,21 @@ public abstract class Animal extends Organism {
      * or return null to indicate no available move.
      */
     protected int[] chooseRandomMoveTarget(Grid grid) {
-        List<int[]> neighbors = grid.getNeighborPositions(getX(), getY());
-        if (neighbors.isEmpty()) return null;
-        java.util.Collections.shuffle(neighbors, RNG);
-        for (int[] pos : neighbors) {
-            // Only move onto empty, walkable terrain (avoid water, etc.)
-            if (grid.isCellEmpty(pos[0], pos[1]) && grid.isWalkableTerrain(pos[0], pos[1])) {
-                return pos;
-            }
-        }
-        return null;
+        int cell = chooseMoveCell(grid, grid.random());
+        return cell < 0 ? null : new int[]{grid.cellX(cell), grid.cellY(cell)};
+    }
+
+    /**
+     * Allocation-free variant used by the engines: returns the target as a cell index
+     * (y*width+x), or -1. Only empty, walkable neighbors qualify (avoid water, etc.);
+     * each of them is equally likely.
+     */
+    protected int chooseMoveCell(Grid grid, RandomGenerator rng) {
+        int open = grid.openNeighborMask(getX(), getY());
+        if (open == 0) return -1;
+        // in-place uniform pick: drop a random number of the lowest set bits
+        for (int skip = rng.nextInt(Integer.bitCount(open)); skip > 0; skip--) open &= open - 1;
+        int dir = Integer.numberOfTrailingZeros(open);
+        return grid.cellIndex(getX() + Grid.NEIGHBOR_DX[dir], getY() + Grid.NEIGHBOR_DY[dir]);
     }
 }
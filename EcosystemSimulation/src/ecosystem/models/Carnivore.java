@@ -4,11 +4,9 @@
 package ecosystem.models;
 
 import java.util.List;
-import java.util.Random;
 
 public class Carnivore extends Animal {
     private int eatGain;
-    private static final Random RNG = new Random();
 
     public Carnivore(int x, int y, int energy, int moveCost, int eatGain,
                      int reproduceThreshold, int metabolismCost, double absorptionRate) {
@@ -16,6 +14,12 @@ public class Carnivore extends Animal {
         this.eatGain = eatGain;
     }
 
+    Carnivore(int id, int x, int y, int energy, int age, int moveCost, int eatGain,
+              int reproduceThreshold, int metabolismCost, double absorptionRate) {
+        super(id, x, y, energy, age, moveCost, reproduceThreshold, metabolismCost, absorptionRate);
+        this.eatGain = eatGain;
+    }
+
     @Override
     public void step(Grid grid) {
         // Fallback single-organism update (not used in new multi-phase engine):
@@ -28,9 +32,7 @@ public class Carnivore extends Animal {
         Organism prey = grid.findNeighborOfType(getX(), getY(), Herbivore.class);
         if (prey != null) {
             grid.removeOrganism(prey);
-            int gained = (int)Math.round(eatGain * getAbsorptionRate());
-            if (gained <= 0 && eatGain > 0) gained = 1;
-            this.adjustEnergy(gained);
+            this.adjustEnergy(mealEnergy());
         }
     }
 
@@ -48,21 +50,24 @@ public class Carnivore extends Animal {
                 int childEnergy = originalEnergy / 4;
                 if (childEnergy <= 0) return;
                 this.setEnergy(parentAfter);
-                int[] pos = walkable.get(RNG.nextInt(walkable.size()));
-                Carnivore child = new Carnivore(
-                    pos[0], pos[1],
-                    childEnergy,
-                    getMoveCost(),
-                    this.eatGain,
-                    getReproduceThreshold(),
-                    getMetabolismCost(),
-                    getAbsorptionRate()
-                );
-                grid.addOrganism(child);
+                int[] pos = walkable.get(grid.random().nextInt(walkable.size()));
+                grid.addOrganism(createOffspring(pos[0], pos[1], childEnergy));
             }
         }
     }
 
+    @Override
+    protected int getEatGain() { return eatGain; }
+
+    @Override
+    protected Class<? extends Organism> getPreyType() { return Herbivore.class; }
+
+    @Override
+    protected Animal createOffspring(int x, int y, int energy) {
+        return new Carnivore(x, y, energy, getMoveCost(), eatGain,
+            getReproduceThreshold(), getMetabolismCost(), getAbsorptionRate());
+    }
+
     @Override
     public String toString() {
         return "C";
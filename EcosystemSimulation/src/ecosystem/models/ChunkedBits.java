@@ -0,0 +1,60 @@
+/**
+ * One bit per cell, stored per 64x64 chunk as 64 words (one per chunk row). A chunk whose
+ * bits are all the same shares one constant array, so a uniform region (open grass, open
+ * sea, nothing marked yet) costs a reference; a chunk gets its own words on the first write
+ * that makes it differ.
+ */
+package ecosystem.models;
+
+import java.util.Arrays;
+
+final class ChunkedBits {
+    private static final long[] NONE = new long[Chunks.SIZE];
+    private static final long[] ALL = new long[Chunks.SIZE];
+    static {
+        Arrays.fill(ALL, -1L);
+    }
+
+    private final Chunks chunks;
+    private final long[][] words;
+
+    /** All bits set to `value`. */
+    ChunkedBits(Chunks chunks, boolean value) {
+        this.chunks = chunks;
+        this.words = new long[chunks.count()][];
+        Arrays.fill(words, value ? ALL : NONE);
+    }
+
+    /** Bit of cell (x,y), which must be in bounds. */
+    boolean get(int x, int y) {
+        // a long shift only uses the low 6 bits of x
+        return (words[chunks.of(x, y)][y & Chunks.MASK] & (1L << x)) != 0;
+    }
+
+    /** Replace the 64 bits of chunk row (x0..x0+63, y), x0 being a multiple of 64. */
+    void setWord(int x0, int y, long bits) {
+        int c = chunks.of(x0, y);
+        long[] w = words[c];
+        if (w[y & Chunks.MASK] == bits) return;
+        if (w == NONE || w == ALL) words[c] = w = w.clone();
+        w[y & Chunks.MASK] = bits;
+    }
+
+    /** Share the words of every chunk whose cells in the world are all set or all clear. */
+    void compact() {
+        for (int c = 0; c < words.length; c++) {
+            long[] w = words[c];
+            if (w == NONE || w == ALL) continue;
+            int cw = chunks.widthOf(c), ch = chunks.heightOf(c);
+            long inWorld = cw == Chunks.SIZE ? -1L : (1L << cw) - 1;
+            boolean all = true, none = true;
+            for (int r = 0; r < ch; r++) {
+                long v = w[r] & inWorld;
+                all &= v == inWorld;
+                none &= v == 0;
+            }
+            if (all) words[c] = ALL;
+            else if (none) words[c] = NONE;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Geometry of the 64x64-cell chunks that per-cell storage is split into, so that a huge,
+ * mostly empty world only pays for the chunks something happens in. Chunks are numbered
+ * row by row, and a cell's offset inside its chunk is (y % 64) * 64 + x % 64.
+ */
+package ecosystem.models;
+
+final class Chunks {
+    static final int SHIFT = 6;
+    static final int SIZE = 1 << SHIFT;
+    static final int MASK = SIZE - 1;
+    static final int CELLS = SIZE * SIZE;
+
+    final int width;
+    final int height;
+    // chunks per row and per column
+    final int cols;
+    final int rows;
+
+    Chunks(int width, int height) {
+        this.width = Math.max(0, width);
+        this.height = Math.max(0, height);
+        this.cols = (this.width + MASK) >> SHIFT;
+        this.rows = (this.height + MASK) >> SHIFT;
+    }
+
+    int count() { return cols * rows; }
+
+    /** Chunk holding cell (x,y), which must be in bounds. */
+    int of(int x, int y) { return (y >> SHIFT) * cols + (x >> SHIFT); }
+
+    static int offset(int x, int y) { return (y & MASK) << SHIFT | (x & MASK); }
+
+    /** First column / row of a chunk, and its size clipped to the world. */
+    int x0(int chunk) { return (chunk % cols) << SHIFT; }
+    int y0(int chunk) { return (chunk / cols) << SHIFT; }
+    int widthOf(int chunk) { return Math.min(SIZE, width - x0(chunk)); }
+    int heightOf(int chunk) { return Math.min(SIZE, height - y0(chunk)); }
+}
@@ -0,0 +1,182 @@
+/**
+ * Where a `PopulationStore` keeps its per-slot columns and its occupancy chunks: plain arrays
+ * on the Java heap, or (Settings.offHeapStore) native memory that the collector never sees.
+ * Int columns are addressed by column number (ID .. NEXT_IN_CELL), so the store reads both
+ * backends the same way.
+ *
+ * Native memory comes from shared arenas (the UI thread reads the population while the engine
+ * steps it) and is freed one arena at a time: the columns of one capacity go when the store
+ * outgrows them, the occupancy chunks on close(). Any access after close() throws
+ * IllegalStateException instead of reading freed memory.
+ */
+package ecosystem.models;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+abstract class ColumnMemory implements AutoCloseable {
+    static final int ID = 0;
+    static final int TYPE = 1;
+    static final int X = 2;
+    static final int Y = 3;
+    static final int ENERGY = 4;
+    static final int AGE = 5;
+    static final int MOVE_COST = 6;
+    static final int EAT_GAIN = 7;
+    static final int REPRODUCE_THRESHOLD = 8;
+    static final int METABOLISM_COST = 9;
+    // -1 where a slot has no successor in its cell, also for slots not handed out yet
+    static final int NEXT_IN_CELL = 10;
+    static final int INT_COLUMNS = 11;
+
+    static final int NO_SLOT = -1;
+
+    static ColumnMemory create(boolean offHeap, int chunkCount) {
+        return offHeap ? new Native(chunkCount) : new Heap(chunkCount);
+    }
+
+    abstract boolean isOffHeap();
+    /** Native memory held, in bytes (0 on the heap). */
+    abstract long nativeBytes();
+
+    abstract int capacity();
+    /** Grow every column to `capacity` slots, keeping their contents. */
+    abstract void resize(int capacity);
+
+    abstract int get(int column, int slot);
+    abstract void set(int column, int slot, int value);
+    abstract double getAbsorption(int slot);
+    abstract void setAbsorption(int slot, double value);
+
+    /** First slot in a cell (Chunks.offset) of a chunk, or NO_SLOT; chunks are allocated by setHead(). */
+    abstract int head(int chunk, int cell);
+    abstract void setHead(int chunk, int cell, int slot);
+
+    /** Release native memory; a no-op on the heap. */
+    @Override
+    public abstract void close();
+
+    private static final class Heap extends ColumnMemory {
+        private final int[][] heads;
+        private int[][] ints = new int[INT_COLUMNS][0];
+        private double[] absorption = new double[0];
+
+        Heap(int chunkCount) {
+            heads = new int[chunkCount][];
+        }
+
+        @Override boolean isOffHeap() { return false; }
+        @Override long nativeBytes() { return 0; }
+        @Override int capacity() { return absorption.length; }
+
+        @Override
+        void resize(int capacity) {
+            int old = absorption.length;
+            for (int c = 0; c < INT_COLUMNS; c++) ints[c] = Arrays.copyOf(ints[c], capacity);
+            Arrays.fill(ints[NEXT_IN_CELL], old, capacity, NO_SLOT);
+            absorption = Arrays.copyOf(absorption, capacity);
+        }
+
+        @Override int get(int column, int slot) { return ints[column][slot]; }
+        @Override void set(int column, int slot, int value) { ints[column][slot] = value; }
+        @Override double getAbsorption(int slot) { return absorption[slot]; }
+        @Override void setAbsorption(int slot, double value) { absorption[slot] = value; }
+
+        @Override
+        int head(int chunk, int cell) {
+            int[] h = heads[chunk];
+            return h == null ? NO_SLOT : h[cell];
+        }
+
+        @Override
+        void setHead(int chunk, int cell, int slot) {
+            int[] h = heads[chunk];
+            if (h == null) {
+                h = heads[chunk] = new int[Chunks.CELLS];
+                Arrays.fill(h, NO_SLOT);
+            }
+            h[cell] = slot;
+        }
+
+        @Override public void close() {}
+    }
+
+    /** All int columns in one segment, column after column, and the doubles in a second one. */
+    private static final class Native extends ColumnMemory {
+        private final Arena chunkArena = Arena.ofShared();
+        private final MemorySegment[] heads;
+        private Arena columnArena;
+        private MemorySegment ints = MemorySegment.NULL;
+        private MemorySegment absorption = MemorySegment.NULL;
+        private int capacity;
+        private long chunkBytes;
+
+        Native(int chunkCount) {
+            heads = new MemorySegment[chunkCount];
+        }
+
+        @Override boolean isOffHeap() { return true; }
+        @Override long nativeBytes() { return ints.byteSize() + absorption.byteSize() + chunkBytes; }
+        @Override int capacity() { return capacity; }
+
+        @Override
+        void resize(int newCapacity) {
+            Arena arena = Arena.ofShared();
+            MemorySegment i = arena.allocate(JAVA_INT.byteSize() * INT_COLUMNS * newCapacity, JAVA_DOUBLE.byteAlignment());
+            MemorySegment d = arena.allocate(JAVA_DOUBLE.byteSize() * newCapacity, JAVA_DOUBLE.byteAlignment());
+            for (int c = 0; c < INT_COLUMNS; c++) {
+                MemorySegment.copy(ints, JAVA_INT.byteSize() * c * capacity, i, JAVA_INT.byteSize() * c * newCapacity,
+                    JAVA_INT.byteSize() * capacity);
+            }
+            MemorySegment.copy(absorption, 0, d, 0, absorption.byteSize());
+            i.asSlice(JAVA_INT.byteSize() * ((long) NEXT_IN_CELL * newCapacity + capacity),
+                JAVA_INT.byteSize() * (newCapacity - capacity)).fill((byte) 0xFF);
+            if (columnArena != null) columnArena.close();
+            columnArena = arena;
+            ints = i;
+            absorption = d;
+            capacity = newCapacity;
+        }
+
+        private long at(int column, int slot) {
+            return ((long) column * capacity + slot) << 2;
+        }
+
+        @Override int get(int column, int slot) { return ints.get(JAVA_INT, at(column, slot)); }
+        @Override void set(int column, int slot, int value) { ints.set(JAVA_INT, at(column, slot), value); }
+        @Override double getAbsorption(int slot) { return absorption.getAtIndex(JAVA_DOUBLE, slot); }
+        @Override void setAbsorption(int slot, double value) { absorption.setAtIndex(JAVA_DOUBLE, slot, value); }
+
+        @Override
+        int head(int chunk, int cell) {
+            MemorySegment h = heads[chunk];
+            return h == null ? NO_SLOT : h.getAtIndex(JAVA_INT, cell);
+        }
+
+        @Override
+        void setHead(int chunk, int cell, int slot) {
+            MemorySegment h = heads[chunk];
+            if (h == null) {
+                h = heads[chunk] = chunkArena.allocate(JAVA_INT.byteSize() * Chunks.CELLS, JAVA_INT.byteAlignment());
+                h.fill((byte) 0xFF);
+                chunkBytes += h.byteSize();
+            }
+            h.setAtIndex(JAVA_INT, cell, slot);
+        }
+
+        @Override
+        public void close() {
+            if (!chunkArena.scope().isAlive()) return;
+            if (columnArena != null) columnArena.close();
+            chunkArena.close();
+            ints = MemorySegment.NULL;
+            absorption = MemorySegment.NULL;
+            capacity = 0;
+            chunkBytes = 0;
+        }
+    }
+}
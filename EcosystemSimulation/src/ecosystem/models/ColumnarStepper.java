@@ -0,0 +1,186 @@
+/**
+ * `Grid.stepAll()` for the struct-of-arrays population: the same six daily phases,
+ * run directly over the `PopulationStore` columns without touching `Organism` objects.
+ * Organisms born during the day have age 0 after phase 1, which is how later phases
+ * tell them apart from the start-of-day population.
+ */
+package ecosystem.models;
+
+import java.util.SplittableRandom;
+
+final class ColumnarStepper {
+    // Compact once this share of the handed-out slots is free
+    private static final double COMPACT_THRESHOLD = 0.25;
+
+    private final Grid grid;
+    private final PopulationStore store;
+    // Per-slot move target (cell index or -1), reused every day
+    private int[] moveTarget = new int[0];
+    private final int[] candidates = new int[8];
+
+    ColumnarStepper(Grid grid, PopulationStore store) {
+        this.grid = grid;
+        this.store = store;
+    }
+
+    void stepAll(long day) {
+        long clock = grid.phaseStart();
+        SplittableRandom rng = grid.getRandomStreams().stream(day, RandomStreams.LANE_SEQUENTIAL);
+        int width = grid.getWidth();
+        int n = store.capacityUsed();
+
+        // 1) Day start: age and basal metabolism
+        for (int s = 0; s < n; s++) {
+            int t = store.getType(s);
+            if (t == PopulationStore.TYPE_NONE) continue;
+            store.setAge(s, store.getAge(s) + 1);
+            if (t != PopulationStore.TYPE_PLANT) store.setEnergy(s, store.getEnergy(s) - store.getMetabolismCost(s));
+        }
+        clock = grid.phaseEnd(PhaseStats.DAY_START, clock);
+
+        // 2) Plant growth into empty, grass-habitable orthogonal neighbors
+        if (grid.hasPlantFrontier()) {
+            grid.growFrontier(rng);
+        } else {
+            for (int s = 0; s < n; s++) {
+                if (store.getType(s) != PopulationStore.TYPE_PLANT || store.getAge(s) == 0 || store.getEnergy(s) <= 0) continue;
+                for (int d = 0; d < Plant.SPREAD_DX.length; d++) {
+                    int nx = store.getX(s) + Plant.SPREAD_DX[d];
+                    int ny = store.getY(s) + Plant.SPREAD_DY[d];
+                    if (!canGrowAt(nx, ny)) continue;
+                    if (rng.nextDouble() < grid.getPlantGrowRate()) {
+                        int slot = store.add(PopulationStore.TYPE_PLANT, grid.nextId(), nx, ny,
+                            grid.getPlantEnergy(), 0, 0, 0, 0, 1.0);
+                        grid.tally.born(PopulationStore.TYPE_PLANT);
+                        grid.fireAdded(store, slot);
+                    }
+                }
+            }
+        }
+        clock = grid.phaseEnd(PhaseStats.GROW, clock);
+
+        // 3a) Movement intents: 50% chance to pick a random empty walkable neighbor
+        n = store.capacityUsed();
+        if (moveTarget.length < n) moveTarget = new int[Math.max(n, moveTarget.length * 2)];
+        for (int s = 0; s < n; s++) {
+            moveTarget[s] = -1;
+            if (!isActingAnimal(s)) continue;
+            if (rng.nextBoolean()) {
+                int open = grid.openNeighborMask(store.getX(s), store.getY(s));
+                if (open == 0) continue;
+                // uniform pick among open neighbors without shuffling
+                for (int skip = rng.nextInt(Integer.bitCount(open)); skip > 0; skip--) open &= open - 1;
+                int dir = Integer.numberOfTrailingZeros(open);
+                moveTarget[s] = grid.cellIndex(store.getX(s) + Grid.NEIGHBOR_DX[dir], store.getY(s) + Grid.NEIGHBOR_DY[dir]);
+            }
+        }
+
+        // 3b) Apply moves in slot order; a target taken earlier this phase is no longer empty
+        for (int s = 0; s < n; s++) {
+            int cell = moveTarget[s];
+            if (cell < 0 || !isActingAnimal(s)) continue;
+            int cx = cell % width, cy = cell / width;
+            if (store.slotAt(cx, cy) >= 0) {
+                grid.moveConflict();
+                continue;
+            }
+            grid.fireMoved(store.getX(s), store.getY(s), cx, cy);
+            store.move(s, cx, cy);
+            store.setEnergy(s, store.getEnergy(s) - store.getMoveCost(s));
+        }
+        clock = grid.phaseEnd(PhaseStats.MOVE, clock);
+
+        // 4) Eating: consume the first neighboring prey (plants for herbivores, herbivores for carnivores)
+        for (int s = 0; s < n; s++) {
+            if (!isActingAnimal(s)) continue;
+            int preyType = store.getType(s) == PopulationStore.TYPE_HERBIVORE
+                ? PopulationStore.TYPE_PLANT : PopulationStore.TYPE_HERBIVORE;
+            int prey = findNeighborOfType(store.getX(s), store.getY(s), preyType);
+            if (prey < 0) continue;
+            grid.tally.eaten(preyType);
+            grid.fireRemoved(store, prey);
+            store.remove(prey);
+            store.setEnergy(s, store.getEnergy(s) + mealEnergy(s));
+        }
+        clock = grid.phaseEnd(PhaseStats.EAT, clock);
+
+        // 5) Reproduction: split energy with a child on a random empty walkable neighbor
+        int failed = 0;
+        for (int s = 0; s < n; s++) {
+            if (!isActingAnimal(s) || store.getEnergy(s) < store.getReproduceThreshold(s)) continue;
+            int c = 0;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx == 0 && dy == 0) continue;
+                    int nx = store.getX(s) + dx, ny = store.getY(s) + dy;
+                    if (grid.inBounds(nx, ny) && grid.walkableAt(nx, ny) && store.slotAt(nx, ny) < 0) {
+                        candidates[c++] = ny * width + nx;
+                    }
+                }
+            }
+            int originalEnergy = store.getEnergy(s);
+            int childEnergy = originalEnergy / 4;
+            if (c == 0 || childEnergy <= 0) {
+                failed++;
+                continue;
+            }
+            store.setEnergy(s, originalEnergy / 2);
+            int cell = candidates[rng.nextInt(c)];
+            int child = store.add(store.getType(s), grid.nextId(), cell % width, cell / width, childEnergy,
+                store.getMoveCost(s), store.getEatGain(s), store.getReproduceThreshold(s),
+                store.getMetabolismCost(s), store.getAbsorptionRate(s));
+            grid.tally.born(store.getType(s));
+            grid.fireAdded(store, child);
+        }
+        grid.failedReproductions(failed);
+        clock = grid.phaseEnd(PhaseStats.REPRODUCE, clock);
+
+        // 6) Remove the dead and total up the survivors, compact if fragmented, then notify survivors
+        n = store.capacityUsed();
+        for (int s = 0; s < n; s++) {
+            int t = store.getType(s);
+            if (t == PopulationStore.TYPE_NONE) continue;
+            if (store.getEnergy(s) <= 0) {
+                grid.tally.died(t);
+                grid.fireRemoved(store, s);
+                store.remove(s);
+            } else {
+                grid.tally.survived(t, store.getEnergy(s));
+            }
+        }
+        if (store.fragmentation() > COMPACT_THRESHOLD) store.compact();
+        clock = grid.phaseEnd(PhaseStats.SWEEP, clock);
+        grid.fireUpdatedAll(store);
+        grid.phaseEnd(PhaseStats.LISTENERS, clock);
+    }
+
+    /** Live animal that was present at the start of the day. */
+    private boolean isActingAnimal(int s) {
+        int t = store.getType(s);
+        return (t == PopulationStore.TYPE_HERBIVORE || t == PopulationStore.TYPE_CARNIVORE)
+            && store.getAge(s) > 0 && store.getEnergy(s) > 0;
+    }
+
+    private boolean canGrowAt(int x, int y) {
+        return grid.inBounds(x, y) && grid.habitableAt(x, y) && store.slotAt(x, y) < 0;
+    }
+
+    private int mealEnergy(int s) {
+        int gain = store.getEatGain(s);
+        int gained = (int) Math.round(gain * store.getAbsorptionRate(s));
+        if (gained <= 0 && gain > 0) gained = 1;
+        return gained;
+    }
+
+    private int findNeighborOfType(int x, int y, int wanted) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (dx == 0 && dy == 0) continue;
+                for (int o = store.slotAt(x + dx, y + dy); o >= 0; o = store.nextInCell(o)) {
+                    if (store.getType(o) == wanted) return o;
+                }
+            }
+        }
+        return -1;
+    }
+}
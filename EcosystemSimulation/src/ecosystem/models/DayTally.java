@@ -0,0 +1,63 @@
+/**
+ * What happened during the last `Grid.stepAll()`, per species (PopulationStore.TYPE_* index):
+ * births, deaths and kills are counted where they happen, and the end-of-day population
+ * and energy are summed in the sweep that removes the dead, so nothing is rescanned.
+ * Plant births are the plant spread of the day; kills are counted for the predator.
+ */
+package ecosystem.models;
+
+import java.util.Arrays;
+
+public final class DayTally {
+    static final int TYPES = 4;
+
+    final int[] count = new int[TYPES];
+    final long[] energy = new long[TYPES];
+    final int[] births = new int[TYPES];
+    final int[] deaths = new int[TYPES];
+    final int[] kills = new int[TYPES];
+    private long day = -1;
+
+    /** Day the grid reached with that step (the totals are its population), or -1 before the first step. */
+    public long getDay() { return day; }
+    public int getCount(int type) { return count[type]; }
+    public long getEnergy(int type) { return energy[type]; }
+    public int getBirths(int type) { return births[type]; }
+    public int getDeaths(int type) { return deaths[type]; }
+    public int getKills(int type) { return kills[type]; }
+
+    void begin(long d) {
+        day = d;
+        Arrays.fill(count, 0);
+        Arrays.fill(energy, 0);
+        Arrays.fill(births, 0);
+        Arrays.fill(deaths, 0);
+        Arrays.fill(kills, 0);
+    }
+
+    void born(int type) { births[type]++; }
+
+    void died(int type) { deaths[type]++; }
+
+    /** A prey was eaten: a death of its species and a kill for the species that eats it. */
+    void eaten(int preyType) {
+        deaths[preyType]++;
+        kills[preyType == PopulationStore.TYPE_PLANT ? PopulationStore.TYPE_HERBIVORE : PopulationStore.TYPE_CARNIVORE]++;
+    }
+
+    void survived(int type, int e) {
+        count[type]++;
+        energy[type] += e;
+    }
+
+    /** `n` survivors of one type at once, with their total energy. */
+    void survived(int type, int n, long e) {
+        count[type] += n;
+        energy[type] += e;
+    }
+
+    static int typeOf(Organism o) {
+        if (o instanceof Plant) return PopulationStore.TYPE_PLANT;
+        return o instanceof Carnivore ? PopulationStore.TYPE_CARNIVORE : PopulationStore.TYPE_HERBIVORE;
+    }
+}
@@ -0,0 +1,443 @@
+/**
+ * Per-tick delta journal: what changed in a grid since the previous tick, so that a
+ * world can be rebuilt from its last checkpoint (a V2 `WorldFile`) plus the ticks after it.
+ *
+ * File layout (little-endian): "ECO_JRN_V1", long day of the checkpoint it follows, then
+ * one frame per tick: int payload length, int CRC-32 of the payload, payload. A frame that
+ * is cut short or fails its checksum (a crash mid-write) ends the journal.
+ *
+ * Payload (varints; signed values zigzag-encoded):
+ *   day after the tick, deaths (ids), updates, births
+ *   update: id, flags (MOVED, ENERGY, AGE), then x and y / energy / age for the flags set
+ *   birth: id, type byte, x, y, energy, age, and for animals moveCost, eatGain,
+ *     reproduceThreshold, metabolismCost and the raw bits of absorptionRate
+ * Every survivor implicitly ages by one day per tick; only deviations are written.
+ */
+package ecosystem.models;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+public final class DeltaJournal {
+    public static final String MAGIC = "ECO_JRN_V1";
+    static final int MOVED = 1, ENERGY = 2, AGE = 4;
+    private static final int HEADER_BYTES = 10 + 8;
+
+    private DeltaJournal() {}
+
+    /**
+     * Turns the ticks of one grid into journal payloads. Keeps the last journaled
+     * position, energy and age of every organism in flat columns (an id index into
+     * them) and diffs the grid against them after each tick; whoever is no longer
+     * seen has died. Needs no grid listener, so it adds no change-set work to a tick.
+     * Field plants are diffed cell by cell against a chunked copy of the field instead
+     * (they are journaled under their cell ids, PlantField.idOf). Must be used on the
+     * thread that steps the grid.
+     */
+    public static final class Recorder {
+        private final Grid grid;
+        private IntIntMap index;
+        // entry columns; id 0 marks a free entry
+        private int[] ids = new int[0], xs = new int[0], ys = new int[0], energies = new int[0], ages = new int[0];
+        private int[] seen = new int[0];
+        private int[] free = new int[16];
+        private int freeCount;
+        private int used;
+        private int stamp;
+        // last journaled energy and age of every field plant, per chunk as in PlantField (null: none there)
+        private short[][] fieldEnergy = new short[0][], fieldAge = new short[0][];
+        private final Bytes deaths = new Bytes(), updates = new Bytes(), births = new Bytes(), out = new Bytes();
+
+        public Recorder(Grid grid) {
+            this.grid = grid;
+            reset();
+        }
+
+        /** Take the current state as the new baseline (right after a checkpoint of it). */
+        public void reset() {
+            PopulationStore store = grid.getPopulationStore();
+            int n = store != null ? store.size() : grid.organismObjects().size();
+            index = new IntIntMap(n, -1);
+            used = 0;
+            freeCount = 0;
+            ensureCapacity(n);
+            if (store != null) {
+                for (int s = 0; s < store.capacityUsed(); s++) {
+                    if (store.isLive(s)) put(store.getId(s), store.getX(s), store.getY(s), store.getEnergy(s), store.getAge(s));
+                }
+            } else {
+                for (Organism o : grid.organismObjects()) put(o.getId(), o.getX(), o.getY(), o.getEnergy(), o.getAge());
+            }
+            PlantField field = store != null ? null : grid.getPlantField();
+            fieldEnergy = new short[field == null ? 0 : field.chunks().count()][];
+            fieldAge = new short[fieldEnergy.length][];
+            for (int c = 0; c < fieldEnergy.length; c++) {
+                if (field.plantsIn(c) == 0) continue;
+                fieldEnergy[c] = field.energyIn(c).clone();
+                fieldAge[c] = field.ageIn(c).clone();
+            }
+        }
+
+        /** Payload for the tick that just ended; the new state becomes the baseline. */
+        public byte[] record() {
+            stamp++;
+            deaths.clear();
+            updates.clear();
+            births.clear();
+            int deathCount = 0, updateCount = 0, birthCount = 0;
+            PopulationStore store = grid.getPopulationStore();
+            if (store != null) {
+                for (int s = 0; s < store.capacityUsed(); s++) {
+                    if (!store.isLive(s)) continue;
+                    int k = index.get(store.getId(s));
+                    if (k < 0) {
+                        birth(store.getType(s), store.getId(s), store.getX(s), store.getY(s), store.getEnergy(s), store.getAge(s),
+                            store.getMoveCost(s), store.getEatGain(s), store.getReproduceThreshold(s),
+                            store.getMetabolismCost(s), store.getAbsorptionRate(s));
+                        birthCount++;
+                    } else if (update(k, store.getX(s), store.getY(s), store.getEnergy(s), store.getAge(s))) {
+                        updateCount++;
+                    }
+                }
+            } else {
+                for (Organism o : grid.organismObjects()) {
+                    int k = index.get(o.getId());
+                    if (k >= 0) {
+                        if (update(k, o.getX(), o.getY(), o.getEnergy(), o.getAge())) updateCount++;
+                    } else if (o instanceof Animal) {
+                        Animal a = (Animal) o;
+                        birth(a instanceof Carnivore ? PopulationStore.TYPE_CARNIVORE : PopulationStore.TYPE_HERBIVORE,
+                            a.getId(), a.getX(), a.getY(), a.getEnergy(), a.getAge(), a.getMoveCost(), a.getEatGain(),
+                            a.getReproduceThreshold(), a.getMetabolismCost(), a.getAbsorptionRate());
+                        birthCount++;
+                    } else {
+                        birth(PopulationStore.TYPE_PLANT, o.getId(), o.getX(), o.getY(), o.getEnergy(), o.getAge(), 0, 0, 0, 0, 1.0);
+                        birthCount++;
+                    }
+                }
+            }
+            PlantField field = store != null ? null : grid.getPlantField();
+            if (field != null) {
+                int[] counts = recordField(field);
+                deathCount += counts[0];
+                updateCount += counts[1];
+                birthCount += counts[2];
+            }
+            for (int k = 0; k < used; k++) {
+                if (ids[k] == 0 || seen[k] == stamp) continue;
+                deaths.varInt(ids[k]);
+                deathCount++;
+                index.remove(ids[k]);
+                ids[k] = 0;
+                if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+                free[freeCount++] = k;
+            }
+            out.clear();
+            out.varLong(grid.getDay());
+            out.varInt(deathCount);
+            out.append(deaths);
+            out.varInt(updateCount);
+            out.append(updates);
+            out.varInt(birthCount);
+            out.append(births);
+            return out.toArray();
+        }
+
+        /**
+         * Diff the field against the last journaled one, cell by cell in chunks where either has
+         * plants, and take it as the new baseline; returns the {deaths, updates, births} written.
+         * A cell whose plant was eaten and regrown within the tick is an update, as its id is the cell.
+         */
+        private int[] recordField(PlantField field) {
+            int[] counts = new int[3];
+            Chunks chunks = field.chunks();
+            for (int c = 0; c < fieldEnergy.length; c++) {
+                short[] was = fieldEnergy[c], wasAge = fieldAge[c];
+                if (field.plantsIn(c) == 0) {
+                    if (was == null) continue;
+                    fieldEnergy[c] = fieldAge[c] = null;
+                }
+                short[] now = field.energyIn(c), nowAge = field.ageIn(c);
+                int x0 = chunks.x0(c), y0 = chunks.y0(c);
+                for (int i = 0; i < Chunks.CELLS; i++) {
+                    int e = field.plantsIn(c) == 0 ? 0 : now[i], before = was == null ? 0 : was[i];
+                    if (e == 0 && before == 0) continue;
+                    int x = x0 + (i & Chunks.MASK), y = y0 + (i >> Chunks.SHIFT);
+                    int oid = PlantField.idOf(y * chunks.width + x);
+                    if (e == 0) {
+                        deaths.varInt(oid);
+                        counts[0]++;
+                    } else if (before == 0) {
+                        births.varInt(oid);
+                        births.put(PopulationStore.TYPE_PLANT);
+                        births.zigzag(x);
+                        births.zigzag(y);
+                        births.zigzag(e);
+                        births.zigzag(nowAge[i]);
+                        counts[2]++;
+                    } else {
+                        int flags = 0;
+                        if (e != before) flags |= ENERGY;
+                        if (nowAge[i] != wasAge[i] + 1) flags |= AGE;
+                        if (flags == 0) continue;
+                        updates.varInt(oid);
+                        updates.put(flags);
+                        if ((flags & ENERGY) != 0) updates.zigzag(e);
+                        if ((flags & AGE) != 0) updates.zigzag(nowAge[i]);
+                        counts[1]++;
+                    }
+                }
+                if (field.plantsIn(c) == 0) continue;
+                if (was == null) {
+                    fieldEnergy[c] = now.clone();
+                    fieldAge[c] = nowAge.clone();
+                } else {
+                    System.arraycopy(now, 0, was, 0, Chunks.CELLS);
+                    System.arraycopy(nowAge, 0, wasAge, 0, Chunks.CELLS);
+                }
+            }
+            return counts;
+        }
+
+        private boolean update(int k, int x, int y, int e, int a) {
+            seen[k] = stamp;
+            int flags = 0;
+            if (x != xs[k] || y != ys[k]) flags |= MOVED;
+            if (e != energies[k]) flags |= ENERGY;
+            if (a != ages[k] + 1) flags |= AGE;
+            if (flags == 0) {
+                ages[k] = a;
+                return false;
+            }
+            xs[k] = x;
+            ys[k] = y;
+            energies[k] = e;
+            ages[k] = a;
+            updates.varInt(ids[k]);
+            updates.put(flags);
+            if ((flags & MOVED) != 0) {
+                updates.zigzag(x);
+                updates.zigzag(y);
+            }
+            if ((flags & ENERGY) != 0) updates.zigzag(e);
+            if ((flags & AGE) != 0) updates.zigzag(a);
+            return true;
+        }
+
+        private void birth(int t, int oid, int x, int y, int e, int a,
+                           int move, int gain, int threshold, int metabolism, double absorption) {
+            put(oid, x, y, e, a);
+            births.varInt(oid);
+            births.put(t);
+            births.zigzag(x);
+            births.zigzag(y);
+            births.zigzag(e);
+            births.zigzag(a);
+            if (t == PopulationStore.TYPE_PLANT) return;
+            births.zigzag(move);
+            births.zigzag(gain);
+            births.zigzag(threshold);
+            births.zigzag(metabolism);
+            births.varLong(Double.doubleToRawLongBits(absorption));
+        }
+
+        private void put(int oid, int x, int y, int e, int a) {
+            int k;
+            if (freeCount > 0) {
+                k = free[--freeCount];
+            } else {
+                ensureCapacity(used + 1);
+                k = used++;
+            }
+            ids[k] = oid;
+            xs[k] = x;
+            ys[k] = y;
+            energies[k] = e;
+            ages[k] = a;
+            seen[k] = stamp;
+            index.put(oid, k);
+        }
+
+        private void ensureCapacity(int n) {
+            if (ids.length >= n) return;
+            int cap = Math.max(n, Math.max(64, ids.length * 3 / 2));
+            ids = Arrays.copyOf(ids, cap);
+            xs = Arrays.copyOf(xs, cap);
+            ys = Arrays.copyOf(ys, cap);
+            energies = Arrays.copyOf(energies, cap);
+            ages = Arrays.copyOf(ages, cap);
+            seen = Arrays.copyOf(seen, cap);
+        }
+    }
+
+    /** Appends framed payloads to a journal file. Not thread-safe; meant for one I/O thread. */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private final ByteBuffer frame = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+        /** Create (or truncate) a journal that follows a checkpoint of the given day. */
+        public Writer(Path file, long checkpointDay) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC.getBytes(StandardCharsets.US_ASCII)).putLong(checkpointDay).flip();
+            writeFully(header);
+        }
+
+        public void append(byte[] payload) throws IOException {
+            crc.reset();
+            crc.update(payload);
+            frame.clear();
+            frame.putInt(payload.length).putInt((int) crc.getValue()).flip();
+            writeFully(frame);
+            writeFully(ByteBuffer.wrap(payload));
+        }
+
+        /** Push everything written so far to the storage device. */
+        public void force() throws IOException {
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void writeFully(ByteBuffer b) throws IOException {
+            while (b.hasRemaining()) channel.write(b);
+        }
+    }
+
+    /**
+     * Apply a journal to a grid restored from the checkpoint it follows; stops at the
+     * first incomplete or corrupt frame. Returns the number of ticks applied.
+     */
+    public static int replay(Path file, Grid grid) throws IOException {
+        byte[] data = java.nio.file.Files.readAllBytes(file);
+        ByteBuffer b = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if (data.length < HEADER_BYTES
+                || !MAGIC.equals(new String(data, 0, MAGIC.length(), StandardCharsets.US_ASCII))) {
+            throw new IOException("Not a delta journal: " + file);
+        }
+        b.position(MAGIC.length());
+        long checkpointDay = b.getLong();
+        if (checkpointDay != grid.getDay()) {
+            throw new IOException("Journal follows day " + checkpointDay + ", grid is at day " + grid.getDay());
+        }
+        CRC32 crc = new CRC32();
+        int ticks = 0;
+        while (b.remaining() >= 8) {
+            int length = b.getInt();
+            int sum = b.getInt();
+            if (length < 0 || length > b.remaining()) break;
+            crc.reset();
+            crc.update(data, b.position(), length);
+            if ((int) crc.getValue() != sum) break;
+            ByteBuffer payload = b.slice(b.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+            b.position(b.position() + length);
+            apply(payload, grid);
+            ticks++;
+        }
+        return ticks;
+    }
+
+    /** Apply one `Recorder.record()` payload to a grid holding the state it was recorded against. */
+    public static void apply(byte[] payload, Grid grid) {
+        apply(ByteBuffer.wrap(payload), grid);
+    }
+
+    private static void apply(ByteBuffer p, Grid grid) {
+        long day = varLong(p);
+        for (int i = varInt(p); i > 0; i--) grid.restoreRemoval(varInt(p));
+        grid.restoreAging();
+        for (int i = varInt(p); i > 0; i--) {
+            int oid = varInt(p);
+            int flags = p.get();
+            int x = 0, y = 0, e = 0, a = 0;
+            if ((flags & MOVED) != 0) {
+                x = zigzag(p);
+                y = zigzag(p);
+            }
+            if ((flags & ENERGY) != 0) e = zigzag(p);
+            if ((flags & AGE) != 0) a = zigzag(p);
+            grid.restoreState(oid, flags, x, y, e, a);
+        }
+        for (int i = varInt(p); i > 0; i--) {
+            int oid = varInt(p);
+            int t = p.get();
+            int x = zigzag(p), y = zigzag(p), e = zigzag(p), a = zigzag(p);
+            if (t == PopulationStore.TYPE_PLANT) {
+                grid.restoreOrganism(t, oid, x, y, e, a, 0, 0, 0, 0, 1.0);
+            } else {
+                int move = zigzag(p), gain = zigzag(p), threshold = zigzag(p), metabolism = zigzag(p);
+                double absorption = Double.longBitsToDouble(varLong(p));
+                grid.restoreOrganism(t, oid, x, y, e, a, move, gain, threshold, metabolism, absorption);
+            }
+        }
+        grid.setDay(day);
+    }
+
+    private static int varInt(ByteBuffer p) {
+        return (int) varLong(p);
+    }
+
+    private static long varLong(ByteBuffer p) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = p.get();
+            v |= (long) (b & 0x7f) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    private static int zigzag(ByteBuffer p) {
+        int v = varInt(p);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** Growable byte array with varint writers. */
+    private static final class Bytes {
+        private byte[] data = new byte[256];
+        private int size;
+
+        void clear() { size = 0; }
+
+        void put(int b) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = (byte) b;
+        }
+
+        void varInt(int v) {
+            varLong(v & 0xffffffffL);
+        }
+
+        void varLong(long v) {
+            while ((v & ~0x7fL) != 0) {
+                put((int) (v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            put((int) v);
+        }
+
+        void zigzag(int v) {
+            varInt((v << 1) ^ (v >> 31));
+        }
+
+        void append(Bytes other) {
+            if (size + other.size > data.length) data = Arrays.copyOf(data, Math.max(size + other.size, data.length * 2));
+            System.arraycopy(other.data, 0, data, size, other.size);
+            size += other.size;
+        }
+
+        byte[] toArray() { return Arrays.copyOf(data, size); }
+    }
+}
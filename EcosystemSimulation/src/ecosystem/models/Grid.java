@@ -5,41 +5,121 @@ package ecosystem.models;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 import ecosystem.Settings;
 
-public class Grid {
+public final class Grid {
     public interface GridListener {
         default void organismAdded(Organism o) {}
         default void organismRemoved(Organism o) {}
         default void organismUpdated(Organism o) {}
+        /** Return false to skip the per-organism callbacks above and rely on changesCommitted only. */
+        default boolean wantsOrganismEvents() { return true; }
+        /**
+         * Return false if changesCommitted only needs removed ids and changed cells; when no
+         * listener wants them, getAdded()/getUpdated() stay empty and no snapshots are built.
+         */
+        default boolean wantsSnapshots() { return true; }
+        /**
+         * One coalesced change set per simulated day, delivered at the end of stepAll();
+         * adds/removes made outside stepAll() are delivered right away.
+         */
+        default void changesCommitted(GridChangeSet changes) {}
     }
     private final java.util.List<GridListener> listeners = new java.util.ArrayList<>();
+    // Subset of listeners that want per-organism callbacks (views are only materialized for them)
+    private final java.util.List<GridListener> organismListeners = new java.util.ArrayList<>();
+    // Subset of listeners that want snapshots; without them the ids of updated organisms are not recorded
+    private final java.util.List<GridListener> snapshotListeners = new java.util.ArrayList<>();
+    // Changes of the day in progress, coalesced until stepAll() commits them
+    private final GridChangeSet.Builder pendingChanges = new GridChangeSet.Builder();
+    private boolean stepping;
+    // Births, deaths, kills and end-of-day totals of the last stepAll(), counted as they happen
+    final DayTally tally = new DayTally();
+    // Live population and energy per PopulationStore.TYPE_*: kept up to date by every add and
+    // remove outside a day, and set from the day's sweep (which sees every survivor) after stepAll()
+    private final int[] liveCount = new int[DayTally.TYPES];
+    private final long[] liveEnergy = new long[DayTally.TYPES];
+    // Cells plants can spread into (Settings.frontierGrowth); null when plants roll their own growth
+    private PlantFrontier frontier;
+    // Plants as per-cell energy and age (Settings.plantField, sequential object engine only);
+    // null when plants are Plant objects like the animals
+    private PlantField plantField;
+    // Phase timings of stepAll(); null (the default) skips the clock reads
+    private PhaseStats phaseStats;
+    // Next organism id; each world counts its own, so a seed gives the same ids whatever else runs
+    private int nextId = 1;
 
-    public void addListener(GridListener l) { if (l != null) listeners.add(l); }
-    public void removeListener(GridListener l) { listeners.remove(l); }
+    public void addListener(GridListener l) {
+        if (l == null) return;
+        listeners.add(l);
+        if (l.wantsOrganismEvents()) organismListeners.add(l);
+        if (l.wantsSnapshots()) snapshotListeners.add(l);
+    }
+    public void removeListener(GridListener l) {
+        listeners.remove(l);
+        organismListeners.remove(l);
+        snapshotListeners.remove(l);
+    }
         // Trả về sinh vật đầu tiên tại vị trí (x, y), hoặc null nếu không có
     public Organism getOrganismAt(int x, int y) {
-        for (Organism o : organisms) {
-            if (o.getX() == x && o.getY() == y) return o;
+        if (!inBounds(x, y)) return null;
+        if (pendingWorld != null) materialize();
+        if (store != null) {
+            int slot = store.slotAt(x, y);
+            return slot < 0 ? null : store.view(slot);
         }
-        return null;
+        Organism head = cellHead(x, y);
+        if (head == null && plantField != null) return plantField.view(x, y);
+        return head;
     }
     private int width;
     private int height;
     private List<Organism> organisms;
-    // map for fast id -> organism lookup
-    private java.util.Map<Integer, Organism> idIndex;
+    // Removed organisms still in `organisms` (their `grid` is cleared): dropped in one pass by
+    // the day's sweep, or by compact() before anyone else walks the list
+    private int tombstones;
+    // Per-cell occupancy index: head of a chain linked through Organism.nextInCell, per 64x64
+    // chunk (Chunks.offset); a chunk is allocated when something first stands in it
+    private final Organism[][] cells;
+    // id -> organism lookup, updated on every birth and death
+    private final OrganismIndex idIndex;
     private int plantEnergy;
     private double plantGrowRate;
-    // Logical terrain map for each cell (water/sand/grass/rock)
-    private int[][] terrain;
-    // terrain type constants (shared with EnvironmentGenerator)
+    // Terrain code of each cell (water/sand/grass/rock) keyed by y*width+x, or null (all grass).
+    // Never modified once installed, so a different array means the terrain changed
+    private byte[] terrain;
+    // One bit per cell: cells animals can walk on and cells plants can grow on
+    private ChunkedBits walkable;
+    private ChunkedBits habitable;
+    // 64x64-cell chunks of the per-cell storage (cell index, masks, plant field)
+    private final Chunks chunks;
+    // terrain type constants (shared with TerrainGenerator)
     public static final int TERRAIN_WATER = 0;
     public static final int TERRAIN_SAND  = 1;
     public static final int TERRAIN_GRASS = 2;
     public static final int TERRAIN_ROCK  = 3;
-    private static final Random RNG = new Random();
+    // Seeded random streams; `rng` is re-derived for every sequential day, `setupRng` serves placement
+    private final RandomStreams streams;
+    private SplittableRandom rng;
+    private final SplittableRandom setupRng;
+    // Simulation day used to key random streams (kept in step with SimulationEngine)
+    private long day = 1;
+    // Non-null when Settings selects the parallel (fork-join) engine
+    private ParallelStepper parallelStepper;
+    // Non-null when Settings selects the struct-of-arrays population; `organisms`,
+    // `cells` and `idIndex` then stay empty and Organism objects are views only
+    private PopulationStore store;
+    private ColumnarStepper columnarStepper;
+    private List<Organism> storeViews;
+    // Reusable per-day buffers of the sequential engine, so moving allocates nothing per animal
+    private final List<Organism> daySnapshot = new ArrayList<>();
+    private final List<Animal> dayAnimals = new ArrayList<>();
+    private int[] moveTargets = new int[0];
+    // Save file whose organisms have not been loaded yet (see WorldFile.Mapped); null once materialized
+    private WorldFile.Mapped pendingWorld;
+    // Set while organisms are restored in bulk: no change notifications
+    private boolean restoring;
 
     public Grid() {
         this(new ecosystem.Settings());
@@ -50,9 +130,123 @@ public class Grid {
         this.width = s.getGridWidth();
         this.height = s.getGridHeight();
         this.organisms = new ArrayList<>();
-        this.idIndex = new java.util.HashMap<>();
+        // flat cell indexes (y*width+x) are ints throughout: change sets, snapshots, field plant ids
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid too large: " + width + "x" + height + " cells");
+        }
+        this.chunks = new Chunks(width, height);
+        this.cells = new Organism[chunks.count()][];
+        this.idIndex = new OrganismIndex(1024);
         this.plantEnergy = s.getPlantEnergy();
         this.plantGrowRate = s.getPlantGrowRate();
+        setTerrainCells(null);
+        this.streams = new RandomStreams(s.getSeed());
+        this.setupRng = streams.stream(0, RandomStreams.LANE_SETUP);
+        this.rng = streams.stream(day, RandomStreams.LANE_SEQUENTIAL);
+        if (s.isColumnarStore()) {
+            this.store = new PopulationStore(width, height, 1024, s.isOffHeapStore());
+            this.columnarStepper = new ColumnarStepper(this, store);
+        } else if (s.isParallelEngine()) {
+            this.parallelStepper = new ParallelStepper(this, s.getEngineThreads());
+        } else if (s.isPlantField()) {
+            this.plantField = new PlantField(chunks);
+        }
+        if (s.isFrontierGrowth()) {
+            this.frontier = new PlantFrontier(this);
+            if (store != null) store.frontier = frontier;
+        }
+    }
+
+    /** Struct-of-arrays population, or null when organisms are stored as objects. */
+    public PopulationStore getPopulationStore() {
+        materialize();
+        return store;
+    }
+
+    /**
+     * Populate this grid from a mapped save file lazily: until organisms are first
+     * needed (normally the first tick), readers such as `WorldSnapshot` read the file.
+     */
+    void setPendingWorld(WorldFile.Mapped world) {
+        this.pendingWorld = world;
+    }
+
+    /** Mapped save file still backing the population, or null. */
+    WorldFile.Mapped getPendingWorld() { return pendingWorld; }
+
+    /** Turn a pending mapped world into organisms, without change notifications (they are not news). */
+    private void materialize() {
+        WorldFile.Mapped world = pendingWorld;
+        if (world == null) return;
+        pendingWorld = null;
+        restoring = true;
+        try {
+            world.restoreInto(this);
+        } finally {
+            restoring = false;
+            world.close();
+        }
+    }
+
+    public RandomStreams getRandomStreams() { return streams; }
+
+    /** Random stream of the day being stepped by the sequential engine. */
+    public java.util.random.RandomGenerator random() { return rng; }
+
+    public long getDay() { return day; }
+
+    /**
+     * Time the phases of every following stepAll() into `stats`, or stop timing with null.
+     * Call it between days, from the thread that steps the grid or while that thread is stopped.
+     */
+    public void setPhaseStats(PhaseStats stats) { this.phaseStats = stats; }
+    public PhaseStats getPhaseStats() { return phaseStats; }
+
+    /** Start of a timed phase: the clock when instrumented, 0 otherwise. */
+    long phaseStart() {
+        return phaseStats == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Add the time since `start` to a phase when instrumented; returns the clock as the next start.
+     * A start of 0 (the phase began before timing was on) adds nothing.
+     */
+    long phaseEnd(int phase, long start) {
+        PhaseStats stats = phaseStats;
+        if (stats == null) return 0;
+        long now = System.nanoTime();
+        if (start != 0) stats.add(phase, now - start);
+        return now;
+    }
+
+    void moveConflict() {
+        if (phaseStats != null) phaseStats.moveConflict();
+    }
+
+    void failedReproductions(int n) {
+        if (phaseStats != null) phaseStats.failedReproductions(n);
+    }
+
+    /** Per-species tally of the last stepped day (valid until the next stepAll()). */
+    public DayTally getDayTally() { return tally; }
+
+    public void setDay(long day) {
+        this.day = day;
+        this.rng = streams.stream(day, RandomStreams.LANE_SEQUENTIAL);
+    }
+
+    /** True if stepAll() runs on the fork-join engine. */
+    public boolean isParallel() { return parallelStepper != null; }
+
+    /**
+     * Release engine resources (worker threads, an off-heap store's native memory). The grid
+     * must not be used afterwards.
+     */
+    public void shutdown() {
+        if (parallelStepper != null) parallelStepper.shutdown();
+        if (store != null) store.close();
+        // a mapped save that was never stepped: release the file
+        if (pendingWorld != null) pendingWorld.close();
     }
 
     public int getWidth() { return width; }
@@ -60,82 +254,544 @@ public class Grid {
     public int getPlantEnergy() { return plantEnergy; }
     public double getPlantGrowRate() { return plantGrowRate; }
 
-    /** Install or replace the terrain map. Dimensions must match grid size. */
+    /** Install or replace the terrain map, indexed [x][y]. Dimensions must match grid size. */
     public void setTerrain(int[][] terrain) {
         if (terrain == null) {
-            this.terrain = null;
+            setTerrainCells(null);
             return;
         }
         if (terrain.length != width || terrain[0].length != height) {
             // silently ignore mismatched terrain
             return;
         }
-        this.terrain = terrain;
+        byte[] cells = new byte[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) cells[y * width + x] = (byte) terrain[x][y];
+        }
+        setTerrainCells(cells);
     }
 
-    /** Expose the current terrain map (may be null). */
-    public int[][] getTerrain() {
+    /**
+     * Install or replace the terrain as one TERRAIN_* byte per cell (y*width+x). The grid keeps
+     * the array, which must not be modified afterwards; a mismatched length is ignored.
+     */
+    public void setTerrainCells(byte[] cells) {
+        if (cells != null && cells.length != width * height) return;
+        // without a map every cell is grass: all chunks share one constant
+        ChunkedBits walk = new ChunkedBits(chunks, cells == null);
+        ChunkedBits grow = new ChunkedBits(chunks, cells == null);
+        if (cells != null) {
+            for (int y = 0; y < height; y++) {
+                // one word per chunk row
+                for (int x0 = 0; x0 < width; x0 += Chunks.SIZE) {
+                    long w = 0, g = 0;
+                    for (int x = x0, end = Math.min(width, x0 + Chunks.SIZE); x < end; x++) {
+                        int t = cells[y * width + x];
+                        if (t == TERRAIN_GRASS || t == TERRAIN_ROCK) w |= 1L << x;
+                        if (t == TERRAIN_GRASS) g |= 1L << x;
+                    }
+                    walk.setWord(x0, y, w);
+                    grow.setWord(x0, y, g);
+                }
+            }
+            walk.compact();
+            grow.compact();
+        }
+        this.terrain = cells;
+        this.walkable = walk;
+        this.habitable = grow;
+    }
+
+    /** The current terrain, one byte per cell (y*width+x), or null. Do not modify it. */
+    public byte[] getTerrainCells() {
         return terrain;
     }
 
+    /** A copy of the current terrain indexed [x][y] (null if none); prefer getTerrainCells(). */
+    public int[][] getTerrain() {
+        if (terrain == null) return null;
+        int[][] t = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) t[x][y] = terrain[y * width + x];
+        }
+        return t;
+    }
+
     /** Return terrain code at (x,y), defaulting to GRASS if unknown. */
     public int getTerrainAt(int x, int y) {
         if (terrain == null || !inBounds(x, y)) return TERRAIN_GRASS;
-        return terrain[x][y];
+        return terrain[y * width + x];
     }
 
     /** True if animals can stand/move on this cell (grass or rock). */
     public boolean isWalkableTerrain(int x, int y) {
-        int t = getTerrainAt(x, y);
-        return t == TERRAIN_GRASS || t == TERRAIN_ROCK;
+        return !inBounds(x, y) || walkable.get(x, y);
     }
 
     /** True if plants can grow/survive on this cell (grass only). */
     public boolean isPlantHabitable(int x, int y) {
-        int t = getTerrainAt(x, y);
-        return t == TERRAIN_GRASS;
+        return !inBounds(x, y) || habitable.get(x, y);
     }
 
+    /** Mask lookups without the bounds check. */
+    boolean walkableAt(int x, int y) { return walkable.get(x, y); }
+    boolean habitableAt(int x, int y) { return habitable.get(x, y); }
+
     public boolean inBounds(int x, int y) {
         return x >= 0 && x < width && y >= 0 && y < height;
     }
 
+    // 8-connected neighbor offsets, in the same order as getNeighborPositions()
+    static final int[] NEIGHBOR_DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    static final int[] NEIGHBOR_DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    /** Flat cell index y*width+x (and its inverse) used by the engines' primitive buffers. */
+    int cellIndex(int x, int y) { return y * width + x; }
+    int cellX(int cell) { return cell % width; }
+    int cellY(int cell) { return cell / width; }
+
+    /** Bit i is set if neighbor i (NEIGHBOR_DX/DY order) is in bounds, empty and walkable. */
+    int openNeighborMask(int x, int y) {
+        int mask = 0;
+        for (int i = 0; i < NEIGHBOR_DX.length; i++) {
+            int nx = x + NEIGHBOR_DX[i], ny = y + NEIGHBOR_DY[i];
+            if (inBounds(nx, ny) && walkable.get(nx, ny) && isCellEmpty(nx, ny)) mask |= 1 << i;
+        }
+        return mask;
+    }
+
     public void addOrganism(Organism o) { 
+        materialize();
+        if (plantField != null && o instanceof Plant) {
+            addFieldPlant(o.getX(), o.getY(), o.getEnergy(), o.getAge());
+            return;
+        }
+        if (o.getId() == 0) o.assignId(nextId());
+        int type = DayTally.typeOf(o);
+        if (stepping) tally.born(type);
+        liveCount[type]++;
+        liveEnergy[type] += o.getEnergy();
+        if (store != null) {
+            store.add(o);
+            storeViews = null;
+            notifyAdded(o);
+            return;
+        }
+        // a removed organism added back must not also stay listed as a tombstone
+        if (!stepping) compact();
         organisms.add(o);
-        idIndex.put(o.getId(), o);
-        for (GridListener l : listeners) {
-            try { l.organismAdded(o); } catch (Exception ex) {}
+        idIndex.put(o);
+        o.grid = this;
+        indexCell(o, o.getX(), o.getY());
+        if (frontier != null) frontier.entered(o.getX(), o.getY(), type == PopulationStore.TYPE_PLANT);
+        notifyAdded(o);
+    }
+
+    /** Put a plant into the plant field; a cell that already has one (or is out of bounds) keeps it. */
+    private void addFieldPlant(int x, int y, int energy, int age) {
+        if (!inBounds(x, y) || !plantField.add(x, y, energy, age)) return;
+        if (stepping) tally.born(PopulationStore.TYPE_PLANT);
+        liveCount[PopulationStore.TYPE_PLANT]++;
+        liveEnergy[PopulationStore.TYPE_PLANT] += plantField.energyAt(x, y);
+        if (frontier != null) frontier.entered(x, y, true);
+        if (restoring || listeners.isEmpty()) return;
+        int c = y * width + x;
+        pendingChanges.added(PlantField.idOf(c));
+        pendingChanges.cellChanged(c);
+        if (!organismListeners.isEmpty()) {
+            Organism o = plantField.view(x, y);
+            for (GridListener l : organismListeners) {
+                try { l.organismAdded(o); } catch (Exception ex) {}
+            }
+        }
+        if (!stepping) commitChanges();
+    }
+
+    /** Take the plant out of a field cell (in bounds); false if there was none. */
+    private boolean removeFieldPlant(int x, int y) {
+        if (!plantField.has(x, y)) return false;
+        Organism o = organismListeners.isEmpty() ? null : plantField.view(x, y);
+        liveCount[PopulationStore.TYPE_PLANT]--;
+        liveEnergy[PopulationStore.TYPE_PLANT] -= plantField.remove(x, y);
+        if (frontier != null) frontier.left(x, y, true);
+        if (stepping) tally.eaten(PopulationStore.TYPE_PLANT);
+        if (listeners.isEmpty()) return true;
+        pendingChanges.removed(PlantField.idOf(y * width + x));
+        pendingChanges.cellChanged(y * width + x);
+        for (GridListener l : organismListeners) {
+            try { l.organismRemoved(o); } catch (Exception ex) {}
+        }
+        if (!stepping) commitChanges();
+        return true;
+    }
+
+    /** True if plants live in the per-cell plant field (Settings.plantField) instead of objects. */
+    public boolean hasPlantField() { return plantField != null; }
+
+    /** The plant field, or null when plants are objects. */
+    PlantField getPlantField() { return plantField; }
+
+    /**
+     * Eat the first field plant among the 8 neighbors of (x,y), in findNeighborOfType order;
+     * false if there is none. No view is built unless a listener wants organism events.
+     */
+    public boolean eatFieldPlantNear(int x, int y) {
+        if (plantField == null) return false;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (dx == 0 && dy == 0) continue;
+                int nx = x + dx, ny = y + dy;
+                if (inBounds(nx, ny) && removeFieldPlant(nx, ny)) return true;
+            }
+        }
+        return false;
+    }
+    /** Hand out an id for a new organism (also to the columnar store, which has no objects). */
+    int nextId() {
+        return nextId++;
+    }
+
+    /** Make sure ids handed out from now on are above `id` (organisms restored from a file keep theirs). */
+    void reserveIdsThrough(int id) {
+        if (id >= nextId) nextId = id + 1;
+    }
+
+    /**
+     * Re-create an organism with its saved id, age and individual parameters
+     * (PopulationStore.TYPE_* type; the parameters are ignored for plants).
+     */
+    void restoreOrganism(int type, int organismId, int ox, int oy, int energy, int age,
+                         int moveCost, int eatGain, int reproduceThreshold, int metabolismCost, double absorptionRate) {
+        reserveIdsThrough(organismId);
+        if (store != null) {
+            int slot = type == PopulationStore.TYPE_PLANT
+                ? store.add(type, organismId, ox, oy, energy, 0, 0, 0, 0, 1.0)
+                : store.add(type, organismId, ox, oy, energy, moveCost, eatGain, reproduceThreshold, metabolismCost, absorptionRate);
+            store.setAge(slot, age);
+            storeViews = null;
+            liveCount[type]++;
+            liveEnergy[type] += energy;
+            if (restoring) return;
+            fireAdded(store, slot);
+            if (!stepping && !listeners.isEmpty()) commitChanges();
+            return;
+        }
+        if (plantField != null && type == PopulationStore.TYPE_PLANT) {
+            addFieldPlant(ox, oy, energy, age);
+            return;
+        }
+        Organism o;
+        switch (type) {
+            case PopulationStore.TYPE_PLANT:
+                o = new Plant(organismId, ox, oy, energy, age);
+                break;
+            case PopulationStore.TYPE_HERBIVORE:
+                o = new Herbivore(organismId, ox, oy, energy, age, moveCost, eatGain, reproduceThreshold, metabolismCost, absorptionRate);
+                break;
+            case PopulationStore.TYPE_CARNIVORE:
+                o = new Carnivore(organismId, ox, oy, energy, age, moveCost, eatGain, reproduceThreshold, metabolismCost, absorptionRate);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown organism type " + type);
         }
+        if (!restoring) {
+            addOrganism(o);
+            return;
+        }
+        organisms.add(o);
+        idIndex.put(o);
+        o.grid = this;
+        indexCell(o, o.getX(), o.getY());
+        if (frontier != null) frontier.entered(ox, oy, type == PopulationStore.TYPE_PLANT);
+        liveCount[type]++;
+        liveEnergy[type] += energy;
+    }
+
+    // Journal replay (DeltaJournal.apply): deaths, the implicit aging of survivors, then state changes
+
+    void restoreRemoval(int organismId) {
+        Organism o = getOrganismById(organismId);
+        if (o != null) removeOrganism(o);
+    }
+
+    void restoreAging() {
+        materialize();
+        if (store != null) {
+            for (int s = 0; s < store.capacityUsed(); s++) {
+                if (store.isLive(s)) store.setAge(s, store.getAge(s) + 1);
+            }
+        } else {
+            compact();
+            for (Organism o : organisms) o.incrementAge();
+            if (plantField != null) plantField.ageAll();
+        }
+    }
+
+    /** Overwrite the fields named by the DeltaJournal flags (MOVED: x and y, ENERGY, AGE). */
+    void restoreState(int organismId, int flags, int ox, int oy, int energy, int age) {
+        materialize();
+        if (store != null) {
+            int slot = store.slotOf(organismId);
+            if (slot < 0) return;
+            if ((flags & DeltaJournal.MOVED) != 0) store.move(slot, ox, oy);
+            if ((flags & DeltaJournal.ENERGY) != 0) {
+                liveEnergy[store.getType(slot)] += energy - store.getEnergy(slot);
+                store.setEnergy(slot, energy);
+            }
+            if ((flags & DeltaJournal.AGE) != 0) store.setAge(slot, age);
+            storeViews = null;
+            return;
+        }
+        int plantCell = plantField == null ? -1 : plantField.cellOf(organismId);
+        if (plantCell >= 0) {
+            // field plants never move
+            int px = cellX(plantCell), py = cellY(plantCell);
+            if ((flags & DeltaJournal.ENERGY) != 0) liveEnergy[PopulationStore.TYPE_PLANT] += plantField.setEnergy(px, py, energy);
+            if ((flags & DeltaJournal.AGE) != 0) plantField.setAge(px, py, age);
+            return;
+        }
+        Organism o = idIndex.get(organismId);
+        if (o == null) return;
+        if ((flags & DeltaJournal.MOVED) != 0) o.setPosition(ox, oy);
+        if ((flags & DeltaJournal.ENERGY) != 0) {
+            liveEnergy[DayTally.typeOf(o)] += energy - o.getEnergy();
+            o.setEnergy(energy);
+        }
+        if ((flags & DeltaJournal.AGE) != 0) o.restoreAge(age);
     }
+
     public void removeOrganism(Organism o) { 
-        organisms.remove(o); 
+        materialize();
+        if (plantField != null && o instanceof Plant) {
+            if (inBounds(o.getX(), o.getY())) removeFieldPlant(o.getX(), o.getY());
+            return;
+        }
+        int type = DayTally.typeOf(o);
+        if (store != null) {
+            int slot = store.slotOf(o.getId());
+            if (slot >= 0) {
+                liveCount[type]--;
+                liveEnergy[type] -= store.getEnergy(slot);
+                store.remove(slot);
+            }
+            storeViews = null;
+        } else if (o.grid == this) {
+            liveCount[type]--;
+            liveEnergy[type] -= o.getEnergy();
+            unindexCell(o, o.getX(), o.getY());
+            o.grid = null;
+            if (frontier != null) frontier.left(o.getX(), o.getY(), type == PopulationStore.TYPE_PLANT);
+            tombstones++;
+        }
         idIndex.remove(o.getId());
-        for (GridListener l : listeners) {
+        // during a day only prey are removed one by one
+        if (stepping) tally.eaten(type);
+        notifyRemoved(o);
+    }
+
+    private void notifyAdded(Organism o) {
+        if (listeners.isEmpty()) return;
+        pendingChanges.added(o.getId());
+        pendingChanges.cellChanged(cellOf(o.getX(), o.getY()));
+        for (GridListener l : organismListeners) {
+            try { l.organismAdded(o); } catch (Exception ex) {}
+        }
+        if (!stepping) commitChanges();
+    }
+
+    private void notifyRemoved(Organism o) {
+        if (listeners.isEmpty()) return;
+        pendingChanges.removed(o.getId());
+        pendingChanges.cellChanged(cellOf(o.getX(), o.getY()));
+        for (GridListener l : organismListeners) {
             try { l.organismRemoved(o); } catch (Exception ex) {}
         }
+        if (!stepping) commitChanges();
+    }
+
+    private void notifyUpdated(Organism o) {
+        if (!snapshotListeners.isEmpty()) pendingChanges.updated(o.getId());
+        for (GridListener l : organismListeners) {
+            try { l.organismUpdated(o); } catch (Exception ex) {}
+        }
+    }
+
+    /** Deliver the coalesced pending changes (if any) to every listener as one change set. */
+    private void commitChanges() {
+        if (listeners.isEmpty() || pendingChanges.isEmpty()) return;
+        GridChangeSet changes = pendingChanges.build(this, day, !snapshotListeners.isEmpty());
+        for (GridListener l : listeners) {
+            try { l.changesCommitted(changes); } catch (Exception ex) {}
+        }
+    }
+
+    /** Called from Organism.setPosition so the cell index follows every move. */
+    void organismMoved(Organism o, int oldX, int oldY) {
+        unindexCell(o, oldX, oldY);
+        indexCell(o, o.getX(), o.getY());
+        if (frontier != null) {
+            frontier.left(oldX, oldY, o instanceof Plant);
+            frontier.entered(o.getX(), o.getY(), o instanceof Plant);
+        }
+        fireMoved(oldX, oldY, o.getX(), o.getY());
+    }
+
+    /** Record both cells of a move in the pending change set (no per-organism event). */
+    void fireMoved(int oldX, int oldY, int newX, int newY) {
+        if (listeners.isEmpty()) return;
+        pendingChanges.cellChanged(cellOf(oldX, oldY));
+        pendingChanges.cellChanged(cellOf(newX, newY));
+    }
+
+    /** Cell index of (x,y), or -1 when out of bounds. */
+    private int cellOf(int x, int y) {
+        return inBounds(x, y) ? y * width + x : -1;
+    }
+
+    /** Append the organism to the tail of its cell chain (keeps insertion order per cell). */
+    void indexCell(Organism o, int x, int y) {
+        o.nextInCell = null;
+        if (!inBounds(x, y)) return;
+        Organism[] chunk = cells[chunks.of(x, y)];
+        if (chunk == null) chunk = cells[chunks.of(x, y)] = new Organism[Chunks.CELLS];
+        int idx = Chunks.offset(x, y);
+        Organism cur = chunk[idx];
+        if (cur == null) { chunk[idx] = o; return; }
+        while (cur.nextInCell != null) cur = cur.nextInCell;
+        cur.nextInCell = o;
+    }
+
+    void unindexCell(Organism o, int x, int y) {
+        if (!inBounds(x, y)) return;
+        Organism[] chunk = cells[chunks.of(x, y)];
+        if (chunk == null) return;
+        int idx = Chunks.offset(x, y);
+        Organism prev = null, cur = chunk[idx];
+        while (cur != null && cur != o) { prev = cur; cur = cur.nextInCell; }
+        if (cur == null) return;
+        if (prev == null) chunk[idx] = cur.nextInCell;
+        else prev.nextInCell = cur.nextInCell;
+        o.nextInCell = null;
     }
 
     /** O(1) lookup by id (returns null if not present) */
     public Organism getOrganismById(int id) {
+        materialize();
+        if (store != null) {
+            int slot = store.slotOf(id);
+            return slot < 0 ? null : store.view(slot);
+        }
+        int plantCell = plantField == null ? -1 : plantField.cellOf(id);
+        if (plantCell >= 0) return plantField.view(cellX(plantCell), cellY(plantCell));
         return idIndex.get(id);
     }
 
+    /** Listener hooks for the columnar engine: views are only built for per-organism listeners. */
+    void fireAdded(PopulationStore src, int slot) {
+        if (listeners.isEmpty()) return;
+        pendingChanges.added(src.getId(slot));
+        pendingChanges.cellChanged(cellOf(src.getX(slot), src.getY(slot)));
+        if (organismListeners.isEmpty()) return;
+        Organism o = src.view(slot);
+        for (GridListener l : organismListeners) {
+            try { l.organismAdded(o); } catch (Exception ex) {}
+        }
+    }
+
+    void fireRemoved(PopulationStore src, int slot) {
+        if (listeners.isEmpty()) return;
+        pendingChanges.removed(src.getId(slot));
+        pendingChanges.cellChanged(cellOf(src.getX(slot), src.getY(slot)));
+        if (organismListeners.isEmpty()) return;
+        Organism o = src.view(slot);
+        for (GridListener l : organismListeners) {
+            try { l.organismRemoved(o); } catch (Exception ex) {}
+        }
+    }
+
+    void fireUpdatedAll(PopulationStore src) {
+        if (organismListeners.isEmpty() && snapshotListeners.isEmpty()) return;
+        for (int s = 0; s < src.capacityUsed(); s++) {
+            if (!src.isLive(s)) continue;
+            if (!snapshotListeners.isEmpty()) pendingChanges.updated(src.getId(s));
+            if (organismListeners.isEmpty()) continue;
+            Organism o = src.view(s);
+            for (GridListener l : organismListeners) {
+                try { l.organismUpdated(o); } catch (Exception ex) {}
+            }
+        }
+    }
+
     public List<Organism> organismsAt(int x, int y) {
+        materialize();
         List<Organism> ret = new ArrayList<>();
-        for (Organism o : organisms) {
-            if (o.getX() == x && o.getY() == y) ret.add(o);
+        if (store != null) {
+            for (int s = store.slotAt(x, y); s >= 0; s = store.nextInCell(s)) ret.add(store.view(s));
+            return ret;
         }
+        if (!inBounds(x, y)) return ret;
+        for (Organism o = cellHead(x, y); o != null; o = o.nextInCell) ret.add(o);
+        if (plantField != null && plantField.has(x, y)) ret.add(plantField.view(x, y));
         return ret;
     }
 
     /**
      * Return all organisms currently on the grid (live list reference may change after steps).
+     * With a plant field this is a read-only copy holding a view of every plant.
      */
     public List<Organism> getOrganisms() {
+        materialize();
+        if (store != null) {
+            // read-only views, rebuilt only after the population changed
+            if (storeViews == null) {
+                List<Organism> views = new ArrayList<>(store.size());
+                for (int s = 0; s < store.capacityUsed(); s++) {
+                    if (store.isLive(s)) views.add(store.view(s));
+                }
+                storeViews = java.util.Collections.unmodifiableList(views);
+            }
+            return storeViews;
+        }
+        compact();
+        if (plantField != null) {
+            // a copy with a view of every field plant: costs a Plant per plant, so engines avoid it
+            List<Organism> all = new ArrayList<>(organisms.size() + plantField.size());
+            all.addAll(organisms);
+            plantField.forEach((x, y) -> all.add(plantField.view(x, y)));
+            return java.util.Collections.unmodifiableList(all);
+        }
+        return organisms;
+    }
+
+    /** The organism objects only (no field plant views); the live list, like getOrganisms(). */
+    List<Organism> organismObjects() {
+        materialize();
+        compact();
         return organisms;
     }
 
-    public boolean isCellEmpty(int x, int y) { return organismsAt(x, y).isEmpty(); }
+    /** First organism object in cell (x,y), or null (also out of bounds); field plants are not objects. */
+    Organism objectAt(int x, int y) { return inBounds(x, y) ? cellHead(x, y) : null; }
+
+    /** Head of the organism chain of an in-bounds cell; cells of a chunk never used are empty. */
+    private Organism cellHead(int x, int y) {
+        Organism[] chunk = cells[chunks.of(x, y)];
+        return chunk == null ? null : chunk[Chunks.offset(x, y)];
+    }
+
+    /** Drop the tombstones of removed organisms from the population list. */
+    private void compact() {
+        if (tombstones == 0) return;
+        organisms.removeIf(o -> o.grid != this);
+        tombstones = 0;
+    }
+
+    public boolean isCellEmpty(int x, int y) {
+        if (pendingWorld != null) materialize();
+        if (store != null) return store.slotAt(x, y) < 0;
+        if (!inBounds(x, y)) return true;
+        return cellHead(x, y) == null && (plantField == null || !plantField.has(x, y));
+    }
 
     public List<int[]> getNeighborPositions(int x, int y) {
         List<int[]> poss = new ArrayList<>();
@@ -151,76 +807,223 @@ public class Grid {
 
     public List<int[]> getEmptyNeighbors(int x, int y) {
         List<int[]> empties = new ArrayList<>();
-        for (int[] p : getNeighborPositions(x, y)) {
-            if (isCellEmpty(p[0], p[1])) empties.add(p);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (dx == 0 && dy == 0) continue;
+                int nx = x + dx, ny = y + dy;
+                if (inBounds(nx, ny) && isCellEmpty(nx, ny)) empties.add(new int[]{nx, ny});
+            }
         }
         return empties;
     }
 
     public Organism findNeighborOfType(int x, int y, Class<?> cls) {
-        for (int[] p : getNeighborPositions(x, y)) {
-            List<Organism> objs = organismsAt(p[0], p[1]);
-            for (Organism o : objs) {
-                if (cls.isInstance(o)) return o;
+        materialize();
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (dx == 0 && dy == 0) continue;
+                int nx = x + dx, ny = y + dy;
+                if (!inBounds(nx, ny)) continue;
+                if (store != null) {
+                    for (int s = store.slotAt(nx, ny); s >= 0; s = store.nextInCell(s)) {
+                        Organism o = store.view(s);
+                        if (cls.isInstance(o)) return o;
+                    }
+                    continue;
+                }
+                for (Organism o = cellHead(nx, ny); o != null; o = o.nextInCell) {
+                    if (cls.isInstance(o)) return o;
+                }
+                if (plantField != null && plantField.has(nx, ny) && cls.isAssignableFrom(Plant.class)) {
+                    return plantField.view(nx, ny);
+                }
             }
         }
         return null;
     }
 
+    /**
+     * Remove a batch of organisms (left as tombstones for the day's sweep).
+     * Used by the parallel engine to commit prey claimed during the eating phase.
+     */
+    void removeOrganisms(java.util.Collection<Organism> batch) {
+        for (Organism o : batch) {
+            if (o.grid == this) {
+                unindexCell(o, o.getX(), o.getY());
+                o.grid = null;
+                if (frontier != null) frontier.left(o.getX(), o.getY(), o instanceof Plant);
+                tombstones++;
+            }
+            idIndex.remove(o.getId());
+            tally.eaten(DayTally.typeOf(o));
+            notifyRemoved(o);
+        }
+    }
+
     public void stepAll() {
-        // Snapshot organisms at the beginning of the day
-        List<Organism> snapshot = new ArrayList<>(organisms);
+        materialize();
+        stepping = true;
+        tally.begin(day + 1);
+        try {
+            if (columnarStepper != null) {
+                columnarStepper.stepAll(day);
+                storeViews = null;
+            } else if (parallelStepper != null) {
+                parallelStepper.stepAll(day);
+            } else {
+                stepSequential();
+            }
+        } finally {
+            stepping = false;
+        }
+        // energies moved all day without bookkeeping: the sweep's totals are the new live values
+        System.arraycopy(tally.count, 0, liveCount, 0, DayTally.TYPES);
+        System.arraycopy(tally.energy, 0, liveEnergy, 0, DayTally.TYPES);
+        long t = phaseStart();
+        commitChanges();
+        phaseEnd(PhaseStats.LISTENERS, t);
+        PhaseStats stats = phaseStats;
+        if (stats != null) stats.endDay();
+        setDay(day + 1);
+    }
+
+    private void stepSequential() {
+        long t = phaseStart();
+        beginDay();
+        t = phaseEnd(PhaseStats.DAY_START, t);
+        growPlants();
+        t = phaseEnd(PhaseStats.GROW, t);
+        moveAnimals();
+        t = phaseEnd(PhaseStats.MOVE, t);
+        eatPhase();
+        t = phaseEnd(PhaseStats.EAT, t);
+        reproducePhase();
+        phaseEnd(PhaseStats.REPRODUCE, t);
+        finishDay();
+    }
+
+    // The sequential phases are package-private so benchmarks can time them one by one;
+    // they must run in this order, once per day.
+
+    /** Phase 1: snapshot the start-of-day population, then age and basal metabolism. */
+    void beginDay() {
+        List<Organism> snapshot = daySnapshot;
+        snapshot.clear();
+        compact();
+        for (int i = 0; i < organisms.size(); i++) snapshot.add(organisms.get(i));
 
         // 1) Day start: age and basal metabolism
         for (Organism o : snapshot) {
             o.onDayStart();
         }
+        if (plantField != null) plantField.ageAll();
+    }
 
-        // 2) Plant growth (spread to 4-neighbor cells) based on starting positions
-        for (Organism o : snapshot) {
+    /** Phase 2: plant growth (spread to 4-neighbor cells) based on starting positions. */
+    void growPlants() {
+        if (frontier != null) {
+            growFrontier(rng);
+            return;
+        }
+        if (plantField != null) {
+            int n = plantField.roll(this, rng, plantGrowRate);
+            int[] sprouts = plantField.sprouts();
+            for (int i = 0; i < n; i++) addFieldPlant(cellX(sprouts[i]), cellY(sprouts[i]), plantEnergy, 0);
+            return;
+        }
+        for (Organism o : daySnapshot) {
             if (o instanceof Plant && o.isAlive()) {
                 ((Plant)o).dayUpdate(this);
             }
         }
+    }
+
+    /** True if phase 2 rolls growth on the plant frontier (see PlantFrontier). */
+    boolean hasPlantFrontier() { return frontier != null; }
+
+    /** Phase 2 on the plant frontier, for every engine: roll the sprouting cells, then plant them. */
+    void growFrontier(java.util.random.RandomGenerator r) {
+        int n = frontier.roll(r, plantGrowRate);
+        int[] cells = frontier.sprouts();
+        for (int i = 0; i < n; i++) {
+            int x = cellX(cells[i]), y = cellY(cells[i]);
+            if (store != null) {
+                int slot = store.add(PopulationStore.TYPE_PLANT, nextId(), x, y, plantEnergy, 0, 0, 0, 0, 1.0);
+                tally.born(PopulationStore.TYPE_PLANT);
+                fireAdded(store, slot);
+            } else if (plantField != null) {
+                addFieldPlant(x, y, plantEnergy, 0);
+            } else {
+                addOrganism(new Plant(x, y, plantEnergy));
+            }
+        }
+    }
+
+    interface CellVisitor {
+        void visit(int x, int y);
+    }
+
+    /** Visit the cell of every plant (once per plant). */
+    void forEachPlantCell(CellVisitor v) {
+        materialize();
+        if (store != null) {
+            for (int s = 0; s < store.capacityUsed(); s++) {
+                if (store.getType(s) == PopulationStore.TYPE_PLANT) v.visit(store.getX(s), store.getY(s));
+            }
+            return;
+        }
+        if (plantField != null) {
+            plantField.forEach(v);
+            return;
+        }
+        for (Organism o : organisms) {
+            if (o instanceof Plant && o.grid == this) v.visit(o.getX(), o.getY());
+        }
+    }
 
+    /** Phase 3: random movement of the animals still alive after metabolism. */
+    void moveAnimals() {
         // 3) Collect animals that are still alive after metabolism
-        List<Animal> animals = new ArrayList<>();
-        for (Organism o : snapshot) {
+        List<Animal> animals = dayAnimals;
+        animals.clear();
+        for (int i = 0; i < daySnapshot.size(); i++) {
+            Organism o = daySnapshot.get(i);
             if (o instanceof Animal && o.isAlive()) {
                 animals.add((Animal)o);
             }
         }
 
-        // 3a) Decide random movement intents (stay vs move) for each animal
-        java.util.Map<Animal, int[]> desiredMoves = new java.util.HashMap<>();
-        for (Animal a : animals) {
+        // 3a) Decide random movement intents (stay vs move) for each animal, as cell indexes
+        if (moveTargets.length < animals.size()) moveTargets = new int[Math.max(animals.size(), moveTargets.length * 2)];
+        for (int i = 0; i < animals.size(); i++) {
+            Animal a = animals.get(i);
+            moveTargets[i] = -1;
             if (!a.isAlive()) continue;
             // 50% chance to attempt a move
-            if (RNG.nextBoolean()) {
-                int[] target = a.chooseRandomMoveTarget(this);
-                if (target != null) {
-                    desiredMoves.put(a, target);
-                }
+            if (rng.nextBoolean()) {
+                moveTargets[i] = a.chooseMoveCell(this, rng);
             }
         }
 
-        // 3b) Apply movements simultaneously, resolving collisions
-        java.util.Set<String> reservedTargets = new java.util.HashSet<>();
-        for (Animal a : animals) {
-            int[] target = desiredMoves.get(a);
-            if (target == null || !a.isAlive()) continue;
-            int tx = target[0], ty = target[1];
-            String key = tx + "," + ty;
-            // cell must remain empty and not already taken by another mover
-            if (!isCellEmpty(tx, ty)) continue;
-            if (reservedTargets.contains(key)) continue;
+        // 3b) Apply movements simultaneously, resolving collisions. The cell index is the
+        // reservation map: a mover occupies its target at once, so later movers see it taken.
+        for (int i = 0; i < animals.size(); i++) {
+            Animal a = animals.get(i);
+            int target = moveTargets[i];
+            if (target < 0 || !a.isAlive()) continue;
+            int tx = cellX(target), ty = cellY(target);
+            if (!isCellEmpty(tx, ty)) {
+                moveConflict();
+                continue;
+            }
             a.setPosition(tx, ty);
             a.adjustEnergy(-a.getMoveCost());
-            reservedTargets.add(key);
         }
+    }
 
-        // 4) Eating phase after all movements
-        for (Animal a : animals) {
+    /** Phase 4: eating, after all movements. */
+    void eatPhase() {
+        for (Animal a : dayAnimals) {
             if (!a.isAlive()) continue;
             if (a instanceof Herbivore) {
                 ((Herbivore)a).eat(this);
@@ -228,31 +1031,60 @@ public class Grid {
                 ((Carnivore)a).eat(this);
             }
         }
+    }
 
-        // 5) Reproduction phase
-        for (Animal a : animals) {
-            if (!a.isAlive()) continue;
+    /** Phase 5: reproduction. */
+    void reproducePhase() {
+        boolean counting = phaseStats != null;
+        for (Animal a : dayAnimals) {
+            // prey eaten in phase 4 have left the grid and do not breed (as in the other engines)
+            if (!a.isAlive() || a.grid != this) continue;
+            int before = a.getEnergy();
             if (a instanceof Herbivore) {
                 ((Herbivore)a).tryReproduce(this);
             } else if (a instanceof Carnivore) {
                 ((Carnivore)a).tryReproduce(this);
             }
+            // eligible, but the energy was not split: no room or too little to give
+            if (counting && before >= a.getReproduceThreshold() && a.getEnergy() == before) failedReproductions(1);
         }
+    }
 
-        // 6) Remove dead organisms and rebuild id index
+    /** Phase 6, shared by both engines: sweep the dead, notify listeners. */
+    void finishDay() {
+        long t = phaseStart();
+        // 6) Remove dead organisms (also from the cell and id indexes);
+        //    the prey removed today are tombstones and already accounted for
         List<Organism> alive = new ArrayList<>();
-        for (Organism o : organisms) if (o.isAlive()) alive.add(o);
+        List<Organism> dead = listeners.isEmpty() ? null : new ArrayList<>();
+        for (Organism o : organisms) {
+            if (o.grid != this) continue;
+            if (o.isAlive()) {
+                alive.add(o);
+                tally.survived(DayTally.typeOf(o), o.getEnergy());
+            } else {
+                tally.died(DayTally.typeOf(o));
+                idIndex.remove(o.getId());
+                unindexCell(o, o.getX(), o.getY());
+                o.grid = null;
+                if (frontier != null) frontier.left(o.getX(), o.getY(), o instanceof Plant);
+                if (dead != null) dead.add(o);
+            }
+        }
 
         organisms = alive;
-        idIndex.clear();
-        for (Organism o : organisms) idIndex.put(o.getId(), o);
+        tombstones = 0;
+        // field plants have energy and never die of age; they are not reported as updated
+        if (plantField != null) tally.survived(PopulationStore.TYPE_PLANT, plantField.size(), plantField.totalEnergy());
+        t = phaseEnd(PhaseStats.SWEEP, t);
 
+        if (listeners.isEmpty()) return;
+        for (Organism o : dead) notifyRemoved(o);
         // Notify listeners that all surviving organisms have been updated this day
-        for (Organism o : organisms) {
-            for (GridListener l : listeners) {
-                try { l.organismUpdated(o); } catch (Exception ex) {}
-            }
+        if (!organismListeners.isEmpty() || !snapshotListeners.isEmpty()) {
+            for (Organism o : organisms) notifyUpdated(o);
         }
+        phaseEnd(PhaseStats.LISTENERS, t);
     }
 
     public void populateBasic(int initialPlants, int initialHerbivores, int initialCarnivores,
@@ -261,19 +1093,19 @@ public class Grid {
                               int herbivoreReproduceThreshold, int herbivoreMetabolismCost, double herbivoreAbsorptionRate,
                               int carnivoreReproduceThreshold, int carnivoreMetabolismCost, double carnivoreAbsorptionRate) {
         for (int i = 0; i < initialPlants; i++) {
-            int x = RNG.nextInt(width);
-            int y = RNG.nextInt(height);
+            int x = setupRng.nextInt(width);
+            int y = setupRng.nextInt(height);
             addOrganism(new Plant(x, y, plantEnergy));
         }
         for (int i = 0; i < initialHerbivores; i++) {
-            int x = RNG.nextInt(width);
-            int y = RNG.nextInt(height);
+            int x = setupRng.nextInt(width);
+            int y = setupRng.nextInt(height);
             addOrganism(new Herbivore(x, y, herbivoreEnergy, herbivoreMoveCost, herbivoreEatGain,
                 herbivoreReproduceThreshold, herbivoreMetabolismCost, herbivoreAbsorptionRate));
         }
         for (int i = 0; i < initialCarnivores; i++) {
-            int x = RNG.nextInt(width);
-            int y = RNG.nextInt(height);
+            int x = setupRng.nextInt(width);
+            int y = setupRng.nextInt(height);
             addOrganism(new Carnivore(x, y, carnivoreEnergy, carnivoreMoveCost, carnivoreEatGain,
                 carnivoreReproduceThreshold, carnivoreMetabolismCost, carnivoreAbsorptionRate));
         }
@@ -286,6 +1118,35 @@ public class Grid {
      */
     public void ensureOrganismsOnValidTerrain() {
         if (terrain == null) return;
+        materialize();
+        if (store != null) {
+            for (int s = 0; s < store.capacityUsed(); s++) {
+                if (!store.isLive(s)) continue;
+                boolean plant = store.getType(s) == PopulationStore.TYPE_PLANT;
+                int x = store.getX(s), y = store.getY(s);
+                if (plant ? !isPlantHabitable(x, y) : !isWalkableTerrain(x, y)) {
+                    int[] cell = findValidCell(plant);
+                    if (cell != null) store.move(s, cell[0], cell[1]);
+                }
+            }
+            storeViews = null;
+            return;
+        }
+        compact();
+        if (plantField != null) {
+            List<int[]> misplaced = new ArrayList<>();
+            plantField.forEach((x, y) -> {
+                if (!habitable.get(x, y)) misplaced.add(new int[]{x, y});
+            });
+            for (int[] p : misplaced) {
+                int[] cell = findValidCell(true);
+                if (cell == null) continue;
+                // a field plant's id names its cell, so a moved plant is a new one
+                int energy = plantField.energyAt(p[0], p[1]), age = plantField.ageAt(p[0], p[1]);
+                removeFieldPlant(p[0], p[1]);
+                addFieldPlant(cell[0], cell[1], energy, age);
+            }
+        }
         for (Organism o : organisms) {
             if (o instanceof Plant) {
                 if (!isPlantHabitable(o.getX(), o.getY())) {
@@ -305,21 +1166,27 @@ public class Grid {
      * the organism is left at its current position.
      */
     private void relocateOrganismToValidCell(Organism o, boolean plant) {
-        if (width <= 0 || height <= 0) return;
+        int[] cell = findValidCell(plant);
+        if (cell != null) o.setPosition(cell[0], cell[1]);
+        // If we cannot find any valid cell, keep the organism where it is.
+    }
+
+    /** Random empty cell that suits a plant (grass) or an animal (walkable), or null. */
+    private int[] findValidCell(boolean plant) {
+        if (width <= 0 || height <= 0) return null;
         int maxAttempts = Math.max(100, width * height);
         for (int attempts = 0; attempts < maxAttempts; attempts++) {
-            int x = RNG.nextInt(width);
-            int y = RNG.nextInt(height);
+            int x = setupRng.nextInt(width);
+            int y = setupRng.nextInt(height);
             if (!isCellEmpty(x, y)) continue;
             if (plant) {
                 if (!isPlantHabitable(x, y)) continue;
             } else {
                 if (!isWalkableTerrain(x, y)) continue;
             }
-            o.setPosition(x, y);
-            return;
+            return new int[]{x, y};
         }
-        // If we cannot find any valid cell, keep the organism where it is.
+        return null;
     }
 
     public List<String> asciiGrid() {
@@ -327,21 +1194,40 @@ public class Grid {
         for (int y = 0; y < height; y++) {
             StringBuilder sb = new StringBuilder();
             for (int x = 0; x < width; x++) {
-                List<Organism> objs = organismsAt(x, y);
-                if (objs.isEmpty()) sb.append('.');
-                else sb.append(objs.get(0).toString());
+                Organism o = getOrganismAt(x, y);
+                if (o == null) sb.append('.');
+                else sb.append(o.toString());
             }
             rows.add(sb.toString());
         }
         return rows;
     }
 
+    /** Type name -> count, absent types omitted (built from the live counters). */
     public java.util.Map<String, Integer> counts() {
+        materialize();
         java.util.Map<String, Integer> map = new java.util.HashMap<>();
-        for (Organism o : organisms) {
-            String name = o.getClass().getSimpleName();
-            map.put(name, map.getOrDefault(name, 0) + 1);
-        }
+        if (liveCount[PopulationStore.TYPE_PLANT] > 0) map.put("Plant", liveCount[PopulationStore.TYPE_PLANT]);
+        if (liveCount[PopulationStore.TYPE_HERBIVORE] > 0) map.put("Herbivore", liveCount[PopulationStore.TYPE_HERBIVORE]);
+        if (liveCount[PopulationStore.TYPE_CARNIVORE] > 0) map.put("Carnivore", liveCount[PopulationStore.TYPE_CARNIVORE]);
         return map;
     }
+
+    /** Number of organisms of a PopulationStore.TYPE_* type; O(1). */
+    public int count(int type) {
+        materialize();
+        return liveCount[type];
+    }
+
+    /** Total energy of the organisms of a PopulationStore.TYPE_* type; O(1). */
+    public long totalEnergy(int type) {
+        materialize();
+        return liveEnergy[type];
+    }
+
+    /** Copy the live counts into `out`, indexed by PopulationStore.TYPE_* (length at least 4). */
+    public void copyCounts(int[] out) {
+        materialize();
+        System.arraycopy(liveCount, 0, out, 0, DayTally.TYPES);
+    }
 }
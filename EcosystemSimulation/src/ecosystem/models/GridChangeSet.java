@@ -0,0 +1,129 @@
+/**
+ * Coalesced changes of one `Grid` commit (normally one simulated day): organisms
+ * added, ids removed, and the new state of organisms that were already present.
+ * An organism born and removed within the same commit does not appear at all;
+ * an organism added and then changed appears once, under `added`, with its final state.
+ * `getChangedCells()` lists the cells whose occupancy changed (adds, removals and both
+ * ends of every move), which is what a renderer needs to repaint.
+ * Immutable, so it can be handed to another thread (e.g. the FX thread) as is.
+ */
+package ecosystem.models;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class GridChangeSet {
+    private final long day;
+    private final List<OrganismSnapshot> added;
+    private final int[] removedIds;
+    private final List<OrganismSnapshot> updated;
+    private final int[] changedCells;
+
+    GridChangeSet(long day, List<OrganismSnapshot> added, int[] removedIds, List<OrganismSnapshot> updated,
+                  int[] changedCells) {
+        this.day = day;
+        this.added = Collections.unmodifiableList(added);
+        this.removedIds = removedIds;
+        this.updated = Collections.unmodifiableList(updated);
+        this.changedCells = changedCells;
+    }
+
+    /** Day the changes belong to (the grid's day while they were made). */
+    public long getDay() { return day; }
+    /** Snapshots of organisms that were not on the grid before this commit, sorted by id. */
+    public List<OrganismSnapshot> getAdded() { return added; }
+    /** Ids of organisms present before this commit and gone after it (sorted, do not modify). */
+    public int[] getRemovedIds() { return removedIds; }
+    /** Snapshots of organisms present both before and after this commit, sorted by id. */
+    public List<OrganismSnapshot> getUpdated() { return updated; }
+    /** Cell indexes (y*width+x) whose occupancy changed, sorted and distinct (do not modify). */
+    public int[] getChangedCells() { return changedCells; }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removedIds.length == 0 && updated.isEmpty() && changedCells.length == 0;
+    }
+
+    /**
+     * Collects raw add/remove/update notifications and coalesces them into a change set.
+     * Only ids are recorded while the grid mutates; snapshots are taken once, at build time.
+     */
+    static final class Builder {
+        private static final int ADDED = 1, REMOVED = 2, UPDATED = 3;
+
+        // id -> ADDED / REMOVED / UPDATED, plus the ids in first-seen order
+        private final IntIntMap state = new IntIntMap(64, 0);
+        private int[] ids = new int[64];
+        private int count;
+        // changed cells: a bitmap for de-duplication plus the list of cells set in it
+        private long[] cellBits = new long[0];
+        private int[] cells = new int[64];
+        private int cellCount;
+
+        void added(int id) {
+            track(id, ADDED);
+        }
+
+        void removed(int id) {
+            int s = state.get(id);
+            // born and gone within the same commit: nobody needs to hear about it
+            if (s == ADDED) state.remove(id);
+            else track(id, REMOVED);
+        }
+
+        void updated(int id) {
+            if (state.get(id) == 0) track(id, UPDATED);
+        }
+
+        void cellChanged(int cell) {
+            if (cell < 0) return;
+            int word = cell >>> 6;
+            if (word >= cellBits.length) cellBits = Arrays.copyOf(cellBits, Math.max(word + 1, cellBits.length * 2));
+            long bit = 1L << cell;
+            if ((cellBits[word] & bit) != 0) return;
+            cellBits[word] |= bit;
+            if (cellCount == cells.length) cells = Arrays.copyOf(cells, cellCount * 2);
+            cells[cellCount++] = cell;
+        }
+
+        boolean isEmpty() { return state.size() == 0 && cellCount == 0; }
+
+        /** Resolve the recorded ids against the grid's current state (snapshots only if asked), then reset. */
+        GridChangeSet build(Grid grid, long day, boolean snapshots) {
+            int[] sorted = Arrays.copyOf(ids, count);
+            Arrays.sort(sorted);
+            List<OrganismSnapshot> added = new java.util.ArrayList<>();
+            List<OrganismSnapshot> updated = new java.util.ArrayList<>();
+            int[] removed = new int[count];
+            int removedCount = 0;
+            int prev = 0;
+            for (int id : sorted) {
+                if (id == prev) continue; // an id can be listed again after a cancelled add
+                prev = id;
+                int s = state.get(id);
+                if (s == REMOVED) {
+                    removed[removedCount++] = id;
+                } else if (snapshots && (s == ADDED || s == UPDATED)) {
+                    Organism o = grid.getOrganismById(id);
+                    if (o == null) continue;
+                    (s == ADDED ? added : updated).add(OrganismSnapshot.from(o));
+                }
+            }
+            int[] changedCells = Arrays.copyOf(cells, cellCount);
+            Arrays.sort(changedCells);
+            for (int i = 0; i < cellCount; i++) cellBits[cells[i] >>> 6] = 0;
+            state.clear();
+            count = 0;
+            cellCount = 0;
+            return new GridChangeSet(day, added, Arrays.copyOf(removed, removedCount), updated, changedCells);
+        }
+
+        private void track(int id, int s) {
+            if (state.get(id) == 0) {
+                if (count == ids.length) ids = Arrays.copyOf(ids, count * 2);
+                ids[count++] = id;
+            }
+            state.put(id, s);
+        }
+    }
+}
@@ -4,11 +4,9 @@
 package ecosystem.models;
 
 import java.util.List;
-import java.util.Random;
 
 public class Herbivore extends Animal {
     private int eatGain;
-    private static final Random RNG = new Random();
 
     public Herbivore(int x, int y, int energy, int moveCost, int eatGain,
                      int reproduceThreshold, int metabolismCost, double absorptionRate) {
@@ -16,6 +14,12 @@ public class Herbivore extends Animal {
         this.eatGain = eatGain;
     }
 
+    Herbivore(int id, int x, int y, int energy, int age, int moveCost, int eatGain,
+              int reproduceThreshold, int metabolismCost, double absorptionRate) {
+        super(id, x, y, energy, age, moveCost, reproduceThreshold, metabolismCost, absorptionRate);
+        this.eatGain = eatGain;
+    }
+
     @Override
     public void step(Grid grid) {
         // Fallback single-organism update (not used in new multi-phase engine):
@@ -25,12 +29,15 @@ public class Herbivore extends Animal {
 
     /** Eating phase: look for a neighboring plant and consume it. */
     public void eat(Grid grid) {
+        if (grid.hasPlantField()) {
+            // plants are a per-cell field: eat from it without building a Plant
+            if (grid.eatFieldPlantNear(getX(), getY())) this.adjustEnergy(mealEnergy());
+            return;
+        }
         Organism plant = grid.findNeighborOfType(getX(), getY(), Plant.class);
         if (plant != null) {
             grid.removeOrganism(plant);
-            int gained = (int)Math.round(eatGain * getAbsorptionRate());
-            if (gained <= 0 && eatGain > 0) gained = 1;
-            this.adjustEnergy(gained);
+            this.adjustEnergy(mealEnergy());
         }
     }
 
@@ -49,21 +56,24 @@ public class Herbivore extends Animal {
                 int childEnergy = originalEnergy / 4;      // con nhận 1/4 năng lượng ban đầu
                 if (childEnergy <= 0) return;
                 this.setEnergy(parentAfter);
-                int[] pos = walkable.get(RNG.nextInt(walkable.size()));
-                Herbivore child = new Herbivore(
-                    pos[0], pos[1],
-                    childEnergy,
-                    getMoveCost(),
-                    this.eatGain,
-                    getReproduceThreshold(),
-                    getMetabolismCost(),
-                    getAbsorptionRate()
-                );
-                grid.addOrganism(child);
+                int[] pos = walkable.get(grid.random().nextInt(walkable.size()));
+                grid.addOrganism(createOffspring(pos[0], pos[1], childEnergy));
             }
         }
     }
 
+    @Override
+    protected int getEatGain() { return eatGain; }
+
+    @Override
+    protected Class<? extends Organism> getPreyType() { return Plant.class; }
+
+    @Override
+    protected Animal createOffspring(int x, int y, int energy) {
+        return new Herbivore(x, y, energy, getMoveCost(), eatGain,
+            getReproduceThreshold(), getMetabolismCost(), getAbsorptionRate());
+    }
+
     @Override
     public String toString() {
         return "h";
@@ -0,0 +1,88 @@
+/**
+ * Minimal open-addressing int -> int hash map (linear probing, no boxing).
+ * Keys must not be 0 (0 marks an empty bucket); organism ids start at 1.
+ */
+package ecosystem.models;
+
+final class IntIntMap {
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private final int missing;
+
+    /** @param missing value returned by get() for absent keys */
+    IntIntMap(int initialCapacity, int missing) {
+        int cap = 16;
+        while (cap < initialCapacity * 2) cap <<= 1;
+        this.keys = new int[cap];
+        this.values = new int[cap];
+        this.missing = missing;
+    }
+
+    int size() { return size; }
+
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) return values[i];
+            if (k == 0) return missing;
+        }
+    }
+
+    void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) grow();
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) { values[i] = value; return; }
+            if (k == 0) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return;
+            }
+        }
+    }
+
+    void remove(int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == 0) return;
+            i = (i + 1) & mask;
+        }
+        // backward-shift deletion keeps probe chains intact without tombstones
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        size--;
+    }
+
+    void clear() {
+        java.util.Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys, oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -4,12 +4,9 @@
  */
 package ecosystem.models;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 public abstract class Organism {
-    private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
-
-    private final int id;
+    // 0 until a grid hands out the id (Grid.addOrganism); ids are counted per grid
+    private int id;
 
     public int getId() { return id; }
 
@@ -37,20 +34,42 @@ public abstract class Organism {
     private int energy;
     private int age;
 
+    // Owning grid and next organism in the same cell (maintained by Grid's cell index)
+    Grid grid;
+    Organism nextInCell;
+
     // Protected helpers for subclasses to modify state safely
-    protected void setPosition(int nx, int ny) { this.x = nx; this.y = ny; }
+    protected void setPosition(int nx, int ny) {
+        int ox = this.x, oy = this.y;
+        this.x = nx;
+        this.y = ny;
+        if (grid != null) grid.organismMoved(this, ox, oy);
+    }
     protected void adjustEnergy(int delta) { this.energy += delta; }
     protected void setEnergy(int e) { this.energy = e; }
     protected void incrementAge() { this.age++; }
+    // journal replay only
+    void restoreAge(int a) { this.age = a; }
 
     public Organism(int x, int y, int energy) {
-        this.id = NEXT_ID.getAndIncrement();
         this.x = x;
         this.y = y;
         this.energy = energy;
         this.age = 0;
     }
 
+    /** Rebuild an organism with a known id and age (views over columnar state). */
+    Organism(int id, int x, int y, int energy, int age) {
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.energy = energy;
+        this.age = age;
+    }
+
+    // Grid.addOrganism only
+    void assignId(int id) { this.id = id; }
+
     public int getEnergy() {
         return energy;
     }
@@ -0,0 +1,54 @@
+/**
+ * Id -> organism index of the object population. Organisms sit in a slot table whose freed
+ * slots are reused, and an `IntIntMap` maps ids to slots, so nothing is boxed. Updated on
+ * births and deaths only; the population is never re-indexed as a whole.
+ */
+package ecosystem.models;
+
+final class OrganismIndex {
+    private static final int EMPTY = -1;
+
+    private final IntIntMap slotById;
+    private Organism[] bySlot;
+    // slots below `used` that are free, as a stack
+    private int[] free;
+    private int freeCount;
+    private int used;
+
+    OrganismIndex(int initialCapacity) {
+        int cap = Math.max(16, initialCapacity);
+        slotById = new IntIntMap(cap, EMPTY);
+        bySlot = new Organism[cap];
+        free = new int[cap];
+    }
+
+    int size() { return slotById.size(); }
+
+    Organism get(int id) {
+        int slot = slotById.get(id);
+        return slot == EMPTY ? null : bySlot[slot];
+    }
+
+    void put(Organism o) {
+        int slot = slotById.get(o.getId());
+        if (slot == EMPTY) {
+            if (freeCount > 0) {
+                slot = free[--freeCount];
+            } else {
+                if (used == bySlot.length) bySlot = java.util.Arrays.copyOf(bySlot, used * 2);
+                slot = used++;
+            }
+            slotById.put(o.getId(), slot);
+        }
+        bySlot[slot] = o;
+    }
+
+    void remove(int id) {
+        int slot = slotById.get(id);
+        if (slot == EMPTY) return;
+        slotById.remove(id);
+        bySlot[slot] = null;
+        if (freeCount == free.length) free = java.util.Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = slot;
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * Fork-join implementation of `Grid.stepAll()`: the world is cut into fixed-height
+ * row stripes, per-organism work runs in parallel, and every cross-stripe conflict
+ * is resolved in stripe order so the outcome does not depend on the thread count.
+ */
+package ecosystem.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+final class ParallelStepper {
+    // Rows per stripe. Animals reach one row past their own stripe, so while eating or
+    // giving birth two stripes of the same parity never read or write the same cells.
+    static final int STRIPE_ROWS = 8;
+
+    private final Grid grid;
+    private final ForkJoinPool pool;
+    // Cells already promised to a newborn during the reproduction passes (reused every day)
+    private boolean[] pendingBirth;
+
+    /** A child to be created at commit time, once the parallel pass is over. */
+    private static final class Birth {
+        final Animal parent;
+        final int x, y, energy;
+
+        Birth(Animal parent, int x, int y, int energy) {
+            this.parent = parent;
+            this.x = x;
+            this.y = y;
+            this.energy = energy;
+        }
+    }
+
+    /** Work buffers of one stripe; only the task that owns the stripe writes to them. */
+    private static final class Stripe {
+        final SplittableRandom rng;
+        final List<Plant> plants = new ArrayList<>();
+        final List<int[]> sprouts = new ArrayList<>();
+        final List<Animal> movers = new ArrayList<>();
+        int[] targets;
+        final List<Animal> feeders = new ArrayList<>();
+        final List<Organism> eaten = new ArrayList<>();
+        final List<Birth> births = new ArrayList<>();
+        final int[] candidates = new int[8];
+        int failedReproductions;
+
+        Stripe(SplittableRandom rng) { this.rng = rng; }
+    }
+
+    ParallelStepper(Grid grid, int threads) {
+        this.grid = grid;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    void stepAll(long day) {
+        long t = grid.phaseStart();
+        List<Organism> snapshot = new ArrayList<>(grid.getOrganisms());
+        Stripe[] stripes = newStripes(day);
+
+        // 1) Day start: age and basal metabolism only touch the organism itself
+        run(() -> snapshot.parallelStream().forEach(Organism::onDayStart));
+        t = grid.phaseEnd(PhaseStats.DAY_START, t);
+
+        // 2) Plant growth: roll sprouts per stripe, then plant them in stripe order
+        if (grid.hasPlantFrontier()) {
+            grid.growFrontier(grid.random());
+        } else {
+            for (Organism o : snapshot) {
+                if (o instanceof Plant && o.isAlive()) stripes[stripeOf(o.getY())].plants.add((Plant) o);
+            }
+            forEachStripe(stripes, -1, s -> {
+                for (Plant p : s.plants) {
+                    for (int d = 0; d < Plant.SPREAD_DX.length; d++) {
+                        int nx = p.getX() + Plant.SPREAD_DX[d];
+                        int ny = p.getY() + Plant.SPREAD_DY[d];
+                        if (Plant.canGrowAt(grid, nx, ny) && s.rng.nextDouble() < grid.getPlantGrowRate()) {
+                            s.sprouts.add(new int[]{nx, ny});
+                        }
+                    }
+                }
+            });
+            for (Stripe s : stripes) {
+                for (int[] p : s.sprouts) {
+                    // an earlier sprout may already have taken the cell
+                    if (Plant.canGrowAt(grid, p[0], p[1])) grid.addOrganism(new Plant(p[0], p[1], grid.getPlantEnergy()));
+                }
+            }
+        }
+        t = grid.phaseEnd(PhaseStats.GROW, t);
+
+        // 3a) Movement intents, decided against the start-of-phase occupancy
+        for (Organism o : snapshot) {
+            if (o instanceof Animal && o.isAlive()) stripes[stripeOf(o.getY())].movers.add((Animal) o);
+        }
+        forEachStripe(stripes, -1, s -> {
+            s.targets = new int[s.movers.size()];
+            for (int i = 0; i < s.targets.length; i++) {
+                // 50% chance to attempt a move
+                s.targets[i] = s.rng.nextBoolean() ? s.movers.get(i).chooseMoveCell(grid, s.rng) : -1;
+            }
+        });
+
+        // 3b) Apply moves in stripe order; the cell index makes a claimed target non-empty
+        for (Stripe s : stripes) {
+            for (int i = 0; i < s.movers.size(); i++) {
+                Animal a = s.movers.get(i);
+                int target = s.targets[i];
+                if (target < 0 || !a.isAlive()) continue;
+                int tx = grid.cellX(target), ty = grid.cellY(target);
+                if (!grid.isCellEmpty(tx, ty)) {
+                    grid.moveConflict();
+                    continue;
+                }
+                a.setPosition(tx, ty);
+                a.adjustEnergy(-a.getMoveCost());
+            }
+        }
+        t = grid.phaseEnd(PhaseStats.MOVE, t);
+
+        // 4) Eating: even stripes in parallel, then odd stripes. Prey leave the cell
+        // index immediately so no one else can claim them; the list removal is batched.
+        for (Stripe s : stripes) {
+            for (Animal a : s.movers) stripes[stripeOf(a.getY())].feeders.add(a);
+        }
+        for (int parity = 0; parity < 2; parity++) {
+            forEachStripe(stripes, parity, s -> {
+                for (Animal a : s.feeders) {
+                    if (!a.isAlive()) continue;
+                    Organism prey = grid.findNeighborOfType(a.getX(), a.getY(), a.getPreyType());
+                    if (prey == null) continue;
+                    grid.unindexCell(prey, prey.getX(), prey.getY());
+                    s.eaten.add(prey);
+                    a.adjustEnergy(a.mealEnergy());
+                }
+            });
+        }
+        List<Organism> eaten = new ArrayList<>();
+        for (Stripe s : stripes) eaten.addAll(s.eaten);
+        grid.removeOrganisms(eaten);
+        t = grid.phaseEnd(PhaseStats.EAT, t);
+
+        // 5) Reproduction: same parity scheme; newborn cells are held in pendingBirth
+        int cellCount = grid.getWidth() * grid.getHeight();
+        if (pendingBirth == null || pendingBirth.length != cellCount) pendingBirth = new boolean[cellCount];
+        for (int parity = 0; parity < 2; parity++) {
+            forEachStripe(stripes, parity, s -> {
+                for (Animal a : s.feeders) {
+                    // eaten animals were removed from the grid in phase 4
+                    if (!a.isAlive() || a.grid != grid) continue;
+                    if (a.getEnergy() < a.getReproduceThreshold()) continue;
+                    int n = freeBirthCells(a.getX(), a.getY(), s.candidates);
+                    int originalEnergy = a.getEnergy();
+                    int childEnergy = originalEnergy / 4;
+                    if (n == 0 || childEnergy <= 0) {
+                        s.failedReproductions++;
+                        continue;
+                    }
+                    a.setEnergy(originalEnergy / 2);
+                    int cell = s.candidates[s.rng.nextInt(n)];
+                    pendingBirth[cell] = true;
+                    s.births.add(new Birth(a, cell % grid.getWidth(), cell / grid.getWidth(), childEnergy));
+                }
+            });
+        }
+        for (Stripe s : stripes) {
+            for (Birth b : s.births) {
+                pendingBirth[b.y * grid.getWidth() + b.x] = false;
+                grid.addOrganism(b.parent.createOffspring(b.x, b.y, b.energy));
+            }
+            grid.failedReproductions(s.failedReproductions);
+        }
+        grid.phaseEnd(PhaseStats.REPRODUCE, t);
+
+        // 6) Sweep the dead and notify listeners (shared with the sequential engine)
+        grid.finishDay();
+    }
+
+    /** Collect empty, walkable, unpromised neighbor cells (same scan order as Grid.getEmptyNeighbors). */
+    private int freeBirthCells(int x, int y, int[] out) {
+        int n = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (dx == 0 && dy == 0) continue;
+                int nx = x + dx, ny = y + dy;
+                if (!grid.inBounds(nx, ny) || !grid.isCellEmpty(nx, ny)) continue;
+                int cell = ny * grid.getWidth() + nx;
+                if (pendingBirth[cell] || !grid.walkableAt(nx, ny)) continue;
+                out[n++] = cell;
+            }
+        }
+        return n;
+    }
+
+    private Stripe[] newStripes(long day) {
+        int count = Math.max(1, (grid.getHeight() + STRIPE_ROWS - 1) / STRIPE_ROWS);
+        Stripe[] stripes = new Stripe[count];
+        // one stream per (day, stripe): independent of how stripes map to threads
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(grid.getRandomStreams().stream(day, RandomStreams.LANE_STRIPE + i));
+        }
+        return stripes;
+    }
+
+    private int stripeOf(int y) {
+        int s = y / STRIPE_ROWS;
+        int last = Math.max(1, (grid.getHeight() + STRIPE_ROWS - 1) / STRIPE_ROWS) - 1;
+        return Math.max(0, Math.min(last, s));
+    }
+
+    /** Run body on every stripe (parity -1) or only on even/odd stripes, in parallel. */
+    private void forEachStripe(Stripe[] stripes, int parity, Consumer<Stripe> body) {
+        run(() -> IntStream.range(0, stripes.length).parallel()
+            .filter(i -> parity < 0 || (i & 1) == parity)
+            .forEach(i -> body.accept(stripes[i])));
+    }
+
+    private void run(Runnable task) {
+        pool.submit(task).join();
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Optional timing of the phases of `Grid.stepAll()`: the engines add the nanoseconds spent
+ * in each phase while stepping, and each finished day goes into one log2 histogram per
+ * phase. Also counts move conflicts (target cell taken by an earlier mover) and failed
+ * reproductions (enough energy, but no free cell or too little to split).
+ *
+ * Installed with `Grid.setPhaseStats`; when none is installed the engines skip the clock
+ * reads entirely. Written on the tick thread, readable from any thread.
+ */
+package ecosystem.models;
+
+public final class PhaseStats {
+    public static final int DAY_START = 0;
+    public static final int GROW = 1;
+    public static final int MOVE = 2;
+    public static final int EAT = 3;
+    public static final int REPRODUCE = 4;
+    public static final int SWEEP = 5;
+    public static final int LISTENERS = 6;
+    public static final int PHASES = 7;
+    private static final String[] NAMES = {"day start", "grow", "move", "eat", "reproduce", "sweep", "listeners"};
+
+    // bucket b holds days whose phase took [2^(b-1), 2^b) ns; bucket 0 is 0 ns
+    private static final int BUCKETS = 64;
+
+    // tick thread: the day being stepped
+    private final long[] dayNanos = new long[PHASES];
+    private int dayConflicts;
+    private int dayFailedReproductions;
+
+    // guarded by this
+    private final long[][] histogram = new long[PHASES][BUCKETS];
+    private final long[] totalNanos = new long[PHASES];
+    private final long[] maxNanos = new long[PHASES];
+    private long days;
+    private long moveConflicts;
+    private long failedReproductions;
+
+    public static String phaseName(int phase) { return NAMES[phase]; }
+
+    void add(int phase, long nanos) { dayNanos[phase] += nanos; }
+
+    void moveConflict() { dayConflicts++; }
+
+    void failedReproductions(int n) { dayFailedReproductions += n; }
+
+    /** Fold the day just stepped into the histograms. */
+    synchronized void endDay() {
+        for (int p = 0; p < PHASES; p++) {
+            long ns = dayNanos[p];
+            histogram[p][64 - Long.numberOfLeadingZeros(ns)]++;
+            totalNanos[p] += ns;
+            maxNanos[p] = Math.max(maxNanos[p], ns);
+            dayNanos[p] = 0;
+        }
+        moveConflicts += dayConflicts;
+        failedReproductions += dayFailedReproductions;
+        dayConflicts = 0;
+        dayFailedReproductions = 0;
+        days++;
+    }
+
+    public synchronized long getDays() { return days; }
+    public synchronized long getMoveConflicts() { return moveConflicts; }
+    public synchronized long getFailedReproductions() { return failedReproductions; }
+    public synchronized long getTotalNanos(int phase) { return totalNanos[phase]; }
+    public synchronized long getMaxNanos(int phase) { return maxNanos[phase]; }
+
+    public synchronized double getMeanNanos(int phase) {
+        return days == 0 ? 0 : (double) totalNanos[phase] / days;
+    }
+
+    /** Upper bound of the histogram bucket holding the given percentile (0-100) of days. */
+    public synchronized long getPercentileNanos(int phase, double percentile) {
+        if (days == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(days * percentile / 100.0));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram[phase][b];
+            if (seen >= rank) return b == 0 ? 0 : Math.min(maxNanos[phase], (1L << b) - 1);
+        }
+        return maxNanos[phase];
+    }
+
+    public synchronized void reset() {
+        for (int p = 0; p < PHASES; p++) {
+            java.util.Arrays.fill(histogram[p], 0);
+            totalNanos[p] = 0;
+            maxNanos[p] = 0;
+        }
+        days = 0;
+        moveConflicts = 0;
+        failedReproductions = 0;
+    }
+}
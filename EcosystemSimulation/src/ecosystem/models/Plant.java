@@ -4,15 +4,20 @@
 package ecosystem.models;
 
 import java.util.List;
-import java.util.Random;
 
 public class Plant extends Organism {
-    private static final Random RNG = new Random();
+    // Orthogonal spread directions: right, left, down, up
+    static final int[] SPREAD_DX = {1, -1, 0, 0};
+    static final int[] SPREAD_DY = {0, 0, 1, -1};
 
     public Plant(int x, int y, int energy) {
         super(x, y, energy);
     }
 
+    Plant(int id, int x, int y, int energy, int age) {
+        super(id, x, y, energy, age);
+    }
+
     @Override
     public void step(Grid grid) {
         // Fallback to per-day growth behavior (used if stepAll() is called directly).
@@ -27,19 +32,23 @@ public class Plant extends Organism {
     public void dayUpdate(Grid grid) {
         int x = getX();
         int y = getY();
-        int[][] dirs = new int[][] { {1,0}, {-1,0}, {0,1}, {0,-1} };
-        for (int[] d : dirs) {
-            int nx = x + d[0];
-            int ny = y + d[1];
-            if (!grid.inBounds(nx, ny)) continue;
-            if (!grid.isCellEmpty(nx, ny)) continue; // occupied by any organism -> no growth
-            if (!grid.isPlantHabitable(nx, ny)) continue; // chỉ mọc trên vùng cỏ (grass)
-            if (RNG.nextDouble() < grid.getPlantGrowRate()) {
+        for (int d = 0; d < SPREAD_DX.length; d++) {
+            int nx = x + SPREAD_DX[d];
+            int ny = y + SPREAD_DY[d];
+            if (!canGrowAt(grid, nx, ny)) continue;
+            if (grid.random().nextDouble() < grid.getPlantGrowRate()) {
                 grid.addOrganism(new Plant(nx, ny, grid.getPlantEnergy()));
             }
         }
     }
 
+    /** True if a new plant could sprout at (x,y) right now. */
+    static boolean canGrowAt(Grid grid, int x, int y) {
+        if (!grid.inBounds(x, y)) return false;
+        if (!grid.isCellEmpty(x, y)) return false; // occupied by any organism -> no growth
+        return grid.isPlantHabitable(x, y); // chỉ mọc trên vùng cỏ (grass)
+    }
+
     @Override
     public String toString() {
         return "P";
@@ -0,0 +1,202 @@
+/**
+ * Plants as a per-cell field (Settings.plantField): the energy and age of the plant in each
+ * cell, no objects. Plants never move, so a cell is all a plant needs; at most one plant per
+ * cell. Growth is a kernel over the whole field: an empty grass cell with k plant neighbors
+ * sprouts with probability 1 - (1 - p)^k, the same odds as one roll per neighboring plant.
+ *
+ * The field is stored per 64x64 chunk, allocated with its first plant. Each chunk counts its
+ * plants, and the daily passes skip chunks without plants (growth also visits the chunks next
+ * to one), so an empty region costs nothing per day.
+ *
+ * A field plant has no id of its own; `Organism` views are built on demand and carry
+ * `idOf(cell)`, a negative id that names the cell.
+ */
+package ecosystem.models;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+final class PlantField {
+    private final Chunks chunks;
+    private final int width;
+    private final int height;
+    // per chunk, null until its first plant: energy of the plant at each Chunks.offset, 0 if none
+    private final short[][] energy;
+    // its age in days, saturating
+    private final short[][] age;
+    // plants per chunk: chunks at 0 are inactive
+    private final int[] plants;
+    private int count;
+    private long totalEnergy;
+    private int[] sprouts = new int[64];
+
+    PlantField(Chunks chunks) {
+        this.chunks = chunks;
+        this.width = chunks.width;
+        this.height = chunks.height;
+        this.energy = new short[chunks.count()][];
+        this.age = new short[chunks.count()][];
+        this.plants = new int[chunks.count()];
+    }
+
+    /** Id of the view of the plant in `cell` (y*width+x; never 0, never an organism id). */
+    static int idOf(int cell) { return -(cell + 1); }
+
+    /** Cell (y*width+x) named by a field plant id, or -1 if `id` is not one. */
+    int cellOf(int id) {
+        return id < 0 && -(long) (id + 1) < (long) width * height ? -(id + 1) : -1;
+    }
+
+    int size() { return count; }
+
+    /** Per-chunk storage for callers that walk the field chunk by chunk (DeltaJournal); do not modify. */
+    Chunks chunks() { return chunks; }
+    int plantsIn(int chunk) { return plants[chunk]; }
+    short[] energyIn(int chunk) { return energy[chunk]; }
+    short[] ageIn(int chunk) { return age[chunk]; }
+    long totalEnergy() { return totalEnergy; }
+
+    /** Per-cell queries; (x,y) must be in bounds. */
+    boolean has(int x, int y) { return energyAt(x, y) != 0; }
+
+    int energyAt(int x, int y) {
+        short[] e = energy[chunks.of(x, y)];
+        return e == null ? 0 : e[Chunks.offset(x, y)];
+    }
+
+    int ageAt(int x, int y) {
+        short[] a = age[chunks.of(x, y)];
+        return a == null ? 0 : a[Chunks.offset(x, y)];
+    }
+
+    /**
+     * Put a plant in an empty cell; false if the cell already has one. Energy is kept in
+     * 1..Short.MAX_VALUE: a plant without energy would die in the day's sweep, so it never lands.
+     */
+    boolean add(int x, int y, int e, int a) {
+        if (e <= 0 || has(x, y)) return false;
+        int c = chunks.of(x, y), i = Chunks.offset(x, y);
+        if (energy[c] == null) {
+            energy[c] = new short[Chunks.CELLS];
+            age[c] = new short[Chunks.CELLS];
+        }
+        energy[c][i] = (short) Math.min(e, Short.MAX_VALUE);
+        age[c][i] = (short) Math.max(0, Math.min(a, Short.MAX_VALUE));
+        plants[c]++;
+        count++;
+        totalEnergy += energy[c][i];
+        return true;
+    }
+
+    /** Take the plant out of a cell; returns its energy, 0 if there was none. */
+    int remove(int x, int y) {
+        int e = energyAt(x, y);
+        if (e == 0) return 0;
+        int c = chunks.of(x, y), i = Chunks.offset(x, y);
+        energy[c][i] = 0;
+        age[c][i] = 0;
+        plants[c]--;
+        count--;
+        totalEnergy -= e;
+        return e;
+    }
+
+    /** Replace the energy of the plant in a cell (kept positive); returns the change. */
+    int setEnergy(int x, int y, int e) {
+        int old = energyAt(x, y);
+        if (old == 0) return 0;
+        short now = (short) Math.max(1, Math.min(e, Short.MAX_VALUE));
+        energy[chunks.of(x, y)][Chunks.offset(x, y)] = now;
+        totalEnergy += now - old;
+        return now - old;
+    }
+
+    void setAge(int x, int y, int a) {
+        if (has(x, y)) age[chunks.of(x, y)][Chunks.offset(x, y)] = (short) Math.max(0, Math.min(a, Short.MAX_VALUE));
+    }
+
+    /** Day start of every plant: one day older. */
+    void ageAll() {
+        for (int c = 0; c < plants.length; c++) {
+            if (plants[c] == 0) continue;
+            short[] e = energy[c], a = age[c];
+            for (int i = 0; i < Chunks.CELLS; i++) {
+                if (e[i] != 0 && a[i] != Short.MAX_VALUE) a[i]++;
+            }
+        }
+    }
+
+    /** Read-only view of the plant in a cell, or null. */
+    Plant view(int x, int y) {
+        int e = energyAt(x, y);
+        if (e == 0) return null;
+        return new Plant(idOf(y * width + x), x, y, e, ageAt(x, y));
+    }
+
+    /** Visit every plant's cell in row order (y, then x), skipping chunks without plants. */
+    void forEach(Grid.CellVisitor v) {
+        for (int cy = 0; cy < chunks.rows; cy++) {
+            for (int y = cy << Chunks.SHIFT; y < Math.min(height, (cy + 1) << Chunks.SHIFT); y++) {
+                for (int cx = 0; cx < chunks.cols; cx++) {
+                    int c = cy * chunks.cols + cx;
+                    if (plants[c] == 0) continue;
+                    short[] e = energy[c];
+                    int row = (y & Chunks.MASK) << Chunks.SHIFT;
+                    for (int x = cx << Chunks.SHIFT; x < Math.min(width, (cx + 1) << Chunks.SHIFT); x++) {
+                        if (e[row | (x & Chunks.MASK)] != 0) v.visit(x, y);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Roll the day's growth over the field and return the number of sprouting cells (y*width+x),
+     * which are in `sprouts()`. Only plants already standing spread: nothing is planted yet.
+     * Cells are rolled in row order; chunks with no plants in or orthogonally next to them
+     * cannot sprout and are skipped.
+     */
+    int roll(Grid grid, RandomGenerator rng, double rate) {
+        if (count == 0) return 0;
+        double[] odds = new double[Plant.SPREAD_DX.length + 1];
+        for (int k = 1; k < odds.length; k++) odds[k] = rate >= 1 ? 1 : 1 - Math.pow(1 - Math.max(0, rate), k);
+        boolean[] near = new boolean[chunks.cols];
+        int n = 0;
+        for (int cy = 0; cy < chunks.rows; cy++) {
+            boolean any = false;
+            for (int cx = 0; cx < chunks.cols; cx++) {
+                int c = cy * chunks.cols + cx;
+                near[cx] = plants[c] > 0
+                    || (cx > 0 && plants[c - 1] > 0) || (cx + 1 < chunks.cols && plants[c + 1] > 0)
+                    || (cy > 0 && plants[c - chunks.cols] > 0) || (cy + 1 < chunks.rows && plants[c + chunks.cols] > 0);
+                any |= near[cx];
+            }
+            if (!any) continue;
+            for (int y = cy << Chunks.SHIFT; y < Math.min(height, (cy + 1) << Chunks.SHIFT); y++) {
+                int ry = y & Chunks.MASK;
+                for (int cx = 0; cx < chunks.cols; cx++) {
+                    if (!near[cx]) continue;
+                    short[] e = energy[cy * chunks.cols + cx];
+                    for (int x = cx << Chunks.SHIFT; x < Math.min(width, (cx + 1) << Chunks.SHIFT); x++) {
+                        int rx = x & Chunks.MASK, i = ry << Chunks.SHIFT | rx;
+                        if ((e != null && e[i] != 0) || !grid.habitableAt(x, y)) continue;
+                        // neighbors inside the chunk are read directly, across its edge through has()
+                        int k = 0;
+                        if (rx < Chunks.MASK ? e != null && e[i + 1] != 0 : x + 1 < width && has(x + 1, y)) k++;
+                        if (rx > 0 ? e != null && e[i - 1] != 0 : x > 0 && has(x - 1, y)) k++;
+                        if (ry < Chunks.MASK ? e != null && e[i + Chunks.SIZE] != 0 : y + 1 < height && has(x, y + 1)) k++;
+                        if (ry > 0 ? e != null && e[i - Chunks.SIZE] != 0 : y > 0 && has(x, y - 1)) k++;
+                        if (k == 0 || odds[k] <= 0 || !grid.isCellEmpty(x, y)) continue;
+                        if (odds[k] >= 1 || rng.nextDouble() < odds[k]) {
+                            if (n == sprouts.length) sprouts = Arrays.copyOf(sprouts, n * 2);
+                            sprouts[n++] = y * width + x;
+                        }
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    int[] sprouts() { return sprouts; }
+}
@@ -0,0 +1,199 @@
+/**
+ * The cells plants can spread into: empty, grass-habitable cells with at least one plant
+ * orthogonally next to them, grouped by how many such plants they have. Kept up to date
+ * on every change of cell occupancy, so plant growth costs nothing for surrounded plants.
+ *
+ * Growth is rolled per cell instead of per plant. In the per-plant rule each neighboring
+ * plant gets one roll at the grow rate p, so a frontier cell with k plant neighbors sprouts
+ * with probability 1 - (1 - p)^k, independently of every other cell. Within each group
+ * the sprouting cells are found by geometric skips (the gaps between successes of a
+ * Bernoulli sequence), so a day costs O(sprouts) draws rather than one per candidate.
+ * A group is rolled in cell order, so the same draws pick the same cells whatever the
+ * history of the run (a world rebuilt from a save lists them from scratch). Cells leaving
+ * a group only leave a hole and new ones are appended; the next roll sorts the appended
+ * cells and merges them into the rest.
+ */
+package ecosystem.models;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+final class PlantFrontier {
+    private static final int REMOVED = -1;
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    // plants in the 4 orthogonal neighbors of each cell
+    private final int[] plantNeighbors;
+    // group (plant neighbor count) a cell is listed in, 0 if none, and its index in that group
+    private final int[] group;
+    private final int[] indexInGroup;
+    // groups[k]: frontier cells with k plant neighbors in groupSize[k] entries, live[k] of
+    // them cells and the rest REMOVED; the first sortedSize[k] entries are in cell order
+    private int[][] groups = new int[5][];
+    private int[] groupSize = new int[5];
+    private int[] live = new int[5];
+    private int[] sortedSize = new int[5];
+    private int[] merged = new int[64];
+    // terrain the frontier was built for; a different map means a rebuild
+    private byte[] builtFor;
+    private boolean built;
+    private int[] sprouts = new int[64];
+
+    PlantFrontier(Grid grid) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        int cells = Math.max(0, width) * Math.max(0, height);
+        this.plantNeighbors = new int[cells];
+        this.group = new int[cells];
+        this.indexInGroup = new int[cells];
+    }
+
+    /** Number of cells plants can currently spread into. */
+    int size() {
+        int n = 0;
+        for (int k = 1; k < live.length; k++) n += live[k];
+        return n;
+    }
+
+    /** Forget everything; the next growth phase rebuilds from the grid. */
+    void invalidate() {
+        built = false;
+    }
+
+    /** An organism now occupies (x,y). */
+    void entered(int x, int y, boolean plant) {
+        if (!built || !grid.inBounds(x, y)) return;
+        if (plant) neighborsChanged(x, y, 1);
+        refresh(y * width + x);
+    }
+
+    /** An organism no longer occupies (x,y). */
+    void left(int x, int y, boolean plant) {
+        if (!built || !grid.inBounds(x, y)) return;
+        if (plant) neighborsChanged(x, y, -1);
+        refresh(y * width + x);
+    }
+
+    /**
+     * Roll the day's growth and return the number of sprouting cells, which are in
+     * `sprouts()`. Nothing is planted yet: the caller adds the plants afterwards.
+     */
+    int roll(RandomGenerator rng, double rate) {
+        if (!built || builtFor != grid.getTerrainCells()) rebuild();
+        int n = 0;
+        for (int k = 1; k < groupSize.length; k++) {
+            int size = live[k];
+            if (size == 0) continue;
+            double q = rate >= 1 ? 1 : 1 - Math.pow(1 - Math.max(0, rate), k);
+            if (q <= 0) continue;
+            tidy(k);
+            int[] cells = groups[k];
+            if (q >= 1) {
+                for (int i = 0; i < size; i++) n = addSprout(n, cells[i]);
+                continue;
+            }
+            double logMiss = Math.log1p(-q);
+            // skip the failures before each success: floor(ln U / ln(1 - q)) with U in (0, 1]
+            double pos = -1;
+            while (true) {
+                pos += 1 + Math.floor(Math.log(1.0 - rng.nextDouble()) / logMiss);
+                if (pos >= size) break;
+                n = addSprout(n, cells[(int) pos]);
+            }
+        }
+        return n;
+    }
+
+    int[] sprouts() { return sprouts; }
+
+    /** Drop the holes of a group and bring it into cell order. */
+    private void tidy(int k) {
+        int size = groupSize[k], sorted = sortedSize[k];
+        if (size == live[k] && size == sorted) return;
+        int[] cells = groups[k];
+        Arrays.sort(cells, sorted, size);
+        if (merged.length < live[k]) merged = new int[cells.length];
+        int i = 0, j = sorted, n = 0;
+        while (true) {
+            while (i < sorted && cells[i] == REMOVED) i++;
+            while (j < size && cells[j] == REMOVED) j++;
+            int c;
+            if (i < sorted && (j == size || cells[i] < cells[j])) c = cells[i++];
+            else if (j < size) c = cells[j++];
+            else break;
+            indexInGroup[c] = n;
+            merged[n++] = c;
+        }
+        groups[k] = merged;
+        merged = cells;
+        groupSize[k] = sortedSize[k] = n;
+    }
+
+    private int addSprout(int n, int cell) {
+        if (n == sprouts.length) sprouts = Arrays.copyOf(sprouts, n * 2);
+        sprouts[n] = cell;
+        return n + 1;
+    }
+
+    /** Recount the plant neighbors of every cell and list the frontier from scratch. */
+    private void rebuild() {
+        Arrays.fill(plantNeighbors, 0);
+        Arrays.fill(group, 0);
+        Arrays.fill(groupSize, 0);
+        Arrays.fill(live, 0);
+        Arrays.fill(sortedSize, 0);
+        builtFor = grid.getTerrainCells();
+        built = true;
+        grid.forEachPlantCell((x, y) -> {
+            for (int d = 0; d < Plant.SPREAD_DX.length; d++) {
+                int nx = x + Plant.SPREAD_DX[d], ny = y + Plant.SPREAD_DY[d];
+                if (grid.inBounds(nx, ny)) plantNeighbors[ny * width + nx]++;
+            }
+        });
+        for (int c = 0; c < plantNeighbors.length; c++) {
+            if (plantNeighbors[c] > 0) refresh(c);
+        }
+    }
+
+    private void neighborsChanged(int x, int y, int delta) {
+        for (int d = 0; d < Plant.SPREAD_DX.length; d++) {
+            int nx = x + Plant.SPREAD_DX[d], ny = y + Plant.SPREAD_DY[d];
+            if (!grid.inBounds(nx, ny)) continue;
+            int c = ny * width + nx;
+            plantNeighbors[c] += delta;
+            refresh(c);
+        }
+    }
+
+    /** Move a cell to the group it belongs in now (0: not on the frontier). */
+    private void refresh(int c) {
+        int x = c % width, y = c / width;
+        int k = plantNeighbors[c] > 0 && grid.habitableAt(x, y) && grid.isCellEmpty(x, y) ? plantNeighbors[c] : 0;
+        int old = group[c];
+        if (k == old) return;
+        if (old > 0) {
+            groups[old][indexInGroup[c]] = REMOVED;
+            live[old]--;
+        }
+        group[c] = k;
+        if (k == 0) return;
+        if (k >= groups.length) {
+            groups = Arrays.copyOf(groups, k + 1);
+            groupSize = Arrays.copyOf(groupSize, k + 1);
+            live = Arrays.copyOf(live, k + 1);
+            sortedSize = Arrays.copyOf(sortedSize, k + 1);
+        }
+        if (groups[k] == null) groups[k] = new int[64];
+        else if (groupSize[k] == groups[k].length) {
+            // mostly holes: close them up rather than grow
+            if (live[k] < groupSize[k] / 2) tidy(k);
+            if (groupSize[k] == groups[k].length) groups[k] = Arrays.copyOf(groups[k], groupSize[k] * 2);
+        }
+        indexInGroup[c] = groupSize[k];
+        groups[k][groupSize[k]++] = c;
+        live[k]++;
+    }
+}
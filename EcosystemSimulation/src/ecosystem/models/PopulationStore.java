@@ -0,0 +1,238 @@
+/**
+ * Struct-of-arrays population: one primitive column per organism field, indexed by slot.
+ * Freed slots go on a free list and are reused; compact() squeezes the holes out.
+ * A per-cell chain (cell head / next in cell) gives O(1) occupancy queries, and an
+ * id -> slot map serves lookups by organism id without boxing.
+ * `Organism` objects are only materialized on demand as read-only views.
+ * Columns and occupancy chunks live in a `ColumnMemory`: arrays on the heap, or native
+ * memory (Settings.offHeapStore) that close() gives back.
+ */
+package ecosystem.models;
+
+import java.util.Arrays;
+
+import static ecosystem.models.ColumnMemory.*;
+
+public final class PopulationStore {
+    public static final int TYPE_NONE = 0;
+    public static final int TYPE_PLANT = 1;
+    public static final int TYPE_HERBIVORE = 2;
+    public static final int TYPE_CARNIVORE = 3;
+
+    private static final int EMPTY = NO_SLOT;
+
+    private final int width;
+    private final int height;
+
+    // Columns (one int per slot and field, a double for the absorption rate) and the first slot
+    // in each cell per 64x64 chunk; ColumnarStepper runs its phases on them through the accessors
+    private final ColumnMemory memory;
+    private final Chunks chunks;
+    private final IntIntMap slotById = new IntIntMap(64, EMPTY);
+    private int[] free = new int[16];
+    private int freeCount;
+    private int highWater; // slots [0, highWater) have been handed out at least once
+    private int live;
+    // Told about every change of cell occupancy when the grid grows plants on a frontier
+    PlantFrontier frontier;
+
+    PopulationStore(int width, int height, int initialCapacity, boolean offHeap) {
+        this.width = width;
+        this.height = height;
+        this.chunks = new Chunks(width, height);
+        this.memory = ColumnMemory.create(offHeap, chunks.count());
+        memory.resize(Math.max(16, initialCapacity));
+    }
+
+    /** True if the columns and occupancy live in native memory. */
+    public boolean isOffHeap() { return memory.isOffHeap(); }
+
+    /** Native memory held by an off-heap store, in bytes (0 on the heap). */
+    public long nativeBytes() { return memory.nativeBytes(); }
+
+    /** Give native memory back; the store must not be used afterwards. Nothing to do on the heap. */
+    void close() { memory.close(); }
+
+    /** Number of slots to scan (live and free); iterate [0, capacityUsed()) and skip TYPE_NONE. */
+    public int capacityUsed() { return highWater; }
+    public int size() { return live; }
+    public boolean isLive(int slot) { return getType(slot) != TYPE_NONE; }
+    public int getType(int slot) { return memory.get(TYPE, slot); }
+    public int getId(int slot) { return memory.get(ID, slot); }
+    public int getX(int slot) { return memory.get(X, slot); }
+    public int getY(int slot) { return memory.get(Y, slot); }
+    public int getEnergy(int slot) { return memory.get(ENERGY, slot); }
+    public int getAge(int slot) { return memory.get(AGE, slot); }
+    int getMoveCost(int slot) { return memory.get(MOVE_COST, slot); }
+    int getEatGain(int slot) { return memory.get(EAT_GAIN, slot); }
+    int getReproduceThreshold(int slot) { return memory.get(REPRODUCE_THRESHOLD, slot); }
+    int getMetabolismCost(int slot) { return memory.get(METABOLISM_COST, slot); }
+    double getAbsorptionRate(int slot) { return memory.getAbsorption(slot); }
+    void setEnergy(int slot, int e) { memory.set(ENERGY, slot, e); }
+    void setAge(int slot, int a) { memory.set(AGE, slot, a); }
+
+    /** Slot holding the given id, or -1. */
+    public int slotOf(int organismId) { return slotById.get(organismId); }
+
+    /** First slot in cell (x,y), or -1 (also for out-of-bounds cells). */
+    public int slotAt(int cx, int cy) {
+        if (cx < 0 || cx >= width || cy < 0 || cy >= height) return EMPTY;
+        return memory.head(chunks.of(cx, cy), Chunks.offset(cx, cy));
+    }
+
+    /** Next slot in the same cell after the given one, or -1. */
+    public int nextInCell(int slot) { return memory.get(NEXT_IN_CELL, slot); }
+
+    /** Copy an organism into a fresh slot (the object itself is not retained). */
+    int add(Organism o) {
+        int slot;
+        if (o instanceof Animal) {
+            Animal a = (Animal) o;
+            slot = add(a instanceof Carnivore ? TYPE_CARNIVORE : TYPE_HERBIVORE, a.getId(), a.getX(), a.getY(),
+                a.getEnergy(), a.getMoveCost(), a.getEatGain(), a.getReproduceThreshold(),
+                a.getMetabolismCost(), a.getAbsorptionRate());
+        } else {
+            slot = add(TYPE_PLANT, o.getId(), o.getX(), o.getY(), o.getEnergy(), 0, 0, 0, 0, 1.0);
+        }
+        setAge(slot, o.getAge());
+        return slot;
+    }
+
+    /** Add an organism described by primitive fields; returns its slot. Age starts at 0. */
+    int add(int t, int organismId, int px, int py, int e,
+            int move, int gain, int threshold, int metabolism, double absorption) {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (highWater == memory.capacity()) memory.resize(memory.capacity() * 2);
+            slot = highWater++;
+        }
+        memory.set(TYPE, slot, t);
+        memory.set(ID, slot, organismId);
+        memory.set(X, slot, px);
+        memory.set(Y, slot, py);
+        memory.set(ENERGY, slot, e);
+        memory.set(AGE, slot, 0);
+        memory.set(MOVE_COST, slot, move);
+        memory.set(EAT_GAIN, slot, gain);
+        memory.set(REPRODUCE_THRESHOLD, slot, threshold);
+        memory.set(METABOLISM_COST, slot, metabolism);
+        memory.setAbsorption(slot, absorption);
+        link(slot);
+        slotById.put(organismId, slot);
+        live++;
+        if (frontier != null) frontier.entered(px, py, t == TYPE_PLANT);
+        return slot;
+    }
+
+    /** Free a slot; it joins the free list until reused or compacted away. */
+    void remove(int slot) {
+        int t = getType(slot);
+        if (t == TYPE_NONE) return;
+        unlink(slot);
+        if (frontier != null) frontier.left(getX(slot), getY(slot), t == TYPE_PLANT);
+        slotById.remove(getId(slot));
+        memory.set(TYPE, slot, TYPE_NONE);
+        if (freeCount == free.length) free = Arrays.copyOf(free, free.length * 2);
+        free[freeCount++] = slot;
+        live--;
+    }
+
+    void move(int slot, int nx, int ny) {
+        unlink(slot);
+        if (frontier != null) frontier.left(getX(slot), getY(slot), getType(slot) == TYPE_PLANT);
+        memory.set(X, slot, nx);
+        memory.set(Y, slot, ny);
+        link(slot);
+        if (frontier != null) frontier.entered(nx, ny, getType(slot) == TYPE_PLANT);
+    }
+
+    /** Share of handed-out slots that are currently free. */
+    double fragmentation() {
+        return highWater == 0 ? 0 : (double) freeCount / highWater;
+    }
+
+    /** Move live slots down into the holes so [0, size()) is dense again. */
+    void compact() {
+        int lo = 0, hi = highWater - 1;
+        while (true) {
+            while (lo < hi && getType(lo) != TYPE_NONE) lo++;
+            while (hi > lo && getType(hi) == TYPE_NONE) hi--;
+            if (lo >= hi) break;
+            relocate(hi, lo);
+            lo++;
+            hi--;
+        }
+        highWater = live;
+        freeCount = 0;
+    }
+
+    /** Materialize a detached, read-only `Organism` view of a slot (id preserved). */
+    public Organism view(int slot) {
+        switch (getType(slot)) {
+            case TYPE_PLANT:
+                return new Plant(getId(slot), getX(slot), getY(slot), getEnergy(slot), getAge(slot));
+            case TYPE_HERBIVORE:
+                return new Herbivore(getId(slot), getX(slot), getY(slot), getEnergy(slot), getAge(slot), getMoveCost(slot),
+                    getEatGain(slot), getReproduceThreshold(slot), getMetabolismCost(slot), getAbsorptionRate(slot));
+            case TYPE_CARNIVORE:
+                return new Carnivore(getId(slot), getX(slot), getY(slot), getEnergy(slot), getAge(slot), getMoveCost(slot),
+                    getEatGain(slot), getReproduceThreshold(slot), getMetabolismCost(slot), getAbsorptionRate(slot));
+            default:
+                return null;
+        }
+    }
+
+    public OrganismSnapshot snapshot(int slot) {
+        Organism o = view(slot);
+        return o == null ? null : OrganismSnapshot.from(o);
+    }
+
+    private void relocate(int from, int to) {
+        unlink(from);
+        copy(TYPE, from, to);
+        copy(ID, from, to);
+        copy(X, from, to);
+        copy(Y, from, to);
+        copy(ENERGY, from, to);
+        copy(AGE, from, to);
+        copy(MOVE_COST, from, to);
+        copy(EAT_GAIN, from, to);
+        copy(REPRODUCE_THRESHOLD, from, to);
+        copy(METABOLISM_COST, from, to);
+        memory.setAbsorption(to, getAbsorptionRate(from));
+        memory.set(TYPE, from, TYPE_NONE);
+        link(to);
+        slotById.put(getId(to), to);
+    }
+
+    private void copy(int column, int from, int to) {
+        memory.set(column, to, memory.get(column, from));
+    }
+
+    private void link(int slot) {
+        setNext(slot, EMPTY);
+        int cx = getX(slot), cy = getY(slot);
+        if (cx < 0 || cx >= width || cy < 0 || cy >= height) return;
+        int chunk = chunks.of(cx, cy), cell = Chunks.offset(cx, cy);
+        int cur = memory.head(chunk, cell);
+        if (cur == EMPTY) { memory.setHead(chunk, cell, slot); return; }
+        while (nextInCell(cur) != EMPTY) cur = nextInCell(cur);
+        setNext(cur, slot);
+    }
+
+    private void unlink(int slot) {
+        int cx = getX(slot), cy = getY(slot);
+        if (cx < 0 || cx >= width || cy < 0 || cy >= height) return;
+        int chunk = chunks.of(cx, cy), cell = Chunks.offset(cx, cy);
+        int prev = EMPTY, cur = memory.head(chunk, cell);
+        while (cur != EMPTY && cur != slot) { prev = cur; cur = nextInCell(cur); }
+        if (cur == EMPTY) return;
+        if (prev == EMPTY) memory.setHead(chunk, cell, nextInCell(slot));
+        else setNext(prev, nextInCell(slot));
+        setNext(slot, EMPTY);
+    }
+
+    private void setNext(int slot, int next) { memory.set(NEXT_IN_CELL, slot, next); }
+}
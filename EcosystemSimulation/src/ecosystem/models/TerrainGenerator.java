@@ -0,0 +1,170 @@
+/**
+ * Headless terrain generation: an elevation map of fractal value noise (octaves of random
+ * lattice values, smoothly interpolated), softened by a separable box blur, scaled to
+ * 0..1 and cut into water, sand, grass and rock. Needs no JavaFX; the UI colors the result.
+ *
+ * Every lattice value is hashed from (seed, octave, lattice point), so the map depends only
+ * on the seed and the size. Rows are filled in parallel stripes into flat buffers (index
+ * y*width+x), and the result is the same whatever the number of threads.
+ */
+package ecosystem.models;
+
+import java.util.stream.IntStream;
+
+public final class TerrainGenerator {
+    // Elevation cut points: water below SAND_LEVEL, then sand, grass, and rock from ROCK_LEVEL up
+    public static final float SAND_LEVEL = 0.25f;
+    public static final float GRASS_LEVEL = 0.35f;
+    public static final float ROCK_LEVEL = 0.75f;
+
+    // Lattice spacing of the coarsest octave in cells; each further octave halves it and its weight
+    private static final int BASE_SPACING = 16;
+    private static final int OCTAVES = 4;
+    private static final int BLUR_RADIUS = 1;
+    // The octaves sum to [0, 1.875). Elevation is that sum around its middle, stretched to give
+    // about 11% water, 17% sand, 69% grass and 3% rock at any map size (a min/max stretch
+    // would make the shares depend on the size)
+    private static final double NOISE_MIDDLE = 0.9375;
+    private static final double ELEVATION_MIDDLE = 0.45;
+    private static final double ELEVATION_STRETCH = 0.66;
+    private static final int STRIPE_ROWS = 64;
+
+    private TerrainGenerator() {}
+
+    /** A generated map: normalized elevation and TERRAIN_* code per cell, both indexed y*width+x. */
+    public static final class Terrain {
+        public final int width;
+        public final int height;
+        public final long seed;
+        public final float[] elevation;
+        public final byte[] cells;
+
+        Terrain(int width, int height, long seed, float[] elevation, byte[] cells) {
+            this.width = width;
+            this.height = height;
+            this.seed = seed;
+            this.elevation = elevation;
+            this.cells = cells;
+        }
+    }
+
+    /** Terrain code for a normalized elevation. */
+    public static int terrainAt(float v) {
+        if (v < SAND_LEVEL) return Grid.TERRAIN_WATER;
+        if (v < GRASS_LEVEL) return Grid.TERRAIN_SAND;
+        return v < ROCK_LEVEL ? Grid.TERRAIN_GRASS : Grid.TERRAIN_ROCK;
+    }
+
+    /** Generate a width x height map; equal seeds give equal maps. */
+    public static Terrain generate(int width, int height, long seed) {
+        int w = Math.max(0, width), h = Math.max(0, height);
+        float[] noise = new float[w * h];
+        float[] elevation = new float[w * h];
+        byte[] cells = new byte[w * h];
+        int stripes = (h + STRIPE_ROWS - 1) / STRIPE_ROWS;
+
+        // 1) noise, blurred along the rows
+        parallel(stripes, s -> {
+            float[] row = new float[w];
+            for (int y = s * STRIPE_ROWS; y < Math.min(h, (s + 1) * STRIPE_ROWS); y++) {
+                java.util.Arrays.fill(row, 0);
+                float amplitude = 1;
+                for (int o = 0; o < OCTAVES; o++) {
+                    addOctave(row, y, BASE_SPACING >> o, amplitude, RandomStreams.derive(seed, o, RandomStreams.LANE_TERRAIN));
+                    amplitude *= 0.5f;
+                }
+                rowBlur(row, noise, y * w);
+            }
+        });
+        // 2) blurred along the columns with running column sums (the window reaches into the
+        //    neighboring stripes), then scaled to elevation and classified
+        parallel(stripes, s -> {
+            int y0 = s * STRIPE_ROWS, y1 = Math.min(h, y0 + STRIPE_ROWS);
+            double[] sums = new double[w];
+            int count = 0;
+            // start with the window of row y0 - 1, so the first step below drops and adds like every other
+            for (int y = Math.max(0, y0 - BLUR_RADIUS - 1); y < Math.min(h, y0 + BLUR_RADIUS); y++) {
+                for (int x = 0; x < w; x++) sums[x] += noise[y * w + x];
+                count++;
+            }
+            for (int y = y0; y < y1; y++) {
+                int add = y + BLUR_RADIUS, drop = y - BLUR_RADIUS - 1;
+                if (add < h) {
+                    for (int x = 0; x < w; x++) sums[x] += noise[add * w + x];
+                    count++;
+                }
+                if (drop >= 0) {
+                    for (int x = 0; x < w; x++) sums[x] -= noise[drop * w + x];
+                    count--;
+                }
+                for (int x = 0; x < w; x++) {
+                    int c = y * w + x;
+                    double raw = sums[x] / count;
+                    float v = (float) Math.max(0, Math.min(1, ELEVATION_MIDDLE + (raw - NOISE_MIDDLE) * ELEVATION_STRETCH));
+                    elevation[c] = v;
+                    cells[c] = (byte) terrainAt(v);
+                }
+            }
+        });
+        return new Terrain(w, h, seed, elevation, cells);
+    }
+
+    private static void parallel(int stripes, java.util.function.IntConsumer stripe) {
+        if (stripes <= 1) {
+            for (int s = 0; s < stripes; s++) stripe.accept(s);
+        } else {
+            IntStream.range(0, stripes).parallel().forEach(stripe);
+        }
+    }
+
+    /** Add one octave of value noise to row y: lattice values every `spacing` cells, smoothstep-blended. */
+    private static void addOctave(float[] row, int y, int spacing, float amplitude, long key) {
+        int iy = y / spacing;
+        float fy = fade((y - iy * spacing) / (float) spacing);
+        long top = RandomStreams.derive(key, iy, 0), bottom = RandomStreams.derive(key, iy + 1, 0);
+        // left and right lattice columns, each blended vertically
+        float left = blend(top, bottom, 0, fy);
+        for (int ix = 0, x = 0; x < row.length; ix++) {
+            float right = blend(top, bottom, ix + 1, fy);
+            for (int k = 0; k < spacing && x < row.length; k++, x++) {
+                float fx = fade(k / (float) spacing);
+                row[x] += amplitude * (left + (right - left) * fx);
+            }
+            left = right;
+        }
+    }
+
+    private static float blend(long top, long bottom, int ix, float fy) {
+        float t = lattice(top, ix);
+        return t + (lattice(bottom, ix) - t) * fy;
+    }
+
+    /** Random value in [0, 1) of lattice point ix of the lattice row with the given key. */
+    private static float lattice(long rowKey, int ix) {
+        return (RandomStreams.mix(rowKey ^ (ix * 0x9E3779B97F4A7C15L)) >>> 40) * 0x1.0p-24f;
+    }
+
+    private static float fade(float t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    /**
+     * Box blur of one row with a running sum, so a cell costs the same whatever the radius.
+     * Edges average the cells that exist.
+     */
+    private static void rowBlur(float[] row, float[] dst, int to) {
+        int n = row.length;
+        float sum = 0;
+        int count = 0;
+        for (int i = 0; i < Math.min(n, BLUR_RADIUS); i++) {
+            sum += row[i];
+            count++;
+        }
+        for (int i = 0; i < n; i++) {
+            int add = i + BLUR_RADIUS, drop = i - BLUR_RADIUS - 1;
+            if (add < n) { sum += row[add]; count++; }
+            if (drop >= 0) { sum -= row[drop]; count--; }
+            dst[to + i] = sum / count;
+        }
+    }
+}
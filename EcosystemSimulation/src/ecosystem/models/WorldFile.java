@@ -0,0 +1,779 @@
+/**
+ * ECO_SIM_V2: binary save file for a whole world, written and read through NIO
+ * `FileChannel`s with one reusable buffer, so neither side holds more than one
+ * block of organisms in memory.
+ *
+ * Layout (little-endian; every column starts on an 8-byte boundary):
+ *   "ECO_SIM_V2", u16 revision, u16 0 (padding), int header length, header:
+ *     long day, long terrain variant, int width, int height, int organism count,
+ *     int block capacity, int settings length, settings as UTF-8 "key=value\n" lines
+ *   TERRAIN block: int tag, int 0 (no terrain) or width*height, then one TERRAIN_* byte per cell (y*width+x)
+ *   ORGANISMS blocks: int tag, int n, then the columns id, type (byte), x, y, energy, age,
+ *     moveCost, eatGain, reproduceThreshold, metabolismCost (int) and absorptionRate (double)
+ *   END: int tag
+ * Organisms are stored in population order, so a reloaded world steps the same way.
+ *
+ * Besides the streaming `Reader`, `Mapped` maps the organism blocks read-only, so a
+ * saved world can be shown at once and turned into organisms only when it is stepped.
+ * `Image` copies a world in memory so that it can be written from another thread.
+ */
+package ecosystem.models;
+
+import ecosystem.Settings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+public final class WorldFile {
+    public static final String MAGIC = "ECO_SIM_V2";
+    static final int REVISION = 1;
+    static final int TAG_TERRAIN = 0x52524554;   // "TERR"
+    static final int TAG_ORGANISMS = 0x5347524f; // "ORGS"
+    static final int TAG_END = 0x2e444e45;       // "END."
+    /** Organisms per block: bounds the memory either side needs for one block. */
+    public static final int BLOCK_CAPACITY = 1 << 16;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private WorldFile() {}
+
+    /** True if the file starts with the V2 magic. */
+    public static boolean isWorldFile(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(MAGIC.length());
+            while (b.hasRemaining() && ch.read(b) >= 0) { }
+            return !b.hasRemaining() && MAGIC.equals(new String(b.array(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    /** Write the grid (terrain and population) and the settings it runs with. */
+    public static void write(Path file, Settings settings, Grid grid, long day, long terrainVariant) throws IOException {
+        try (Out out = new Out(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))) {
+            PopulationStore store = grid.getPopulationStore();
+            int count = store != null ? store.size() : objectCount(grid);
+            writeHead(out, settings.toMap(), day, terrainVariant, grid.getWidth(), grid.getHeight(), count,
+                grid.getTerrainCells());
+            forEachBlock(grid, block -> {
+                out.block(block);
+                block.size = 0;
+            });
+            out.putInt(TAG_END);
+        }
+    }
+
+    /** Header, settings and terrain block; `terrain` is one byte per cell (y*width+x) or null. */
+    private static void writeHead(Out out, Map<String, String> settings, long day, long terrainVariant,
+                                  int width, int height, int count, byte[] terrain) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : settings.entrySet()) {
+            sb.append(e.getKey()).append('=').append(e.getValue()).append('\n');
+        }
+        byte[] settingsBytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        out.bytes(MAGIC.getBytes(StandardCharsets.US_ASCII), 0, MAGIC.length());
+        out.putShort((short) REVISION);
+        out.putShort((short) 0);
+        out.putInt(8 + 8 + 4 * 5 + settingsBytes.length);
+        out.putLong(day);
+        out.putLong(terrainVariant);
+        out.putInt(width);
+        out.putInt(height);
+        out.putInt(count);
+        out.putInt(BLOCK_CAPACITY);
+        out.putInt(settingsBytes.length);
+        out.bytes(settingsBytes, 0, settingsBytes.length);
+        out.align();
+
+        out.putInt(TAG_TERRAIN);
+        out.putInt(terrain == null ? 0 : terrain.length);
+        if (terrain != null) {
+            out.bytes(terrain, 0, terrain.length);
+            out.align();
+        }
+    }
+
+    private interface BlockSink {
+        void accept(OrganismBlock block) throws IOException;
+    }
+
+    /** Organisms of an object-engine grid: the objects plus the field plants, which have none. */
+    private static int objectCount(Grid grid) {
+        PlantField field = grid.getPlantField();
+        return grid.organismObjects().size() + (field == null ? 0 : field.size());
+    }
+
+    /**
+     * Fill one reusable block in population order, handing it over whenever it is full (and once
+     * at the end). Field plants are read straight from the field, after the objects.
+     */
+    private static void forEachBlock(Grid grid, BlockSink sink) throws IOException {
+        PopulationStore store = grid.getPopulationStore();
+        OrganismBlock block = new OrganismBlock();
+        if (store != null) {
+            for (int s = 0; s < store.capacityUsed(); s++) {
+                if (!store.isLive(s)) continue;
+                block.put(store.getType(s), store.getId(s), store.getX(s), store.getY(s), store.getEnergy(s), store.getAge(s),
+                    store.getMoveCost(s), store.getEatGain(s), store.getReproduceThreshold(s), store.getMetabolismCost(s),
+                    store.getAbsorptionRate(s));
+                if (block.size == BLOCK_CAPACITY) sink.accept(block);
+            }
+        } else {
+            for (Organism o : grid.organismObjects()) {
+                if (o instanceof Animal) {
+                    Animal a = (Animal) o;
+                    block.put(a instanceof Carnivore ? PopulationStore.TYPE_CARNIVORE : PopulationStore.TYPE_HERBIVORE,
+                        a.getId(), a.getX(), a.getY(), a.getEnergy(), a.getAge(), a.getMoveCost(), a.getEatGain(),
+                        a.getReproduceThreshold(), a.getMetabolismCost(), a.getAbsorptionRate());
+                } else {
+                    block.put(PopulationStore.TYPE_PLANT, o.getId(), o.getX(), o.getY(), o.getEnergy(), o.getAge(),
+                        0, 0, 0, 0, 1.0);
+                }
+                if (block.size == BLOCK_CAPACITY) sink.accept(block);
+            }
+            PlantField field = grid.getPlantField();
+            if (field != null) {
+                int w = grid.getWidth();
+                IOException[] failed = {null};
+                field.forEach((x, y) -> {
+                    if (failed[0] != null) return;
+                    block.put(PopulationStore.TYPE_PLANT, PlantField.idOf(y * w + x), x, y, field.energyAt(x, y),
+                        field.ageAt(x, y), 0, 0, 0, 0, 1.0);
+                    if (block.size == BLOCK_CAPACITY) {
+                        try {
+                            sink.accept(block);
+                        } catch (IOException ex) {
+                            failed[0] = ex;
+                        }
+                    }
+                });
+                if (failed[0] != null) throw failed[0];
+            }
+        }
+        if (block.size > 0) sink.accept(block);
+    }
+
+    /**
+     * In-memory copy of a world, taken on the thread that steps the grid (a plain array
+     * copy, no I/O) and written later from another thread: background checkpoints.
+     */
+    public static final class Image {
+        private final Map<String, String> settings;
+        private final long day;
+        private final long terrainVariant;
+        private final int width;
+        private final int height;
+        private final byte[] terrain;
+        private final java.util.List<OrganismBlock> blocks = new java.util.ArrayList<>();
+        private int count;
+
+        private Image(Settings settings, Grid grid, long day, long terrainVariant) {
+            this.settings = settings.toMap();
+            this.day = day;
+            this.terrainVariant = terrainVariant;
+            this.width = grid.getWidth();
+            this.height = grid.getHeight();
+            // the grid never modifies an installed terrain, so it can be shared
+            this.terrain = grid.getTerrainCells();
+        }
+
+        public static Image capture(Settings settings, Grid grid, long day, long terrainVariant) {
+            Image image = new Image(settings, grid, day, terrainVariant);
+            try {
+                forEachBlock(grid, block -> {
+                    image.blocks.add(block.copy());
+                    image.count += block.size;
+                    block.size = 0;
+                });
+            } catch (IOException ex) {
+                throw new java.io.UncheckedIOException(ex); // no I/O while capturing
+            }
+            return image;
+        }
+
+        public long getDay() { return day; }
+        public int getOrganismCount() { return count; }
+
+        /** Approximate heap footprint of the copy. */
+        public long getBytes() {
+            return (terrain == null ? 0 : terrain.length) + blockBytes(count);
+        }
+
+        /** The captured settings, as a new object. */
+        public Settings getSettings() {
+            Settings s = new Settings();
+            for (Map.Entry<String, String> e : settings.entrySet()) s.set(e.getKey(), e.getValue());
+            return s;
+        }
+
+        /** Rebuild the captured world in a new grid made with the given settings. */
+        public Grid toGrid(Settings gridSettings) {
+            Grid grid = new Grid(gridSettings);
+            if (terrain != null) grid.setTerrainCells(terrain);
+            grid.setDay(day);
+            for (OrganismBlock b : blocks) {
+                for (int i = 0; i < b.size; i++) {
+                    grid.restoreOrganism(b.type[i], b.id[i], b.x[i], b.y[i], b.energy[i], b.age[i], b.moveCost[i],
+                        b.eatGain[i], b.reproduceThreshold[i], b.metabolismCost[i], b.absorptionRate[i]);
+                }
+            }
+            return grid;
+        }
+
+        /** Write the captured world as a V2 file; may be called from any thread. */
+        public void write(Path file) throws IOException {
+            write(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+        }
+
+        /** Write the captured world as a V2 stream to a channel, which is closed afterwards. */
+        public void write(WritableByteChannel channel) throws IOException {
+            try (Out out = new Out(channel)) {
+                writeHead(out, settings, day, terrainVariant, width, height, count, terrain);
+                for (OrganismBlock b : blocks) out.block(b);
+                out.putInt(TAG_END);
+            }
+        }
+    }
+
+    /** Read a whole file into a new grid (settings from the file; day and terrain restored). */
+    public static Grid readGrid(Reader in) throws IOException {
+        return readGrid(in, in.getSettings());
+    }
+
+    /** Same, but the grid is built with the given settings (e.g. a different engine). */
+    public static Grid readGrid(Reader in, Settings settings) throws IOException {
+        Grid grid = new Grid(settings);
+        try {
+            if (in.getTerrainCells() != null) grid.setTerrainCells(in.getTerrainCells());
+            grid.setDay(in.getDay());
+            OrganismBlock block = new OrganismBlock();
+            while (in.nextBlock(block)) {
+                for (int i = 0; i < block.size; i++) {
+                    grid.restoreOrganism(block.type[i], block.id[i], block.x[i], block.y[i], block.energy[i], block.age[i],
+                        block.moveCost[i], block.eatGain[i], block.reproduceThreshold[i], block.metabolismCost[i],
+                        block.absorptionRate[i]);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            // a half-read world is dropped: give back what it holds (an off-heap store's memory)
+            grid.shutdown();
+            throw ex;
+        }
+        return grid;
+    }
+
+    /**
+     * Open a grid backed by a mapped file: settings, day and terrain are loaded now, the
+     * organisms stay in the mapping until the grid first needs them (the file stays open until then).
+     */
+    public static Grid mappedGrid(Mapped world) {
+        Grid grid = new Grid(world.getSettings());
+        if (world.getTerrainCells() != null) grid.setTerrainCells(world.getTerrainCells());
+        grid.setDay(world.getDay());
+        grid.setPendingWorld(world);
+        return grid;
+    }
+
+    /** Bytes of an organisms block with n entries, tag included. */
+    static long blockBytes(int n) {
+        return 8 + 9 * align8(4L * n) + align8(n) + 8L * n;
+    }
+
+    private static long align8(long v) {
+        return (v + 7) & ~7L;
+    }
+
+    /** Reusable column arrays for one block of organisms. */
+    public static final class OrganismBlock {
+        public int size;
+        public int[] id = new int[0];
+        public byte[] type = new byte[0];
+        public int[] x = new int[0];
+        public int[] y = new int[0];
+        public int[] energy = new int[0];
+        public int[] age = new int[0];
+        public int[] moveCost = new int[0];
+        public int[] eatGain = new int[0];
+        public int[] reproduceThreshold = new int[0];
+        public int[] metabolismCost = new int[0];
+        public double[] absorptionRate = new double[0];
+
+        void ensureCapacity(int n) {
+            if (id.length >= n) return;
+            int cap = Math.min(BLOCK_CAPACITY, Math.max(n, id.length * 2));
+            id = java.util.Arrays.copyOf(id, cap);
+            type = java.util.Arrays.copyOf(type, cap);
+            x = java.util.Arrays.copyOf(x, cap);
+            y = java.util.Arrays.copyOf(y, cap);
+            energy = java.util.Arrays.copyOf(energy, cap);
+            age = java.util.Arrays.copyOf(age, cap);
+            moveCost = java.util.Arrays.copyOf(moveCost, cap);
+            eatGain = java.util.Arrays.copyOf(eatGain, cap);
+            reproduceThreshold = java.util.Arrays.copyOf(reproduceThreshold, cap);
+            metabolismCost = java.util.Arrays.copyOf(metabolismCost, cap);
+            absorptionRate = java.util.Arrays.copyOf(absorptionRate, cap);
+        }
+
+        /** Trimmed copy of the filled part. */
+        OrganismBlock copy() {
+            OrganismBlock c = new OrganismBlock();
+            c.size = size;
+            c.id = java.util.Arrays.copyOf(id, size);
+            c.type = java.util.Arrays.copyOf(type, size);
+            c.x = java.util.Arrays.copyOf(x, size);
+            c.y = java.util.Arrays.copyOf(y, size);
+            c.energy = java.util.Arrays.copyOf(energy, size);
+            c.age = java.util.Arrays.copyOf(age, size);
+            c.moveCost = java.util.Arrays.copyOf(moveCost, size);
+            c.eatGain = java.util.Arrays.copyOf(eatGain, size);
+            c.reproduceThreshold = java.util.Arrays.copyOf(reproduceThreshold, size);
+            c.metabolismCost = java.util.Arrays.copyOf(metabolismCost, size);
+            c.absorptionRate = java.util.Arrays.copyOf(absorptionRate, size);
+            return c;
+        }
+
+        void put(int t, int oid, int ox, int oy, int e, int a, int move, int gain, int threshold, int metabolism, double absorption) {
+            ensureCapacity(size + 1);
+            int i = size++;
+            type[i] = (byte) t;
+            id[i] = oid;
+            x[i] = ox;
+            y[i] = oy;
+            energy[i] = e;
+            age[i] = a;
+            moveCost[i] = move;
+            eatGain[i] = gain;
+            reproduceThreshold[i] = threshold;
+            metabolismCost[i] = metabolism;
+            absorptionRate[i] = absorption;
+        }
+    }
+
+    /**
+     * Streaming reader: the header, settings and terrain are read on open; organisms
+     * are then pulled one block at a time with `nextBlock`.
+     */
+    public static final class Reader implements Closeable {
+        private final In in;
+        private final long day;
+        private final long terrainVariant;
+        private final int width;
+        private final int height;
+        private final int organismCount;
+        private final Settings settings;
+        private final byte[] terrain;
+        // file offset of the first organisms block
+        private final long blocksStart;
+        private boolean ended;
+
+        public static Reader open(Path file) throws IOException {
+            return new Reader(FileChannel.open(file, StandardOpenOption.READ));
+        }
+
+        /** Read a V2 stream from any channel (e.g. an in-memory or compressed copy); closed with the reader. */
+        public static Reader open(ReadableByteChannel channel) throws IOException {
+            return new Reader(channel);
+        }
+
+        private Reader(ReadableByteChannel channel) throws IOException {
+            in = new In(channel);
+            try {
+                byte[] magic = new byte[MAGIC.length()];
+                in.bytes(magic, 0, magic.length);
+                if (!MAGIC.equals(new String(magic, StandardCharsets.US_ASCII))) throw new IOException("Not an " + MAGIC + " file");
+                int revision = in.getShort();
+                if (revision > REVISION) throw new IOException("Unsupported " + MAGIC + " revision " + revision);
+                in.getShort();
+                in.getInt(); // header length: lets later revisions append fields
+                day = in.getLong();
+                terrainVariant = in.getLong();
+                width = in.getInt();
+                height = in.getInt();
+                organismCount = in.getInt();
+                in.getInt(); // block capacity used by the writer
+                byte[] settingsBytes = new byte[in.getInt()];
+                in.bytes(settingsBytes, 0, settingsBytes.length);
+                settings = new Settings();
+                for (String line : new String(settingsBytes, StandardCharsets.UTF_8).split("\n")) {
+                    String[] kv = line.split("=", 2);
+                    // keys unknown to this version are skipped rather than failing the load
+                    if (kv.length == 2) {
+                        try { settings.set(kv[0], kv[1]); } catch (IllegalArgumentException ex) {}
+                    }
+                }
+                if (settings.getGridWidth() != width || settings.getGridHeight() != height) {
+                    throw new IOException("Header size " + width + "x" + height + " does not match the settings");
+                }
+                in.align();
+
+                if (in.getInt() != TAG_TERRAIN) throw new IOException("Missing terrain block");
+                int cells = in.getInt();
+                if (cells == 0) {
+                    terrain = null;
+                } else {
+                    if (cells != width * height) throw new IOException("Terrain block has " + cells + " cells");
+                    terrain = new byte[cells];
+                    in.bytes(terrain, 0, cells);
+                    in.align();
+                }
+                blocksStart = in.position;
+            } catch (IOException | RuntimeException ex) {
+                in.close();
+                throw ex;
+            }
+        }
+
+        public long getDay() { return day; }
+        public long getTerrainVariant() { return terrainVariant; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public int getOrganismCount() { return organismCount; }
+        public Settings getSettings() { return settings; }
+        /** Terrain as one TERRAIN_* byte per cell (y*width+x), or null if the world had none. */
+        public byte[] getTerrainCells() { return terrain; }
+
+        /** Fill `block` with the next organisms; false once the end of the file is reached. */
+        public boolean nextBlock(OrganismBlock block) throws IOException {
+            block.size = 0;
+            if (ended) return false;
+            int tag = in.getInt();
+            if (tag == TAG_END) {
+                ended = true;
+                return false;
+            }
+            if (tag != TAG_ORGANISMS) throw new IOException("Unexpected block tag 0x" + Integer.toHexString(tag));
+            int n = in.getInt();
+            if (n < 0 || n > BLOCK_CAPACITY) throw new IOException("Bad block size " + n);
+            block.ensureCapacity(n);
+            in.ints(block.id, n);
+            in.bytes(block.type, 0, n);
+            in.align();
+            in.ints(block.x, n);
+            in.ints(block.y, n);
+            in.ints(block.energy, n);
+            in.ints(block.age, n);
+            in.ints(block.moveCost, n);
+            in.ints(block.eatGain, n);
+            in.ints(block.reproduceThreshold, n);
+            in.ints(block.metabolismCost, n);
+            in.doubles(block.absorptionRate, n);
+            block.size = n;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Read-only mapping of the organism blocks of a V2 file. Opening reads the header and
+     * terrain and walks the block tags, but touches no organism data; columns are then
+     * read straight from the mapped pages, by index in file order.
+     */
+    public static final class Mapped implements Closeable {
+        private final FileChannel channel;
+        private final long day;
+        private final long terrainVariant;
+        private final int width;
+        private final int height;
+        private final Settings settings;
+        private final byte[] terrain;
+        private final MappedByteBuffer[] blocks;
+        // index of the first organism of each block, plus the total at the end
+        private final int[] blockStart;
+        private final int size;
+
+        public static Mapped open(Path file) throws IOException {
+            return new Mapped(file);
+        }
+
+        private Mapped(Path file) throws IOException {
+            long position;
+            try (Reader header = Reader.open(file)) {
+                day = header.getDay();
+                terrainVariant = header.getTerrainVariant();
+                width = header.getWidth();
+                height = header.getHeight();
+                settings = header.getSettings();
+                terrain = header.getTerrainCells();
+                position = header.blocksStart;
+            }
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                java.util.List<MappedByteBuffer> maps = new java.util.ArrayList<>();
+                java.util.List<Integer> starts = new java.util.ArrayList<>();
+                ByteBuffer head = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                int total = 0;
+                while (true) {
+                    head.clear();
+                    while (head.hasRemaining()) {
+                        if (channel.read(head, position + head.position()) < 0) throw new java.io.EOFException("Truncated " + MAGIC + " file");
+                        if (head.position() >= 4 && head.getInt(0) == TAG_END) break;
+                    }
+                    int tag = head.getInt(0);
+                    if (tag == TAG_END) break;
+                    if (tag != TAG_ORGANISMS) throw new IOException("Unexpected block tag 0x" + Integer.toHexString(tag));
+                    int n = head.getInt(4);
+                    if (n < 0 || n > BLOCK_CAPACITY) throw new IOException("Bad block size " + n);
+                    long bytes = blockBytes(n);
+                    if (position + bytes > channel.size()) throw new java.io.EOFException("Truncated " + MAGIC + " file");
+                    maps.add((MappedByteBuffer) channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).order(ByteOrder.LITTLE_ENDIAN));
+                    starts.add(total);
+                    total += n;
+                    position += bytes;
+                }
+                blocks = maps.toArray(new MappedByteBuffer[0]);
+                blockStart = new int[blocks.length + 1];
+                for (int b = 0; b < blocks.length; b++) blockStart[b] = starts.get(b);
+                blockStart[blocks.length] = total;
+                size = total;
+            } catch (IOException | RuntimeException ex) {
+                channel.close();
+                throw ex;
+            }
+        }
+
+        public long getDay() { return day; }
+        public long getTerrainVariant() { return terrainVariant; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public Settings getSettings() { return settings; }
+        public byte[] getTerrainCells() { return terrain; }
+        /** Number of organisms in the file. */
+        public int size() { return size; }
+
+        public int id(int k) { return intColumn(k, 0); }
+        public int type(int k) {
+            int b = blockOf(k);
+            return blocks[b].get((int) (8 + align8(4L * blockLength(b))) + (k - blockStart[b]));
+        }
+        public int x(int k) { return intColumn(k, 1); }
+        public int y(int k) { return intColumn(k, 2); }
+        public int energy(int k) { return intColumn(k, 3); }
+        public int age(int k) { return intColumn(k, 4); }
+        public int moveCost(int k) { return intColumn(k, 5); }
+        public int eatGain(int k) { return intColumn(k, 6); }
+        public int reproduceThreshold(int k) { return intColumn(k, 7); }
+        public int metabolismCost(int k) { return intColumn(k, 8); }
+        public double absorptionRate(int k) {
+            int b = blockOf(k);
+            int n = blockLength(b);
+            return blocks[b].getDouble((int) (8 + 9 * align8(4L * n) + align8(n)) + 8 * (k - blockStart[b]));
+        }
+
+        /** Create every organism in `grid` (file order, saved ids). */
+        void restoreInto(Grid grid) {
+            for (int b = 0; b < blocks.length; b++) {
+                for (int k = blockStart[b]; k < blockStart[b + 1]; k++) {
+                    grid.restoreOrganism(type(k), id(k), x(k), y(k), energy(k), age(k),
+                        moveCost(k), eatGain(k), reproduceThreshold(k), metabolismCost(k), absorptionRate(k));
+                }
+            }
+        }
+
+        /** Value of int column c (0 = id, then x, y, energy, age and the four parameters) for organism k. */
+        private int intColumn(int k, int c) {
+            int b = blockOf(k);
+            int n = blockLength(b);
+            long col = 8 + (c == 0 ? 0 : align8(4L * n) * c + align8(n));
+            return blocks[b].getInt((int) col + 4 * (k - blockStart[b]));
+        }
+
+        private int blockLength(int b) { return blockStart[b + 1] - blockStart[b]; }
+
+        private int blockOf(int k) {
+            // all blocks but the last are full, which the search below does not rely on
+            int b = Math.min(k / BLOCK_CAPACITY, blocks.length - 1);
+            while (blockStart[b] > k) b--;
+            while (blockStart[b + 1] <= k) b++;
+            return b;
+        }
+
+        /** Closes the file; mapped pages stay readable until the buffers are collected. */
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // read-only: nothing to lose
+            }
+        }
+    }
+
+    /** Buffered little-endian output over a channel; `position` counts bytes from the file start. */
+    private static final class Out implements Closeable {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Out(WritableByteChannel channel) { this.channel = channel; }
+
+        void putShort(short v) throws IOException { room(2); buf.putShort(v); position += 2; }
+        void putInt(int v) throws IOException { room(4); buf.putInt(v); position += 4; }
+        void putLong(long v) throws IOException { room(8); buf.putLong(v); position += 8; }
+
+        void bytes(byte[] src, int off, int len) throws IOException {
+            while (len > 0) {
+                room(1);
+                int k = Math.min(len, buf.remaining());
+                buf.put(src, off, k);
+                off += k;
+                len -= k;
+                position += k;
+            }
+        }
+
+        void ints(int[] src, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                room(4);
+                int k = Math.min(n - i, buf.remaining() / 4);
+                buf.asIntBuffer().put(src, i, k);
+                buf.position(buf.position() + k * 4);
+                i += k;
+                position += 4L * k;
+            }
+            align();
+        }
+
+        void doubles(double[] src, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                room(8);
+                int k = Math.min(n - i, buf.remaining() / 8);
+                buf.asDoubleBuffer().put(src, i, k);
+                buf.position(buf.position() + k * 8);
+                i += k;
+                position += 8L * k;
+            }
+        }
+
+        /** Zero-pad to the next 8-byte boundary. */
+        void align() throws IOException {
+            while ((position & 7) != 0) {
+                room(1);
+                buf.put((byte) 0);
+                position++;
+            }
+        }
+
+        void block(OrganismBlock b) throws IOException {
+            putInt(TAG_ORGANISMS);
+            putInt(b.size);
+            ints(b.id, b.size);
+            bytes(b.type, 0, b.size);
+            align();
+            ints(b.x, b.size);
+            ints(b.y, b.size);
+            ints(b.energy, b.size);
+            ints(b.age, b.size);
+            ints(b.moveCost, b.size);
+            ints(b.eatGain, b.size);
+            ints(b.reproduceThreshold, b.size);
+            ints(b.metabolismCost, b.size);
+            doubles(b.absorptionRate, b.size);
+        }
+
+        private void room(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            flush();
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /** Buffered little-endian input over a channel, refilled as it is consumed. */
+    private static final class In implements Closeable {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        In(ReadableByteChannel channel) {
+            this.channel = channel;
+            buf.limit(0);
+        }
+
+        int getShort() throws IOException { need(2); position += 2; return buf.getShort(); }
+        int getInt() throws IOException { need(4); position += 4; return buf.getInt(); }
+        long getLong() throws IOException { need(8); position += 8; return buf.getLong(); }
+
+        void bytes(byte[] dst, int off, int len) throws IOException {
+            while (len > 0) {
+                need(1);
+                int k = Math.min(len, buf.remaining());
+                buf.get(dst, off, k);
+                off += k;
+                len -= k;
+                position += k;
+            }
+        }
+
+        void ints(int[] dst, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                need(4);
+                int k = Math.min(n - i, buf.remaining() / 4);
+                buf.asIntBuffer().get(dst, i, k);
+                buf.position(buf.position() + k * 4);
+                i += k;
+                position += 4L * k;
+            }
+            align();
+        }
+
+        void doubles(double[] dst, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                need(8);
+                int k = Math.min(n - i, buf.remaining() / 8);
+                buf.asDoubleBuffer().get(dst, i, k);
+                buf.position(buf.position() + k * 8);
+                i += k;
+                position += 8L * k;
+            }
+        }
+
+        void align() throws IOException {
+            int pad = (int) (-position & 7);
+            if (pad == 0) return;
+            need(pad);
+            buf.position(buf.position() + pad);
+            position += pad;
+        }
+
+        /** Make at least n bytes available, reading more from the channel. */
+        private void need(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            buf.compact();
+            while (buf.position() < n) {
+                if (channel.read(buf) < 0) throw new java.io.EOFException("Truncated " + MAGIC + " file");
+            }
+            buf.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
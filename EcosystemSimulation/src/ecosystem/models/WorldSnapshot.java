@@ -0,0 +1,224 @@
+/**
+ * Array-backed copy of the whole world at the end of one tick, for readers on other
+ * threads (the UI). Organisms are stored column-wise and sorted by id; `get(i)`
+ * materializes a single `OrganismSnapshot` on demand. A per-cell index gives the
+ * top organism of every cell, and the changed-cell list tells a renderer what to repaint.
+ *
+ * Instances are reusable buffers: `capture` refills one in place, so only its owner
+ * (the thread that captures) may call it, and it must not be visible to readers
+ * while that happens. `SimulationLoop` hands buffers over through an atomic reference.
+ */
+package ecosystem.models;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class WorldSnapshot {
+    private long sequence;
+    private long day;
+    private int width;
+    private int height;
+    private int size;
+    private int[] id = new int[0];
+    private byte[] type = new byte[0];
+    private int[] x = new int[0];
+    private int[] y = new int[0];
+    private int[] energy = new int[0];
+    private int[] age = new int[0];
+    // index of the top organism of each cell (y*width+x), -1 if empty
+    private int[] cellTop = new int[0];
+    private final int[] counts = new int[4];
+    // null means "everything changed" (first capture, new grid, ...)
+    private int[] changedCells;
+    private int changedCount;
+    // sort keys used while capturing
+    private long[] order = new long[0];
+
+    /**
+     * Refill this buffer from the grid. Must run on the thread that owns the grid
+     * (between ticks), and `changed` lists the cells changed since the previous
+     * snapshot the reader saw (null: all of them).
+     */
+    public void capture(Grid grid, long sequence, BitSet changed) {
+        this.sequence = sequence;
+        this.day = grid.getDay();
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        int cells = width * height;
+        if (cellTop.length != cells) cellTop = new int[cells];
+        Arrays.fill(cellTop, -1);
+        Arrays.fill(counts, 0);
+
+        // organisms are listed by id: (id << 32 | slot, list or file index) keys, sorted
+        WorldFile.Mapped mapped = grid.getPendingWorld();
+        PopulationStore store = mapped != null ? null : grid.getPopulationStore();
+        java.util.List<Organism> organisms = mapped != null || store != null ? null : grid.organismObjects();
+        PlantField field = organisms == null ? null : grid.getPlantField();
+        int n = 0;
+        if (mapped != null) {
+            // a save file not loaded yet; the first organism of a cell is its top, kept as -(k + 2) until resolved
+            ensureCapacity(mapped.size());
+            for (int k = 0; k < mapped.size(); k++) {
+                order[n++] = ((long) mapped.id(k) << 32) | k;
+                int mx = mapped.x(k), my = mapped.y(k);
+                if (mx >= 0 && mx < width && my >= 0 && my < height && cellTop[my * width + mx] == -1) {
+                    cellTop[my * width + mx] = -(k + 2);
+                }
+            }
+        } else if (store != null) {
+            ensureCapacity(store.size());
+            for (int s = 0; s < store.capacityUsed(); s++) {
+                if (store.isLive(s)) order[n++] = ((long) store.getId(s) << 32) | s;
+            }
+        } else {
+            ensureCapacity(organisms.size() + (field == null ? 0 : field.size()));
+            if (field != null) {
+                // field plants as k = list size + cell; their ids -(cell + 1) come first, in reverse cell order
+                int base = organisms.size(), w = width;
+                long[] keys = order;
+                int[] m = {0};
+                field.forEach((fx, fy) -> {
+                    int c = fy * w + fx;
+                    keys[m[0]++] = ((long) PlantField.idOf(c) << 32) | (base + c);
+                });
+                for (int i = 0, j = m[0] - 1; i < j; i++, j--) {
+                    long t = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = t;
+                }
+                n = m[0];
+            }
+            for (int i = 0; i < organisms.size(); i++) order[n++] = ((long) organisms.get(i).getId() << 32) | i;
+        }
+        if (!isSorted(order, n)) Arrays.sort(order, 0, n);
+        for (int i = 0; i < n; i++) {
+            int k = (int) order[i];
+            boolean top;
+            if (mapped != null) {
+                put(i, mapped.id(k), mapped.type(k), mapped.x(k), mapped.y(k), mapped.energy(k), mapped.age(k));
+                top = x[i] >= 0 && x[i] < width && y[i] >= 0 && y[i] < height && cellTop[y[i] * width + x[i]] == -(k + 2);
+            } else if (store != null) {
+                put(i, store.getId(k), store.getType(k), store.getX(k), store.getY(k), store.getEnergy(k), store.getAge(k));
+                top = store.slotAt(x[i], y[i]) == k;
+            } else if (k >= organisms.size()) {
+                int c = k - organisms.size();
+                int px = c % width, py = c / width;
+                put(i, PlantField.idOf(c), PopulationStore.TYPE_PLANT, px, py, field.energyAt(px, py), field.ageAt(px, py));
+                top = grid.objectAt(px, py) == null;
+            } else {
+                Organism o = organisms.get(k);
+                put(i, o.getId(), typeOf(o), o.getX(), o.getY(), o.getEnergy(), o.getAge());
+                top = grid.inBounds(x[i], y[i]) && grid.getOrganismAt(x[i], y[i]) == o;
+            }
+            if (top) cellTop[y[i] * width + x[i]] = i;
+        }
+        size = n;
+
+        if (changed == null) {
+            changedCells = null;
+            changedCount = 0;
+        } else {
+            if (changedCells == null || changedCells.length < changed.cardinality()) {
+                changedCells = new int[Math.max(16, changed.cardinality())];
+            }
+            int k = 0;
+            for (int c = changed.nextSetBit(0); c >= 0; c = changed.nextSetBit(c + 1)) changedCells[k++] = c;
+            changedCount = k;
+        }
+    }
+
+    public long getSequence() { return sequence; }
+    public long getDay() { return day; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int size() { return size; }
+    public int getId(int i) { return id[i]; }
+    /** One of the PopulationStore.TYPE_* constants. */
+    public int getType(int i) { return type[i]; }
+    public String getTypeName(int i) { return typeName(type[i]); }
+    public int getX(int i) { return x[i]; }
+    public int getY(int i) { return y[i]; }
+    public int getEnergy(int i) { return energy[i]; }
+    public int getAge(int i) { return age[i]; }
+
+    /** Index of the top organism in cell (cx,cy), or -1 (also for out-of-bounds cells). */
+    public int topAt(int cx, int cy) {
+        if (cx < 0 || cx >= width || cy < 0 || cy >= height) return -1;
+        return cellTop[cy * width + cx];
+    }
+
+    /** Index of the organism with this id, or -1. */
+    public int indexOfId(int organismId) {
+        int i = Arrays.binarySearch(id, 0, size, organismId);
+        return i < 0 ? -1 : i;
+    }
+
+    /** Number of organisms of one PopulationStore.TYPE_* type. */
+    public int count(int organismType) { return counts[organismType]; }
+
+    /** Same shape as Grid.counts(): type name -> count, absent types omitted. */
+    public Map<String, Integer> counts() {
+        Map<String, Integer> map = new HashMap<>();
+        for (int t = PopulationStore.TYPE_PLANT; t <= PopulationStore.TYPE_CARNIVORE; t++) {
+            if (counts[t] > 0) map.put(typeName(t), counts[t]);
+        }
+        return map;
+    }
+
+    /** True if every cell should be considered changed (the changed-cell list is then empty). */
+    public boolean isAllChanged() { return changedCells == null; }
+    public int getChangedCount() { return changedCount; }
+    /** i-th changed cell index (y*width+x), ascending. */
+    public int getChangedCell(int i) { return changedCells[i]; }
+
+    public OrganismSnapshot get(int i) {
+        String name = typeName(type[i]);
+        return new OrganismSnapshot(id[i], String.format("%s%08d", name.substring(0, 1), id[i]),
+            name, x[i], y[i], age[i], energy[i], energy[i] > 0);
+    }
+
+    private static boolean isSorted(long[] keys, int n) {
+        for (int i = 1; i < n; i++) {
+            if (keys[i - 1] > keys[i]) return false;
+        }
+        return true;
+    }
+
+    private void put(int i, int oid, int t, int ox, int oy, int e, int a) {
+        id[i] = oid;
+        type[i] = (byte) t;
+        x[i] = ox;
+        y[i] = oy;
+        energy[i] = e;
+        age[i] = a;
+        counts[t]++;
+    }
+
+    private void ensureCapacity(int n) {
+        if (id.length >= n) return;
+        int cap = Math.max(n, id.length * 3 / 2);
+        id = Arrays.copyOf(id, cap);
+        type = Arrays.copyOf(type, cap);
+        x = Arrays.copyOf(x, cap);
+        y = Arrays.copyOf(y, cap);
+        energy = Arrays.copyOf(energy, cap);
+        age = Arrays.copyOf(age, cap);
+        order = Arrays.copyOf(order, cap);
+    }
+
+    private static int typeOf(Organism o) {
+        if (o instanceof Plant) return PopulationStore.TYPE_PLANT;
+        return o instanceof Carnivore ? PopulationStore.TYPE_CARNIVORE : PopulationStore.TYPE_HERBIVORE;
+    }
+
+    private static String typeName(int t) {
+        switch (t) {
+            case PopulationStore.TYPE_PLANT: return "Plant";
+            case PopulationStore.TYPE_HERBIVORE: return "Herbivore";
+            case PopulationStore.TYPE_CARNIVORE: return "Carnivore";
+            default: return "?";
+        }
+    }
+}
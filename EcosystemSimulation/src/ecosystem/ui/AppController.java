@@ -3,6 +3,7 @@ package ecosystem.ui;
 import javafx.scene.image.Image;
 import ecosystem.Settings;
 import ecosystem.logic.SimulationEngine;
+import ecosystem.logic.SimulationLoop;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -10,62 +11,157 @@ import java.util.Map;
 public class AppController {
     private Settings settings;
     private SimulationEngine engine;
+    // Ticks the engine off the FX thread; the UI reads the snapshots it publishes
+    private SimulationLoop loop;
     private SelectionManager selectionManager;
     private Map<String, Image> iconMap = new HashMap<>();
     private Image gridBackgroundImage;
     private Image simRootBackgroundImage;
     private boolean useImageBackground = false;
     private boolean darkTheme = false;
+    // Which terrain map (derived from the settings seed) is installed; bumped by "Regenerate Environment"
+    private long terrainVariant = 0;
+    // Phase timings requested from the stats overlay; carried over to every new engine
+    private boolean instrumented = false;
 
     public AppController() {
         this.settings = new Settings();
         this.engine = new SimulationEngine(settings);
+        recordReplay(engine);
+        recordMetrics(engine);
+        this.loop = new SimulationLoop(engine);
         this.selectionManager = new SelectionManager();
     }
 
-    public void setSettings(Settings s) { this.settings = s; }
+    public void setSettings(Settings s) {
+        this.settings = s;
+        this.terrainVariant = 0;
+    }
+
+    /** Seed for the current terrain map, derived from the settings seed. */
+    public long getTerrainSeed() {
+        return ecosystem.models.RandomStreams.derive(settings.getSeed(), terrainVariant, ecosystem.models.RandomStreams.LANE_TERRAIN);
+    }
+
+    /** Switch to the next terrain variant of the current seed and return its seed. */
+    public long nextTerrainSeed() {
+        terrainVariant++;
+        if (engine != null && engine.getCheckpointer() != null) engine.getCheckpointer().setTerrainVariant(terrainVariant);
+        return getTerrainSeed();
+    }
+
+    public void setEngine(SimulationEngine e) {
+        if (this.engine == e) return;
+        // the old grid must not be ticking while it shuts down (an off-heap store gives its
+        // native memory back there)
+        loop.pause();
+        if (this.engine != null) this.engine.shutdown();
+        this.engine = e;
+        if (e != null) {
+            if (e.getCheckpointer() != null) e.getCheckpointer().setTerrainVariant(terrainVariant);
+            recordReplay(e);
+            recordMetrics(e);
+            if (instrumented) e.enableInstrumentation("gui");
+        }
+        loop.setEngine(e);
+    }
 
-    public void setEngine(SimulationEngine e) { this.engine = e; }
+    /** Keep a bounded in-memory recording of every engine shown, for the timeline scrubber. */
+    private static void recordReplay(SimulationEngine e) {
+        if (e.getReplay() == null) {
+            e.enableReplay(ecosystem.logic.ReplayRecorder.DEFAULT_KEYFRAME_EVERY, ecosystem.logic.ReplayRecorder.DEFAULT_BUDGET_BYTES);
+        }
+    }
+
+    /** Keep the population series of every engine shown, for the chart and the CSV export. */
+    private static void recordMetrics(SimulationEngine e) {
+        if (e.getMetrics() == null) e.enableMetrics(ecosystem.logic.PopulationMetrics.DEFAULT_CAPACITY);
+    }
+
+    public boolean isInstrumented() { return instrumented; }
+
+    /** Turn the phase timings of the current and all later engines on or off. */
+    public void setInstrumented(boolean on) {
+        instrumented = on;
+        // switch between days: a day timed from its middle would add the clock itself
+        boolean resume = loop.isPlaying();
+        loop.pause();
+        try {
+            if (on) engine.enableInstrumentation("gui");
+            else engine.disableInstrumentation();
+        } finally {
+            if (resume) loop.play();
+        }
+    }
 
-    /** Save current simulation state to a plain text file. */
+    /** Write the population series of the current run as CSV. */
+    public void exportMetrics(java.io.File f) throws java.io.IOException {
+        ecosystem.logic.PopulationMetrics m = engine.getMetrics();
+        if (m == null) throw new java.io.IOException("No population metrics recorded");
+        m.writeCsv(f.toPath());
+    }
+
+    /** Save the current simulation state (settings, terrain and every organism) as an ECO_SIM_V2 file. */
     public void saveToFile(java.io.File f) throws java.io.IOException {
-        try (java.io.BufferedWriter w = new java.io.BufferedWriter(new java.io.FileWriter(f))) {
-            w.write("ECO_SIM_V1\n");
-            // settings (only a few keys necessary)
-            w.write("gridWidth=" + settings.getGridWidth() + "\n");
-            w.write("gridHeight=" + settings.getGridHeight() + "\n");
-            w.write("initialPlants=" + settings.getInitialPlants() + "\n");
-            w.write("initialHerbivores=" + settings.getInitialHerbivores() + "\n");
-            w.write("initialCarnivores=" + settings.getInitialCarnivores() + "\n");
-            w.write("herbivoreMoveCost=" + settings.getHerbivoreMoveCost() + "\n");
-            w.write("herbivoreEatGain=" + settings.getHerbivoreEatGain() + "\n");
-            w.write("carnivoreMoveCost=" + settings.getCarnivoreMoveCost() + "\n");
-            w.write("carnivoreEatGain=" + settings.getCarnivoreEatGain() + "\n");
-            w.write("plantEnergy=" + settings.getPlantEnergy() + "\n");
-            w.write("plantGrowRate=" + settings.getPlantGrowRate() + "\n");
-            w.write("\n");
-            // engine state
-            w.write("day=" + engine.getDay() + "\n");
-            w.write("\n");
-            // organisms: type,x,y,energy,age
-            for (ecosystem.models.Organism o : engine.getGrid().getOrganisms()) {
-                String line = String.join(",",
-                    o.getType(),
-                    Integer.toString(o.getX()),
-                    Integer.toString(o.getY()),
-                    Integer.toString(o.getEnergy()),
-                    Integer.toString(o.getAge())
-                );
-                w.write(line + "\n");
-            }
+        // the world must hold still while it is written; resume afterwards
+        boolean resume = loop.isPlaying();
+        loop.pause();
+        try {
+            ecosystem.models.WorldFile.write(f.toPath(), settings, engine.getGrid(), engine.getDay(), terrainVariant);
+        } finally {
+            if (resume) loop.play();
         }
     }
 
-    /** Load simulation state from a file previously written by saveToFile. */
+    /** Load simulation state from an ECO_SIM_V2 file, or import an older ECO_SIM_V1 text file. */
     public void loadFromFile(java.io.File f) throws java.io.IOException {
+        if (!ecosystem.models.WorldFile.isWorldFile(f.toPath())) {
+            importV1(f);
+            return;
+        }
+        // Map the organism columns: the world is shown straight from the file and only
+        // turned into organisms when it is first stepped. Stream it in if mapping fails.
+        ecosystem.models.Grid g;
+        Settings s;
+        long variant;
+        try {
+            ecosystem.models.WorldFile.Mapped world = ecosystem.models.WorldFile.Mapped.open(f.toPath());
+            g = ecosystem.models.WorldFile.mappedGrid(world);
+            s = world.getSettings();
+            variant = world.getTerrainVariant();
+        } catch (UnsupportedOperationException | java.io.IOException ex) {
+            try (ecosystem.models.WorldFile.Reader in = ecosystem.models.WorldFile.Reader.open(f.toPath())) {
+                g = ecosystem.models.WorldFile.readGrid(in);
+                s = in.getSettings();
+                variant = in.getTerrainVariant();
+            }
+        }
+        SimulationEngine e = new SimulationEngine(s, g);
+        e.setDay((int) g.getDay());
+        this.setSettings(s);
+        this.terrainVariant = variant;
+        this.setEngine(e);
+    }
+
+    /** Continue a run from a checkpoint directory: its newest checkpoint plus the journaled days after it. */
+    public ecosystem.logic.Checkpointer.Recovery recoverFrom(java.io.File dir) throws java.io.IOException {
+        ecosystem.logic.Checkpointer.Recovery r = ecosystem.logic.Checkpointer.recover(dir.toPath());
+        SimulationEngine e = r.newEngine(false);
+        this.setSettings(r.getSettings());
+        this.terrainVariant = r.getTerrainVariant();
+        this.setEngine(e);
+        return r;
+    }
+
+    /**
+     * Import a V1 text save: settings subset, day and type,x,y,energy,age lines.
+     * V1 files carry no terrain, ids or individual parameters; those come from the settings.
+     */
+    private void importV1(java.io.File f) throws java.io.IOException {
         java.util.List<String> lines = java.nio.file.Files.readAllLines(f.toPath());
         if (lines.isEmpty() || !lines.get(0).startsWith("ECO_SIM_V1")) throw new java.io.IOException("Unsupported save format");
         Settings s = new Settings();
+        long variant = 0;
         int idx = 1;
         // parse settings until blank line
         for (; idx < lines.size(); idx++) {
@@ -86,6 +182,8 @@ public class AppController {
                 case "carnivoreEatGain": s.setCarnivoreEatGain(Integer.parseInt(v)); break;
                 case "plantEnergy": s.setPlantEnergy(Integer.parseInt(v)); break;
                 case "plantGrowRate": s.setPlantGrowRate(Double.parseDouble(v)); break;
+                case "seed": s.setSeed(Long.parseLong(v)); break;
+                case "terrainVariant": variant = Long.parseLong(v); break;
             }
         }
         // parse day
@@ -145,11 +243,13 @@ public class AppController {
         e.setDay(day);
         // apply new settings and engine
         this.setSettings(s);
+        this.terrainVariant = variant;
         this.setEngine(e);
     }
 
     public Settings getSettings() { return settings; }
     public SimulationEngine getEngine() { return engine; }
+    public SimulationLoop getLoop() { return loop; }
     public SelectionManager getSelectionManager() { return selectionManager; }
     public Map<String, Image> getIconMap() { return iconMap; }
 
@@ -165,6 +265,6 @@ public class AppController {
     public void setDarkTheme(boolean v) { this.darkTheme = v; }
 
     public void resetEngine() {
-        this.engine = new SimulationEngine(settings);
+        setEngine(new SimulationEngine(settings));
     }
 }
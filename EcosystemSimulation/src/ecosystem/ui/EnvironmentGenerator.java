@@ -1,118 +1,119 @@
 /**
- * Generates per-cell environment maps (colors + terrain) used for
- * background rendering and terrain constraints.
+ * Generates per-cell environment maps (terrain + colors) used for terrain
+ * constraints and background rendering. The terrain itself comes from the
+ * headless `TerrainGenerator`; the colors are only computed when first drawn.
  */
 package ecosystem.ui;
 
 import javafx.scene.paint.Color;
 
 import ecosystem.models.Grid;
+import ecosystem.models.RandomStreams;
+import ecosystem.models.TerrainGenerator;
+
+import java.util.stream.IntStream;
 
 public class EnvironmentGenerator {
 
-    /** Container for both the rendered color map and the logical terrain map. */
+    /** The logical terrain map of a grid plus its rendered colors, built lazily. */
     public static class EnvironmentData {
-        public final Color[][] colors;
-        public final int[][] terrain;
-
-        public EnvironmentData(Color[][] colors, int[][] terrain) {
-            this.colors = colors;
+        public final int cols;
+        public final int rows;
+        /** TERRAIN_* code per cell (y*cols+x), for Grid.setTerrainCells. */
+        public final byte[] terrain;
+        private final TerrainGenerator.Terrain map;
+        private int[] argb;
+
+        private EnvironmentData(TerrainGenerator.Terrain map, byte[] terrain) {
+            this.cols = map.width;
+            this.rows = map.height;
+            this.map = map;
             this.terrain = terrain;
         }
-    }
-
-    /**
-     * Generate both a visual environment map (colors) and a logical terrain
-     * classification for each cell. Terrain types follow Grid.TERRAIN_* constants.
-     */
-    public static EnvironmentData generateEnvironment(int cols, int rows) {
-        if (cols <= 0 || rows <= 0) {
-            return new EnvironmentData(new Color[0][0], new int[0][0]);
-        }
 
-        double[][] noise = new double[cols][rows];
-        java.util.Random rnd = new java.util.Random(System.currentTimeMillis());
-        for (int x = 0; x < cols; x++) {
-            for (int y = 0; y < rows; y++) {
-                noise[x][y] = rnd.nextDouble();
-            }
+        /** Same elevation shading, but colors that follow another terrain map (e.g. one loaded from a file). */
+        public EnvironmentData withTerrain(byte[] cells) {
+            if (cells == null || cells == terrain || cells.length != terrain.length) return this;
+            return new EnvironmentData(map, cells);
         }
 
-        int smoothPasses = 4;
-        for (int pass = 0; pass < smoothPasses; pass++) {
-            double[][] tmp = new double[cols][rows];
-            for (int x = 0; x < cols; x++) {
-                for (int y = 0; y < rows; y++) {
-                    double sum = 0; int cnt = 0;
-                    for (int dx = -1; dx <= 1; dx++) {
-                        for (int dy = -1; dy <= 1; dy++) {
-                            int nx = x + dx, ny = y + dy;
-                            if (nx >= 0 && nx < cols && ny >= 0 && ny < rows) { sum += noise[nx][ny]; cnt++; }
-                        }
-                    }
-                    tmp[x][y] = sum / Math.max(1, cnt);
-                }
-            }
-            noise = tmp;
+        /** Colors as opaque ARGB per cell (y*cols+x); computed on the first call. */
+        public synchronized int[] argb() {
+            if (argb == null) argb = shade(map, terrain);
+            return argb;
         }
 
-        double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
-        for (int x = 0; x < cols; x++) {
-            for (int y = 0; y < rows; y++) {
-                min = Math.min(min, noise[x][y]);
-                max = Math.max(max, noise[x][y]);
-            }
+        public Color colorAt(int x, int y) {
+            int p = argb()[y * cols + x];
+            return Color.rgb((p >> 16) & 0xff, (p >> 8) & 0xff, p & 0xff);
         }
-        double range = Math.max(1e-6, max - min);
-
-        Color[][] colors = new Color[cols][rows];
-        int[][] terrain = new int[cols][rows];
+    }
 
-        for (int x = 0; x < cols; x++) {
-            for (int y = 0; y < rows; y++) {
-                double v = (noise[x][y] - min) / range;
-                v = Math.pow(v, 1.0 + rnd.nextDouble() * 0.4);
+    /**
+     * Generate a terrain classification for each cell, with its colors to come.
+     * Terrain types follow Grid.TERRAIN_* constants.
+     */
+    public static EnvironmentData generateEnvironment(int cols, int rows) {
+        return generateEnvironment(cols, rows, System.nanoTime());
+    }
 
-                Color c;
-                int terr;
+    /** Same as {@link #generateEnvironment(int, int)} but reproducible: equal seeds give equal maps. */
+    public static EnvironmentData generateEnvironment(int cols, int rows, long seed) {
+        TerrainGenerator.Terrain map = TerrainGenerator.generate(cols, rows, seed);
+        return new EnvironmentData(map, map.cells);
+    }
 
-                // Same visual thresholds as before, but also assign terrain type
-                if (v < 0.25) {
-                    // Deep/shallow water (biển, hồ)
-                    double t = v / 0.25;
-                    c = Color.color(0.02 + 0.05 * t, 0.15 + 0.25 * t, 0.5 + 0.4 * t);
-                    terr = Grid.TERRAIN_WATER;
-                } else if (v < 0.35) {
-                    // Sand / beach
-                    double t = (v - 0.25) / 0.10;
-                    c = Color.color(0.76 + 0.10 * t, 0.70 + 0.08 * t, 0.50 + 0.02 * t);
-                    terr = Grid.TERRAIN_SAND;
-                } else if (v < 0.75) {
-                    // Grassland (vùng màu xanh có cỏ)
-                    double t = (v - 0.35) / 0.40;
-                    c = Color.color(0.30 + 0.30 * t, 0.54 + 0.28 * t, 0.20 + 0.10 * t);
-                    terr = Grid.TERRAIN_GRASS;
-                } else {
-                    // Rock / mountain
-                    double t = Math.min(1.0, (v - 0.75) / 0.25);
-                    c = Color.color(0.50 + 0.25 * t, 0.45 + 0.25 * t, 0.36 + 0.24 * t);
-                    terr = Grid.TERRAIN_ROCK;
-                }
+    private static int[] shade(TerrainGenerator.Terrain map, byte[] terrain) {
+        int cols = map.width;
+        int[] argb = new int[terrain.length];
+        long colorKey = RandomStreams.derive(map.seed, -1, RandomStreams.LANE_TERRAIN);
+        IntStream.range(0, map.height).parallel().forEach(y -> {
+            for (int c = y * cols; c < (y + 1) * cols; c++) {
+                // slight per-cell brightness noise so flat areas do not look painted
+                double n = ((RandomStreams.derive(colorKey, c, 0) >>> 40) * 0x1.0p-24 - 0.5) * 0.06;
+                argb[c] = color(terrain[c], map.elevation[c], n);
+            }
+        });
+        return argb;
+    }
 
-                double n = (rnd.nextDouble() - 0.5) * 0.06;
-                double r = Math.max(0, Math.min(1, c.getRed() + n));
-                double g = Math.max(0, Math.min(1, c.getGreen() + n));
-                double b = Math.max(0, Math.min(1, c.getBlue() + n));
-                colors[x][y] = Color.color(r, g, b);
-                terrain[x][y] = terr;
+    /** Color of a cell from its terrain and where its elevation lies in that terrain's band. */
+    private static int color(int terr, float v, double n) {
+        double r, g, b;
+        switch (terr) {
+            case Grid.TERRAIN_WATER: {
+                // Deep/shallow water (biển, hồ)
+                double t = band(v, 0, TerrainGenerator.SAND_LEVEL);
+                r = 0.02 + 0.05 * t; g = 0.15 + 0.25 * t; b = 0.5 + 0.4 * t;
+                break;
+            }
+            case Grid.TERRAIN_SAND: {
+                // Sand / beach
+                double t = band(v, TerrainGenerator.SAND_LEVEL, TerrainGenerator.GRASS_LEVEL);
+                r = 0.76 + 0.10 * t; g = 0.70 + 0.08 * t; b = 0.50 + 0.02 * t;
+                break;
+            }
+            case Grid.TERRAIN_ROCK: {
+                // Rock / mountain
+                double t = band(v, TerrainGenerator.ROCK_LEVEL, 1);
+                r = 0.50 + 0.25 * t; g = 0.45 + 0.25 * t; b = 0.36 + 0.24 * t;
+                break;
+            }
+            default: {
+                // Grassland (vùng màu xanh có cỏ)
+                double t = band(v, TerrainGenerator.GRASS_LEVEL, TerrainGenerator.ROCK_LEVEL);
+                r = 0.30 + 0.30 * t; g = 0.54 + 0.28 * t; b = 0.20 + 0.10 * t;
             }
         }
+        return 0xff000000 | channel(r + n) << 16 | channel(g + n) << 8 | channel(b + n);
+    }
 
-        return new EnvironmentData(colors, terrain);
+    /** Position of v within [lo, hi), clamped: a loaded terrain may disagree with the elevation. */
+    private static double band(float v, double lo, double hi) {
+        return Math.max(0, Math.min(1, (v - lo) / (hi - lo)));
     }
 
-    /** Backwards-compatible helper for callers that only need colors. */
-    public static Color[][] generateEnvMap(int cols, int rows) {
-        return generateEnvironment(cols, rows).colors;
+    private static int channel(double v) {
+        return (int) Math.round(Math.max(0, Math.min(1, v)) * 255);
     }
 }
@@ -0,0 +1,281 @@
+/**
+ * Incremental renderer for the main simulation canvas.
+ * The background (terrain colors, the custom grid image or the fallback gradient) is
+ * prebuilt into a `WritableImage` once per terrain. Each animation pulse takes the newest
+ * `WorldSnapshot` from the simulation loop and repaints only the cells it lists as changed;
+ * the grid itself is never read here, since it is being ticked on another thread.
+ * A small overlay shows the time spent per frame, the repainted cells and the frame rate.
+ */
+package ecosystem.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import ecosystem.models.WorldSnapshot;
+
+public final class GridRenderer {
+    private static final Color GRID_LINE = Color.web("#e8e8e8", 0.9);
+    private static final Color PLANT_BORDER = Color.web("#004d00", 0.6);
+    // Overlay text is refreshed a few times per second, not every pulse
+    private static final long OVERLAY_INTERVAL_NS = 250_000_000L;
+
+    private final AppController controller;
+    private final Canvas canvas;
+    private final Label overlay;
+    private final StackPane root;
+    private final AnimationTimer timer;
+    // called on the FX thread with every newly adopted snapshot
+    private java.util.function.Consumer<WorldSnapshot> onSnapshot;
+    private long shownSequence = -1;
+
+    private EnvironmentGenerator.EnvironmentData envMap;
+    // Background source and what it was built from; rebuilt when any of these change
+    private Image background;
+    private Object backgroundKey;
+    private int backgroundCols, backgroundRows;
+    private boolean fullRedraw = true;
+    private final java.util.BitSet dirty = new java.util.BitSet();
+    private int highlightedCell = -1;
+
+    // frame statistics for the overlay
+    private long lastPulse;
+    private long lastOverlay;
+    private long frameNanos;
+    private int frames;
+    private int repainted;
+
+    public GridRenderer(AppController controller, Canvas canvas) {
+        this.controller = controller;
+        this.canvas = canvas;
+        overlay = new Label();
+        overlay.setStyle("-fx-background-color: rgba(0,0,0,0.55); -fx-text-fill: white; -fx-font-size: 11; -fx-padding: 2 6 2 6;");
+        overlay.setMouseTransparent(true);
+        root = new StackPane(canvas, overlay);
+        StackPane.setAlignment(overlay, Pos.TOP_LEFT);
+        StackPane.setMargin(overlay, new Insets(4));
+        canvas.widthProperty().addListener((o, oldV, newV) -> invalidateAll());
+        canvas.heightProperty().addListener((o, oldV, newV) -> invalidateAll());
+        timer = new AnimationTimer() {
+            @Override public void handle(long now) { pulse(now); }
+        };
+    }
+
+    public StackPane getRoot() { return root; }
+    public void start() { timer.start(); }
+    public void stop() { timer.stop(); }
+    public void setOnSnapshot(java.util.function.Consumer<WorldSnapshot> handler) { this.onSnapshot = handler; }
+
+    /** Install the environment whose colors form the background (may be null); rebuilt on the next frame. */
+    public void setEnvironment(EnvironmentGenerator.EnvironmentData envMap) {
+        this.envMap = envMap;
+        invalidateAll();
+    }
+
+    /** Repaint the whole canvas on the next frame (new grid, theme or background change). */
+    public void invalidateAll() {
+        fullRedraw = true;
+    }
+
+    private void pulse(long now) {
+        long start = System.nanoTime();
+        WorldSnapshot snap = controller.getLoop().poll();
+        if (snap.getSequence() != shownSequence) {
+            adopt(snap);
+            if (onSnapshot != null) onSnapshot.accept(snap);
+        }
+        int painted = render(snap);
+        if (painted > 0) {
+            frameNanos += System.nanoTime() - start;
+            frames++;
+            repainted += painted;
+        }
+        if (lastPulse == 0) lastOverlay = now;
+        lastPulse = now;
+        if (now - lastOverlay >= OVERLAY_INTERVAL_NS) {
+            double seconds = (now - lastOverlay) / 1e9;
+            overlay.setText(frames == 0 ? "idle"
+                : String.format("frame %.2f ms | %d cells | %.0f fps",
+                    frameNanos / 1e6 / frames, repainted / frames, frames / seconds));
+            frameNanos = 0;
+            frames = 0;
+            repainted = 0;
+            lastOverlay = now;
+        }
+    }
+
+    /** Queue the cells changed in a newly adopted snapshot (all of them if it says so). */
+    private void adopt(WorldSnapshot snap) {
+        shownSequence = snap.getSequence();
+        if (snap.isAllChanged()) {
+            fullRedraw = true;
+            return;
+        }
+        for (int i = 0; i < snap.getChangedCount(); i++) dirty.set(snap.getChangedCell(i));
+    }
+
+    /** Paint what changed since the last frame; returns the number of cells painted. */
+    private int render(WorldSnapshot snap) {
+        int cols = snap.getWidth();
+        int rows = snap.getHeight();
+        if (cols <= 0 || rows <= 0) return 0;
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.setImageSmoothing(false);
+        double w = canvas.getWidth() / cols;
+        double h = canvas.getHeight() / rows;
+        ensureBackground(cols, rows);
+
+        // the selection outline spills over the neighbors, so repaint around the old and new one
+        int selectedCell = selectedCell(snap);
+        if (selectedCell != highlightedCell) {
+            markAround(highlightedCell, cols, rows);
+            markAround(selectedCell, cols, rows);
+        }
+
+        int painted;
+        if (fullRedraw) {
+            drawBackground(g, cols, rows, 0, 0, cols, rows, w, h);
+            for (int y = 0; y < rows; y++) {
+                for (int x = 0; x < cols; x++) drawOrganism(g, snap, snap.topAt(x, y), x, y, w, h);
+            }
+            painted = cols * rows;
+            fullRedraw = false;
+        } else {
+            painted = 0;
+            int limit = cols * rows;
+            for (int c = dirty.nextSetBit(0); c >= 0 && c < limit; c = dirty.nextSetBit(c + 1)) {
+                int x = c % cols, y = c / cols;
+                drawBackground(g, cols, rows, x, y, 1, 1, w, h);
+                drawOrganism(g, snap, snap.topAt(x, y), x, y, w, h);
+                painted++;
+            }
+        }
+        dirty.clear();
+
+        highlightedCell = selectedCell;
+        if (selectedCell >= 0 && painted > 0) {
+            // If an organism is selected, just highlight it. The detail text is managed
+            // centrally via RightPanel (through updateDetail.run()).
+            g.setStroke(Color.BLACK);
+            g.setLineWidth(Math.max(1, Math.min(4, (float) (Math.min(w, h) * 0.08))));
+            g.strokeRect((selectedCell % cols) * w, (selectedCell / cols) * h, w, h);
+        }
+        return painted;
+    }
+
+    private int selectedCell(WorldSnapshot snap) {
+        Integer selId = controller.getSelectionManager().getSelectedIdProperty().get();
+        if (selId == null) return -1;
+        int i = snap.indexOfId(selId);
+        if (i < 0) return -1;
+        int x = snap.getX(i), y = snap.getY(i);
+        return x < 0 || x >= snap.getWidth() || y < 0 || y >= snap.getHeight() ? -1 : y * snap.getWidth() + x;
+    }
+
+    private void markAround(int cell, int cols, int rows) {
+        if (cell < 0) return;
+        int cx = cell % cols, cy = cell / cols;
+        for (int y = Math.max(0, cy - 1); y <= Math.min(rows - 1, cy + 1); y++) {
+            for (int x = Math.max(0, cx - 1); x <= Math.min(cols - 1, cx + 1); x++) dirty.set(y * cols + x);
+        }
+    }
+
+    /** Background for a block of cells, plus the subtle grid lines on their left/top edges. */
+    private void drawBackground(GraphicsContext g, int cols, int rows, int x0, int y0, int nx, int ny, double w, double h) {
+        double sx = background.getWidth() / cols, sy = background.getHeight() / rows;
+        g.drawImage(background, x0 * sx, y0 * sy, nx * sx, ny * sy, x0 * w, y0 * h, nx * w, ny * h);
+        g.setStroke(GRID_LINE);
+        g.setLineWidth(0.6);
+        for (int x = Math.max(1, x0); x < x0 + nx; x++) {
+            g.strokeLine(x * w + 0.5, y0 * h, x * w + 0.5, (y0 + ny) * h);
+        }
+        for (int y = Math.max(1, y0); y < y0 + ny; y++) {
+            g.strokeLine(x0 * w, y * h + 0.5, (x0 + nx) * w, y * h + 0.5);
+        }
+    }
+
+    private void drawOrganism(GraphicsContext g, WorldSnapshot snap, int top, int x, int y, double w, double h) {
+        if (top < 0) return;
+        String name = snap.getTypeName(top);
+        Image img = controller.getIconMap().get(name);
+        if (img != null) {
+            g.drawImage(img, x * w, y * h, w, h);
+        } else {
+            switch (name) {
+                case "Plant": g.setFill(Color.web("#7fbf7f")); break;
+                case "Herbivore": g.setFill(Color.web("#ffb84d")); break;
+                case "Carnivore": g.setFill(Color.web("#ff6b6b")); break;
+                default: g.setFill(Color.BLACK); break;
+            }
+            g.fillRect(x * w, y * h, w, h);
+        }
+        // Always draw a white border around animals (Herbivore, Carnivore)
+        if ("Herbivore".equals(name) || "Carnivore".equals(name)) {
+            g.setStroke(Color.WHITE);
+            double borderWidth = Math.max(1, Math.min(3, Math.min(w, h) * 0.15));
+            g.setLineWidth(borderWidth);
+            double inset = borderWidth * 0.5;
+            g.strokeRect(x * w + inset, y * h + inset, w - 2 * inset, h - 2 * inset);
+        }
+
+        if ("Plant".equals(name)) {
+            // For plants, draw a semi-transparent dark green border
+            g.setStroke(PLANT_BORDER);
+            double borderWidth = Math.max(1, Math.min(2, Math.min(w, h) * 0.1));
+            g.setLineWidth(borderWidth);
+            double inset = borderWidth * 0.5;
+            g.strokeRect(x * w + inset, y * h + inset, w - 2 * inset, h - 2 * inset);
+        }
+    }
+
+    /** (Re)build the background image if its source changed; forces a full redraw when it does. */
+    private void ensureBackground(int cols, int rows) {
+        // null: the fallback gradient, which depends on the size alone
+        Object key = null;
+        if (controller.isUseImageBackground() && controller.getGridBackgroundImage() != null) {
+            key = controller.getGridBackgroundImage();
+        } else if (envMap != null && envMap.cols == cols && envMap.rows == rows) {
+            key = envMap;
+        }
+        if (background != null && key == backgroundKey && cols == backgroundCols && rows == backgroundRows) return;
+        if (key instanceof Image) {
+            background = (Image) key;
+        } else if (key != null) {
+            WritableImage img = new WritableImage(cols, rows);
+            img.getPixelWriter().setPixels(0, 0, cols, rows, PixelFormat.getIntArgbInstance(), envMap.argb(), 0, cols);
+            background = img;
+        } else {
+            background = fallbackBackground(cols, rows);
+        }
+        backgroundKey = key;
+        backgroundCols = cols;
+        backgroundRows = rows;
+        fullRedraw = true;
+    }
+
+    /** Fallback when no terrain colors are available: the diagonal gradient with a soft vignette, per cell. */
+    private static WritableImage fallbackBackground(int cols, int rows) {
+        Color from = Color.web("#f7fbf9"), to = Color.web("#eef6ef");
+        WritableImage img = new WritableImage(cols, rows);
+        PixelWriter pw = img.getPixelWriter();
+        double radius = Math.max(cols, rows) * 0.7;
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                double t = (x / (double) Math.max(1, cols - 1) + y / (double) Math.max(1, rows - 1)) / 2;
+                double dist = Math.hypot(x - cols / 2.0, y - rows / 2.0) / radius;
+                double shade = 1 - 0.06 * Math.min(1, dist);
+                Color c = from.interpolate(to, t);
+                pw.setColor(x, y, Color.color(c.getRed() * shade, c.getGreen() * shade, c.getBlue() * shade));
+            }
+        }
+        return img;
+    }
+}
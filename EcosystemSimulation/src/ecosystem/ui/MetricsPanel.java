@@ -0,0 +1,110 @@
+/**
+ * Live population chart: one line per species for the series picked in the selector,
+ * drawn from the current engine's `PopulationMetrics`.
+ */
+package ecosystem.ui;
+
+import javafx.geometry.Insets;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import ecosystem.logic.PopulationMetrics;
+import ecosystem.models.PopulationStore;
+
+public class MetricsPanel {
+    private static final String[] SERIES_NAMES = {"Count", "Total energy", "Mean energy", "Births / spread per day", "Deaths per day", "Kills per day"};
+    private static final int[] TYPES = {PopulationStore.TYPE_PLANT, PopulationStore.TYPE_HERBIVORE, PopulationStore.TYPE_CARNIVORE};
+    // same colors as the legend in RightPanel
+    private static final Color[] COLORS = {Color.web("#7fbf7f"), Color.DARKGRAY, Color.BLACK};
+
+    private final AppController controller;
+    private final VBox root;
+    private final Canvas canvas;
+    private final ChoiceBox<String> seriesBox;
+    private final Label rangeLabel;
+    // what was drawn last, so unchanged series are not redrawn on every snapshot
+    private PopulationMetrics drawnMetrics;
+    private long drawnVersion = -1;
+    private long[] days = new long[0];
+    private double[][] values = new double[TYPES.length][0];
+
+    public MetricsPanel(AppController controller) {
+        this.controller = controller;
+        root = new VBox(6);
+        root.setPadding(new Insets(0, 8, 8, 8));
+
+        seriesBox = new ChoiceBox<>();
+        seriesBox.getItems().addAll(SERIES_NAMES);
+        seriesBox.getSelectionModel().select(0);
+        seriesBox.setOnAction(e -> redraw());
+
+        canvas = new Canvas(160, 120);
+        canvas.widthProperty().bind(root.widthProperty().subtract(16));
+        canvas.widthProperty().addListener((o, oldV, newV) -> redraw());
+        rangeLabel = new Label();
+
+        root.getChildren().addAll(new Label("Population"), seriesBox, canvas, rangeLabel);
+        redraw();
+    }
+
+    public VBox getRoot() { return root; }
+
+    /** Redraw if the engine recorded new samples since the last call. */
+    public void refresh() {
+        PopulationMetrics m = controller.getEngine().getMetrics();
+        if (m == drawnMetrics && (m == null || m.getVersion() == drawnVersion)) return;
+        redraw();
+    }
+
+    private void redraw() {
+        PopulationMetrics m = controller.getEngine().getMetrics();
+        drawnMetrics = m;
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        double w = canvas.getWidth(), h = canvas.getHeight();
+        g.setFill(Color.WHITE);
+        g.fillRect(0, 0, w, h);
+        g.setStroke(Color.LIGHTGRAY);
+        g.strokeRect(0.5, 0.5, w - 1, h - 1);
+        if (m == null) {
+            drawnVersion = -1;
+            rangeLabel.setText("");
+            return;
+        }
+        drawnVersion = m.getVersion();
+        int series = Math.max(0, seriesBox.getSelectionModel().getSelectedIndex());
+        if (days.length < m.getCapacity()) {
+            days = new long[m.getCapacity()];
+            values = new double[TYPES.length][m.getCapacity()];
+        }
+        int n = 0;
+        double max = 0;
+        for (int k = 0; k < TYPES.length; k++) {
+            n = m.copy(TYPES[k], series, days, values[k]);
+            for (int i = 0; i < n; i++) max = Math.max(max, values[k][i]);
+        }
+        if (n == 0) {
+            rangeLabel.setText("No days recorded yet");
+            return;
+        }
+        long first = days[0], last = days[n - 1];
+        double span = Math.max(1, last - first);
+        double top = max > 0 ? max : 1;
+        g.setLineWidth(1.5);
+        for (int k = 0; k < TYPES.length; k++) {
+            g.setStroke(COLORS[k]);
+            g.beginPath();
+            for (int i = 0; i < n; i++) {
+                double px = 1 + (w - 2) * (days[i] - first) / span;
+                double py = h - 1 - (h - 2) * values[k][i] / top;
+                if (i == 0) g.moveTo(px, py);
+                else g.lineTo(px, py);
+            }
+            g.stroke();
+        }
+        rangeLabel.setText(String.format("Days %d-%d, max %s", first, last,
+            max == Math.rint(max) ? Long.toString((long) max) : String.format("%.1f", max)));
+    }
+}
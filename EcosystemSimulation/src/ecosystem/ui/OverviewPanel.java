@@ -14,7 +14,7 @@ import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import ecosystem.models.Organism;
+import ecosystem.models.WorldSnapshot;
 
 public class OverviewPanel {
     private final AppController controller;
@@ -73,11 +73,13 @@ public class OverviewPanel {
         drawOverview();
     }
 
+    /** Redraw the mini-map from the snapshot the UI currently shows. */
     public void drawOverview() {
-        if (overviewCanvas == null || controller.getEngine() == null) return;
+        if (overviewCanvas == null) return;
+        WorldSnapshot snap = controller.getLoop().current();
         GraphicsContext g = overviewCanvas.getGraphicsContext2D();
-        int cols = controller.getEngine().getGrid().getWidth();
-        int rows = controller.getEngine().getGrid().getHeight();
+        int cols = snap.getWidth();
+        int rows = snap.getHeight();
         double w = overviewCanvas.getWidth();
         double h = overviewCanvas.getHeight();
         if (w <= 0 || h <= 0 || cols <= 0 || rows <= 0) return;
@@ -94,10 +96,10 @@ public class OverviewPanel {
             for (int rx = 0; rx < drawCols; rx++) {
                 int gx = (int)((double)rx * cols / drawCols);
                 int gy = (int)((double)ry * rows / drawRows);
-                java.util.List<Organism> objs = controller.getEngine().getGrid().organismsAt(gx, gy);
-                if (objs.isEmpty()) g.setFill(Color.web("#e9efe9"));
+                int top = snap.topAt(gx, gy);
+                if (top < 0) g.setFill(Color.web("#e9efe9"));
                 else {
-                    String type = objs.get(0).getType();
+                    String type = snap.getTypeName(top);
                     switch (type) {
                         case "Plant": g.setFill(Color.web("#7fbf7f")); break;
                         case "Herbivore": g.setFill(Color.DARKGRAY); break;
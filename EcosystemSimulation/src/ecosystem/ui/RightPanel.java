@@ -3,13 +3,12 @@
  */
 package ecosystem.ui;
 
-import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import ecosystem.models.Organism;
 import ecosystem.models.OrganismSnapshot;
+import ecosystem.models.WorldSnapshot;
 
 public class RightPanel {
     private final AppController controller;
@@ -21,6 +20,14 @@ public class RightPanel {
     private final Label herbLabel;
     private final Label carnLabel;
     private final Label orgLabel;
+    // phase timings overlay, shown while instrumentation is on
+    private final CheckBox phaseToggle;
+    private final Label phaseLabel;
+    private ecosystem.models.PhaseStats phaseSource;
+    private long phaseDays = -1;
+    // Rebuilding the list is the expensive part, so it follows the snapshots at a lower rate
+    private static final double LIST_INTERVAL_MS = 250;
+    private long listSequence = -1;
 
     public RightPanel(AppController controller) {
         this.controller = controller;
@@ -66,7 +73,19 @@ public class RightPanel {
         propBox.setStyle("-fx-background-color: #f5f5f5; -fx-padding: 8; -fx-border-radius: 8; -fx-background-radius: 8;");
         propBox.getChildren().addAll(dayLabel, plantLabel, herbLabel, carnLabel, orgLabel, new Separator(), detailLabel);
 
-        root.getChildren().addAll(orgListLabel, legend, orgListView, new Label("Properties"), propBox);
+        phaseToggle = new CheckBox("Phase timings");
+        phaseToggle.setSelected(controller.isInstrumented());
+        phaseLabel = new Label();
+        phaseLabel.setStyle("-fx-font-family: 'Consolas', monospace; -fx-font-size: 11;");
+        phaseLabel.managedProperty().bind(phaseToggle.selectedProperty());
+        phaseLabel.visibleProperty().bind(phaseToggle.selectedProperty());
+        phaseToggle.setOnAction(e -> {
+            controller.setInstrumented(phaseToggle.isSelected());
+            phaseDays = -1;
+            updatePhaseStats();
+        });
+
+        root.getChildren().addAll(orgListLabel, legend, orgListView, new Label("Properties"), propBox, phaseToggle, phaseLabel);
 
         // selection wiring (external code should call updateSummary to refresh list)
         orgListView.getSelectionModel().selectedItemProperty().addListener((obs, oldO, newO) -> {
@@ -88,28 +107,77 @@ public class RightPanel {
         });
 
         updateSummary();
+        javafx.animation.Timeline listRefresh = new javafx.animation.Timeline(
+            new javafx.animation.KeyFrame(javafx.util.Duration.millis(LIST_INTERVAL_MS), e -> reloadOrganismList()));
+        listRefresh.setCycleCount(javafx.animation.Timeline.INDEFINITE);
+        listRefresh.play();
     }
 
     public VBox getRoot() { return root; }
     public ListView<OrganismSnapshot> getOrgListView() { return orgListView; }
     public Label getDetailLabel() { return detailLabel; }
 
+    /** Refresh the counters and rebuild the organisms list from the current snapshot. */
     public void updateSummary() {
-        // Preserve current selection by ID (if any)
-        Integer selectedId = controller.getSelectionManager().getSelectedIdProperty().get();
-        java.util.Map<String, Integer> counts = controller.getEngine().counts();
+        updateCounts();
+        reloadOrganismList();
+    }
+
+    /** Follow a newly adopted snapshot (labels and details; the list catches up on its own timer). */
+    public void showSnapshot() {
+        updateCounts();
+        updateDetailForSelection();
+        updatePhaseStats();
+    }
+
+    /** Mean / p99 time per day of each phase of the current engine, and its conflict counters. */
+    private void updatePhaseStats() {
+        ecosystem.models.PhaseStats p = controller.getEngine().getPhaseStats();
+        if (p == null) {
+            phaseLabel.setText("");
+            return;
+        }
+        long days = p.getDays();
+        if (p == phaseSource && days == phaseDays) return;
+        phaseSource = p;
+        phaseDays = days;
+        StringBuilder sb = new StringBuilder(String.format("%d days, ms mean / p99%n", days));
+        for (int i = 0; i < ecosystem.models.PhaseStats.PHASES; i++) {
+            sb.append(String.format("%-10s %7.3f %7.3f%n", ecosystem.models.PhaseStats.phaseName(i),
+                p.getMeanNanos(i) / 1e6, p.getPercentileNanos(i, 99) / 1e6));
+        }
+        sb.append("Move conflicts: ").append(p.getMoveConflicts()).append('\n');
+        sb.append("Failed births: ").append(p.getFailedReproductions());
+        phaseLabel.setText(sb.toString());
+    }
+
+    /** Refresh the day and population labels only. */
+    public void updateCounts() {
+        WorldSnapshot snap = controller.getLoop().current();
+        java.util.Map<String, Integer> counts = snap.counts();
         // Model no longer uses separate steps; each tick is one day.
-        dayLabel.setText("Day: " + controller.getEngine().getDay());
+        dayLabel.setText("Day: " + snap.getDay());
         plantLabel.setText("Plants: " + counts.getOrDefault("Plant", 0));
         herbLabel.setText("Herbivores: " + counts.getOrDefault("Herbivore", 0));
         carnLabel.setText("Carnivores: " + counts.getOrDefault("Carnivore", 0));
-        int total = 0; for (int v : counts.values()) total += v;
-        orgLabel.setText("Total Organisms: " + total);
-        ObservableList<OrganismSnapshot> items = orgListView.getItems();
-        java.util.List<OrganismSnapshot> current = new java.util.ArrayList<>();
-        for (Organism o : controller.getEngine().getGrid().getOrganisms()) current.add(OrganismSnapshot.from(o));
-        current.sort((a,b) -> Integer.compare(a.id,b.id));
-        items.setAll(current);
+        orgLabel.setText("Total Organisms: " + snap.size());
+    }
+
+    private void reloadOrganismList() {
+        WorldSnapshot snap = controller.getLoop().current();
+        if (snap.getSequence() == listSequence) return;
+        listSequence = snap.getSequence();
+        // the snapshot is already in id order
+        java.util.List<OrganismSnapshot> current = new java.util.ArrayList<>(snap.size());
+        for (int i = 0; i < snap.size(); i++) current.add(snap.get(i));
+        showOrganisms(current);
+    }
+
+    /** Replace the list content, keeping the selected organism highlighted if it is still present. */
+    private void showOrganisms(java.util.List<OrganismSnapshot> current) {
+        // Preserve current selection by ID (if any)
+        Integer selectedId = controller.getSelectionManager().getSelectedIdProperty().get();
+        orgListView.getItems().setAll(current);
 
         // Restore selection highlight in the list view if the
         // previously selected organism is still present.
@@ -127,15 +195,16 @@ public class RightPanel {
     public void updateDetailForSelection() {
         Integer selId = controller.getSelectionManager().getSelectedIdProperty().get();
         if (selId == null) { detailLabel.setText("Click a cell to view organism details"); return; }
-        ecosystem.models.Organism sel = controller.getEngine().getGrid().getOrganismById(selId);
-        if (sel == null) { controller.getSelectionManager().clear(); detailLabel.setText("Click a cell to view organism details"); return; }
+        WorldSnapshot snap = controller.getLoop().current();
+        int i = snap.indexOfId(selId);
+        if (i < 0) { controller.getSelectionManager().clear(); detailLabel.setText("Click a cell to view organism details"); return; }
         StringBuilder sb = new StringBuilder();
-        sb.append("Type: ").append(sel.getType()).append("\n");
-        sb.append("Position: (").append(sel.getX()).append(", ").append(sel.getY()).append(")\n");
-        sb.append("Age: ").append(sel.getAge()).append("\n");
-        sb.append("Energy: ").append(sel.getEnergy()).append("\n");
-        sb.append("Alive: ").append(sel.isAlive() ? "Yes" : "No").append("\n");
-        sb.append("ID: ").append(sel.getId()).append("\n");
+        sb.append("Type: ").append(snap.getTypeName(i)).append("\n");
+        sb.append("Position: (").append(snap.getX(i)).append(", ").append(snap.getY(i)).append(")\n");
+        sb.append("Age: ").append(snap.getAge(i)).append("\n");
+        sb.append("Energy: ").append(snap.getEnergy(i)).append("\n");
+        sb.append("Alive: ").append(snap.getEnergy(i) > 0 ? "Yes" : "No").append("\n");
+        sb.append("ID: ").append(snap.getId(i)).append("\n");
         detailLabel.setText(sb.toString());
     }
 }
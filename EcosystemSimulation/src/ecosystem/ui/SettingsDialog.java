@@ -41,6 +41,20 @@ public class SettingsDialog {
         TextField cEat = new TextField(String.valueOf(settings.getCarnivoreEatGain()));
         TextField cRepro = new TextField(String.valueOf(settings.getCarnivoreReproduceThreshold()));
 
+        CheckBox parallel = new CheckBox();
+        parallel.setSelected(settings.isParallelEngine());
+        TextField threads = new TextField(String.valueOf(settings.getEngineThreads()));
+        TextField seed = new TextField(String.valueOf(settings.getSeed()));
+        CheckBox columnar = new CheckBox();
+        columnar.setSelected(settings.isColumnarStore());
+        CheckBox offHeap = new CheckBox();
+        offHeap.setSelected(settings.isOffHeapStore());
+        TextField checkpointEvery = new TextField(String.valueOf(settings.getCheckpointEvery()));
+        CheckBox frontier = new CheckBox();
+        frontier.setSelected(settings.isFrontierGrowth());
+        CheckBox plantField = new CheckBox();
+        plantField.setSelected(settings.isPlantField());
+
         Button apply = new Button("Apply");
         Button cancel = new Button("Cancel");
 
@@ -66,6 +80,15 @@ public class SettingsDialog {
                 settings.setCarnivoreEatGain(Integer.parseInt(cEat.getText()));
                 settings.setCarnivoreReproduceThreshold(Integer.parseInt(cRepro.getText()));
 
+                settings.setParallelEngine(parallel.isSelected());
+                settings.setEngineThreads(Integer.parseInt(threads.getText()));
+                settings.setSeed(Long.parseLong(seed.getText().trim()));
+                settings.setColumnarStore(columnar.isSelected());
+                settings.setOffHeapStore(offHeap.isSelected());
+                settings.setCheckpointEvery(Integer.parseInt(checkpointEvery.getText().trim()));
+                settings.setFrontierGrowth(frontier.isSelected());
+                settings.setPlantField(plantField.isSelected());
+
                 dlg.close();
                 // reset engine and notify caller
                 c.resetEngine();
@@ -96,6 +119,16 @@ public class SettingsDialog {
         grid.add(plantEnergy, 1, 5);
         grid.add(new Label("Plant grow rate (0-1):"), 0, 6);
         grid.add(plantGrow, 1, 6);
+        grid.add(new Label("Parallel engine:"), 0, 7);
+        grid.add(parallel, 1, 7);
+        grid.add(new Label("Engine threads:"), 0, 8);
+        grid.add(threads, 1, 8);
+        grid.add(new Label("Random seed:"), 0, 9);
+        grid.add(seed, 1, 9);
+        grid.add(new Label("Columnar store:"), 0, 10);
+        grid.add(columnar, 1, 10);
+        grid.add(new Label("Columnar store off-heap:"), 0, 11);
+        grid.add(offHeap, 1, 11);
 
         grid.add(new Label("Herbivore start energy:"), 2, 0);
         grid.add(hEnergy, 3, 0);
@@ -114,6 +147,12 @@ public class SettingsDialog {
         grid.add(cEat, 3, 6);
         grid.add(new Label("Carnivore reproduce threshold:"), 2, 7);
         grid.add(cRepro, 3, 7);
+        grid.add(new Label("Checkpoint every (days, 0 = off):"), 2, 8);
+        grid.add(checkpointEvery, 3, 8);
+        grid.add(new Label("Frontier plant growth:"), 2, 9);
+        grid.add(frontier, 3, 9);
+        grid.add(new Label("Plants as a cell field:"), 2, 10);
+        grid.add(plantField, 3, 10);
 
         ScrollPane scroll = new ScrollPane(grid);
         scroll.setFitToWidth(true);
@@ -17,6 +17,7 @@ import javafx.scene.image.Image;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.util.Duration;
 
@@ -27,8 +28,8 @@ import java.util.List;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 
-import ecosystem.models.Organism;
 import ecosystem.models.OrganismSnapshot;
+import ecosystem.models.WorldSnapshot;
 
 /**
  * Manages the JavaFX UI for the ecosystem simulation.
@@ -40,7 +41,6 @@ public class SimulationUIManager {
     private final AppController controller;
 
     private int cellSize = 20;
-    private Timeline timeline;
     private Timeline menuTimeline;
     // removed legacy menuTimeline; use menuScanTimeline for menu animation
     private Timeline menuScanTimeline;
@@ -49,21 +49,24 @@ public class SimulationUIManager {
     private File currentFile = null;
     private List<File> recentFiles = new ArrayList<>();
     private Canvas canvas;
+    private GridRenderer gridRenderer;
     private Canvas menuCanvas;
-    private Color[][] menuEnvColors;
+    private EnvironmentGenerator.EnvironmentData menuEnv;
     private int menuScanRow;
     private boolean menuScanDown;
     private IntegerProperty overviewGridW = new SimpleIntegerProperty(0);
     private IntegerProperty overviewGridH = new SimpleIntegerProperty(0);
     private Label statsLabel;
+    // timeline scrubber over the recorded days; ignores its own value changes while following the run
+    private Slider replaySlider;
+    private Label replayLabel;
+    private boolean updatingReplay;
     private ListView<OrganismSnapshot> orgListView;
     // per-cell environment map used as background for the simulation grid
-    private Color[][] envMap = null;
+    private EnvironmentGenerator.EnvironmentData envMap = null;
 
     // For property panel
     private Label detailLabel;
-    private Runnable updateSummary;
-    private Runnable updateDetail;
 
     public SimulationUIManager(AppController controller) {
         this.controller = controller;
@@ -87,10 +90,9 @@ public class SimulationUIManager {
         // Extracted panels: create instances early so file-menu handlers can call update routines
         OverviewPanel overviewPanel = new OverviewPanel(controller);
         RightPanel rightPanelObj = new RightPanel(controller);
+        MetricsPanel metricsPanel = new MetricsPanel(controller);
         orgListView = rightPanelObj.getOrgListView();
         detailLabel = rightPanelObj.getDetailLabel();
-        updateSummary = () -> { rightPanelObj.updateSummary(); overviewPanel.drawOverview(); };
-        updateDetail = () -> rightPanelObj.updateDetailForSelection();
 
         // --- File menu actions (New / Open / Save / Save As) ---
         FileChooser chooser = new FileChooser();
@@ -98,13 +100,15 @@ public class SimulationUIManager {
         Menu menuFile = menuBar.getMenus().get(0);
         MenuItem newItem = new MenuItem("New");
         MenuItem openItem = new MenuItem("Open...");
+        MenuItem recoverItem = new MenuItem("Recover from Checkpoints...");
         MenuItem saveItem = new MenuItem("Save");
         MenuItem saveAsItem = new MenuItem("Save As...");
+        MenuItem exportMetricsItem = new MenuItem("Export Population CSV...");
         MenuItem exitItem = new MenuItem("Exit");
-        menuFile.getItems().addAll(newItem, openItem, saveItem, saveAsItem, new SeparatorMenuItem(), exitItem);
+        menuFile.getItems().addAll(newItem, openItem, recoverItem, saveItem, saveAsItem, exportMetricsItem, new SeparatorMenuItem(), exitItem);
 
         newItem.setOnAction(e -> {
-            if (timeline != null) timeline.stop();
+            controller.getLoop().pause();
             controller.setSettings(new ecosystem.Settings());
             controller.setEngine(new ecosystem.logic.SimulationEngine(controller.getSettings()));
             controller.getSelectionManager().clear();
@@ -115,11 +119,13 @@ public class SimulationUIManager {
             // regenerate environment and terrain map for new grid
             EnvironmentGenerator.EnvironmentData env = EnvironmentGenerator.generateEnvironment(
                 controller.getEngine().getGrid().getWidth(),
-                controller.getEngine().getGrid().getHeight());
-            envMap = env.colors;
-            controller.getEngine().getGrid().setTerrain(env.terrain);
+                controller.getEngine().getGrid().getHeight(),
+                controller.getTerrainSeed());
+            envMap = env;
+            controller.getEngine().getGrid().setTerrainCells(env.terrain);
             controller.getEngine().getGrid().ensureOrganismsOnValidTerrain();
-            updateSummary.run(); drawGrid(); statsLabel.setText(formatCounts()); overviewPanel.drawOverview(); updateDetail.run();
+            controller.getLoop().publishNow();
+            drawGrid();
             currentFile = null;
         });
 
@@ -127,25 +133,27 @@ public class SimulationUIManager {
             File f = chooser.showOpenDialog(primaryStage);
             if (f == null) return;
             try {
+                controller.getLoop().pause();
                 controller.loadFromFile(f);
                 // rebind listeners and update UI
                 canvas.setWidth(controller.getEngine().getGrid().getWidth() * cellSize);
                 canvas.setHeight(controller.getEngine().getGrid().getHeight() * cellSize);
                 overviewGridW.set(controller.getSettings().getGridWidth());
                 overviewGridH.set(controller.getSettings().getGridHeight());
-                // re-register listener
-                controller.getEngine().getGrid().addListener(new ecosystem.models.Grid.GridListener() {
-                    @Override public void organismAdded(Organism o) { Platform.runLater(() -> { if (orgListView == null) return; OrganismSnapshot s = OrganismSnapshot.from(o); javafx.collections.ObservableList<OrganismSnapshot> items = orgListView.getItems(); int idx = 0; while (idx < items.size() && items.get(idx).id < s.id) idx++; items.add(idx, s); }); }
-                    @Override public void organismRemoved(Organism o) { Platform.runLater(() -> { if (orgListView == null) return; javafx.collections.ObservableList<OrganismSnapshot> items = orgListView.getItems(); items.removeIf(x -> x.id == o.getId()); Integer sel = controller.getSelectionManager().getSelectedIdProperty().get(); if (sel != null && sel == o.getId()) controller.getSelectionManager().clear(); }); }
-                    @Override public void organismUpdated(Organism o) { Platform.runLater(() -> { if (orgListView == null) return; javafx.collections.ObservableList<OrganismSnapshot> items = orgListView.getItems(); for (int i = 0; i < items.size(); i++) { if (items.get(i).id == o.getId()) { items.set(i, OrganismSnapshot.from(o)); break; } } }); }
-                });
-                // regenerate environment & terrain map after loading
+                // regenerate the environment colors after loading; V2 files bring their own
+                // terrain map (colored to match it), older ones get the one derived from the saved seed
                 EnvironmentGenerator.EnvironmentData env = EnvironmentGenerator.generateEnvironment(
                     controller.getEngine().getGrid().getWidth(),
-                    controller.getEngine().getGrid().getHeight());
-                envMap = env.colors;
-                controller.getEngine().getGrid().setTerrain(env.terrain);
-                updateSummary.run(); drawGrid(); statsLabel.setText(formatCounts()); overviewPanel.drawOverview(); updateDetail.run();
+                    controller.getEngine().getGrid().getHeight(),
+                    controller.getTerrainSeed());
+                envMap = env;
+                if (controller.getEngine().getGrid().getTerrainCells() == null) {
+                    controller.getEngine().getGrid().setTerrainCells(env.terrain);
+                } else {
+                    envMap = env.withTerrain(controller.getEngine().getGrid().getTerrainCells());
+                }
+                controller.getLoop().publishNow();
+                drawGrid();
                 currentFile = f;
                 // update recent list
                 recentFiles.remove(f);
@@ -159,6 +167,44 @@ public class SimulationUIManager {
             }
         });
 
+        recoverItem.setOnAction(e -> {
+            DirectoryChooser dirChooser = new DirectoryChooser();
+            File dir = new File(controller.getSettings().getCheckpointDir());
+            if (dir.isDirectory()) dirChooser.setInitialDirectory(dir.getAbsoluteFile());
+            File d = dirChooser.showDialog(primaryStage);
+            if (d == null) return;
+            try {
+                controller.getLoop().pause();
+                ecosystem.logic.Checkpointer.Recovery r = controller.recoverFrom(d);
+                canvas.setWidth(controller.getEngine().getGrid().getWidth() * cellSize);
+                canvas.setHeight(controller.getEngine().getGrid().getHeight() * cellSize);
+                overviewGridW.set(controller.getSettings().getGridWidth());
+                overviewGridH.set(controller.getSettings().getGridHeight());
+                EnvironmentGenerator.EnvironmentData env = EnvironmentGenerator.generateEnvironment(
+                    controller.getEngine().getGrid().getWidth(),
+                    controller.getEngine().getGrid().getHeight(),
+                    controller.getTerrainSeed());
+                envMap = env;
+                if (controller.getEngine().getGrid().getTerrainCells() == null) {
+                    controller.getEngine().getGrid().setTerrainCells(env.terrain);
+                } else {
+                    envMap = env.withTerrain(controller.getEngine().getGrid().getTerrainCells());
+                }
+                controller.getLoop().publishNow();
+                drawGrid();
+                currentFile = null;
+                Alert a = new Alert(Alert.AlertType.INFORMATION, String.format("Recovered day %d (checkpoint of day %d + %d journaled days).",
+                    controller.getEngine().getDay(), r.getCheckpointDay(), r.getJournalDays()), ButtonType.OK);
+                a.initOwner(primaryStage);
+                a.showAndWait();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                Alert a = new Alert(Alert.AlertType.ERROR, "Failed to recover: " + ex.getMessage(), ButtonType.OK);
+                a.initOwner(primaryStage);
+                a.showAndWait();
+            }
+        });
+
         saveItem.setOnAction(e -> {
             try {
                 if (currentFile == null) {
@@ -197,24 +243,45 @@ public class SimulationUIManager {
             }
         });
 
+        exportMetricsItem.setOnAction(e -> {
+            FileChooser csvChooser = new FileChooser();
+            csvChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+            csvChooser.setInitialFileName("population.csv");
+            File f = csvChooser.showSaveDialog(primaryStage);
+            if (f == null) return;
+            try {
+                controller.exportMetrics(f);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                Alert a = new Alert(Alert.AlertType.ERROR, "Failed to export: " + ex.getMessage(), ButtonType.OK);
+                a.initOwner(primaryStage);
+                a.showAndWait();
+            }
+        });
+
         exitItem.setOnAction(e -> primaryStage.close());
 
         // Left: Overview + TreeView (from OverviewPanel)
         VBox leftPanel = overviewPanel.getRoot();
+        leftPanel.getChildren().add(metricsPanel.getRoot());
 
         // Center: Canvas lớn
         canvas = new Canvas(controller.getEngine().getGrid().getWidth() * cellSize, controller.getEngine().getGrid().getHeight() * cellSize);
+        gridRenderer = new GridRenderer(controller, canvas);
+        gridRenderer.start();
         // generate environment & terrain map for initial grid
         EnvironmentGenerator.EnvironmentData initialEnv = EnvironmentGenerator.generateEnvironment(
             controller.getEngine().getGrid().getWidth(),
-            controller.getEngine().getGrid().getHeight());
-        envMap = initialEnv.colors;
-        controller.getEngine().getGrid().setTerrain(initialEnv.terrain);
+            controller.getEngine().getGrid().getHeight(),
+            controller.getTerrainSeed());
+        envMap = initialEnv;
+        controller.getEngine().getGrid().setTerrainCells(initialEnv.terrain);
         controller.getEngine().getGrid().ensureOrganismsOnValidTerrain();
         drawGrid();
 
         // Prepare settings dialog action which will reset engine and update UI when applied
         Runnable onSettingsApplied = () -> {
+            controller.getLoop().pause();
             controller.resetEngine();
             canvas.setWidth(controller.getEngine().getGrid().getWidth() * cellSize);
             canvas.setHeight(controller.getEngine().getGrid().getHeight() * cellSize);
@@ -223,50 +290,27 @@ public class SimulationUIManager {
             // regenerate environment & terrain map for the new grid
             EnvironmentGenerator.EnvironmentData env = EnvironmentGenerator.generateEnvironment(
                 controller.getEngine().getGrid().getWidth(),
-                controller.getEngine().getGrid().getHeight());
-            envMap = env.colors;
-            controller.getEngine().getGrid().setTerrain(env.terrain);
+                controller.getEngine().getGrid().getHeight(),
+                controller.getTerrainSeed());
+            envMap = env;
+            controller.getEngine().getGrid().setTerrainCells(env.terrain);
             controller.getEngine().getGrid().ensureOrganismsOnValidTerrain();
-            updateSummary.run();
+            controller.getLoop().publishNow();
             drawGrid();
-            statsLabel.setText(formatCounts());
-            overviewPanel.drawOverview();
-            updateDetail.run();
         };
 
         // Right panel and control panel
         VBox rightPanel = rightPanelObj.getRoot();
         HBox controls = createControlPanel(primaryStage, onSettingsApplied);
 
-        // Register grid listener to perform incremental updates to the organisms list
-        controller.getEngine().getGrid().addListener(new ecosystem.models.Grid.GridListener() {
-            @Override public void organismAdded(Organism o) {
-                Platform.runLater(() -> {
-                    if (orgListView == null) return;
-                    OrganismSnapshot s = OrganismSnapshot.from(o);
-                    javafx.collections.ObservableList<OrganismSnapshot> items = orgListView.getItems();
-                    int idx = 0; while (idx < items.size() && items.get(idx).id < s.id) idx++;
-                    items.add(idx, s);
-                });
-            }
-            @Override public void organismRemoved(Organism o) {
-                Platform.runLater(() -> {
-                    if (orgListView == null) return;
-                    javafx.collections.ObservableList<OrganismSnapshot> items = orgListView.getItems();
-                    items.removeIf(x -> x.id == o.getId());
-                    Integer sel = controller.getSelectionManager().getSelectedIdProperty().get();
-                    if (sel != null && sel == o.getId()) controller.getSelectionManager().clear();
-                });
-            }
-            @Override public void organismUpdated(Organism o) {
-                Platform.runLater(() -> {
-                    if (orgListView == null) return;
-                    javafx.collections.ObservableList<OrganismSnapshot> items = orgListView.getItems();
-                    for (int i = 0; i < items.size(); i++) {
-                        if (items.get(i).id == o.getId()) { items.set(i, OrganismSnapshot.from(o)); break; }
-                    }
-                });
-            }
+        // The simulation runs on its own thread; every snapshot the renderer adopts
+        // also refreshes the panels (the organisms list follows on its own, slower timer).
+        gridRenderer.setOnSnapshot(snap -> {
+            rightPanelObj.showSnapshot();
+            overviewPanel.drawOverview();
+            metricsPanel.refresh();
+            statsLabel.setText(formatCounts());
+            updateReplaySlider(snap);
         });
 
         // BorderPane layout
@@ -280,7 +324,7 @@ public class SimulationUIManager {
         simRoot.setLeft(leftPanel);
         simRoot.setRight(rightPanel);
         BorderPane bottomPane = new BorderPane();
-        bottomPane.setCenter(canvas);
+        bottomPane.setCenter(gridRenderer.getRoot());
         bottomPane.setBottom(controls);
         simRoot.setCenter(bottomPane);
 
@@ -323,8 +367,15 @@ public class SimulationUIManager {
         Slider speed = new Slider(10, 1000, 200);
         speed.setShowTickLabels(true);
         speed.setShowTickMarks(true);
+        CheckBox unlimited = new CheckBox("Unlimited");
+        replaySlider = new Slider(1, 1, 1);
+        replaySlider.setPrefWidth(220);
+        replaySlider.setBlockIncrement(1);
+        replaySlider.setDisable(true);
+        replayLabel = new Label("Day 1");
         statsLabel = new Label(formatCounts());
-        HBox controls = new HBox(8, startBtn, pauseBtn, stepBtn, resetBtn, settingsBtn, backBtn, new Label("Delay ms:"), speed);
+        HBox controls = new HBox(8, startBtn, pauseBtn, stepBtn, resetBtn, settingsBtn, backBtn, new Label("Delay ms:"), speed, unlimited,
+            new Label("Replay:"), replaySlider, replayLabel);
         controls.setPadding(new Insets(8));
         controls.getStyleClass().add("control-bar");
         startBtn.getStyleClass().add("control-button");
@@ -333,82 +384,112 @@ public class SimulationUIManager {
         resetBtn.getStyleClass().add("control-button");
         settingsBtn.getStyleClass().add("control-button");
         backBtn.getStyleClass().add("control-button");
-        timeline = new Timeline(new KeyFrame(Duration.millis(speed.getValue()), e -> {
-            controller.getEngine().tick();
-            updateSummary.run();
-            drawGrid();
-            statsLabel.setText(formatCounts());
-            updateDetail.run();
-        }));
-        timeline.setCycleCount(Timeline.INDEFINITE);
-        speed.valueProperty().addListener((obs, oldV, newV) -> timeline.setRate(1000.0 / newV.doubleValue()));
-        startBtn.setOnAction(e -> timeline.play());
-        pauseBtn.setOnAction(e -> timeline.pause());
-        stepBtn.setOnAction(e -> {
-            controller.getEngine().tick();
-            updateSummary.run();
-            drawGrid();
-            statsLabel.setText(formatCounts());
-            updateDetail.run();
+        // Ticks run on the simulation loop thread; the canvas picks up its snapshots every frame
+        Runnable applySpeed = () -> controller.getLoop().setDelayNanos(
+            unlimited.isSelected() ? 0 : (long) (speed.getValue() * 1_000_000L));
+        applySpeed.run();
+        speed.valueProperty().addListener((obs, oldV, newV) -> applySpeed.run());
+        unlimited.selectedProperty().addListener((obs, oldV, newV) -> {
+            speed.setDisable(newV);
+            applySpeed.run();
         });
+        // dragging the scrubber pauses the run and shows the recorded day; Start/Step return to the live world
+        replaySlider.valueProperty().addListener((obs, oldV, newV) -> {
+            if (!updatingReplay) showRecordedDay(Math.round(newV.doubleValue()));
+        });
+        startBtn.setOnAction(e -> controller.getLoop().play());
+        pauseBtn.setOnAction(e -> controller.getLoop().pause());
+        stepBtn.setOnAction(e -> controller.getLoop().step());
         resetBtn.setOnAction(e -> {
-            timeline.stop();
+            controller.getLoop().pause();
             // Keep the current terrain so Reset only re-randomizes organisms
             // while preserving the existing environment (water/land layout).
-            int[][] oldTerrain = null;
+            byte[] oldTerrain = null;
             if (controller.getEngine() != null && controller.getEngine().getGrid() != null) {
-                oldTerrain = controller.getEngine().getGrid().getTerrain();
+                oldTerrain = controller.getEngine().getGrid().getTerrainCells();
             }
             controller.resetEngine();
             canvas.setWidth(controller.getEngine().getGrid().getWidth() * cellSize);
             canvas.setHeight(controller.getEngine().getGrid().getHeight() * cellSize);
             // Reapply previous terrain (if any) so environment stays the same
             if (oldTerrain != null) {
-                controller.getEngine().getGrid().setTerrain(oldTerrain);
+                controller.getEngine().getGrid().setTerrainCells(oldTerrain);
                 // Ensure newly created organisms are not in water
                 controller.getEngine().getGrid().ensureOrganismsOnValidTerrain();
             }
-            updateSummary.run();
+            controller.getLoop().publishNow();
             drawGrid();
-            statsLabel.setText(formatCounts());
-            updateDetail.run();
         });
         settingsBtn.setOnAction(e -> SettingsDialog.open(primaryStage, controller, onSettingsApplied));
         backBtn.setOnAction(e -> {
-            timeline.stop();
+            controller.getLoop().pause();
             primaryStage.setScene(menuScene);
             primaryStage.setTitle("Ecosystem Simulation — Main Menu");
         });
-        canvas.widthProperty().addListener((o, oldV, newV) -> drawGrid());
-        canvas.heightProperty().addListener((o, oldV, newV) -> drawGrid());
         canvas.setOnMouseClicked(e -> {
-            // compute grid coords using current canvas scale (not fixed cellSize)
-            int cols = controller.getEngine().getGrid().getWidth();
-            int rows = controller.getEngine().getGrid().getHeight();
+            // compute grid coords using current canvas scale (not fixed cellSize),
+            // against the snapshot on screen rather than the grid being ticked
+            WorldSnapshot snap = controller.getLoop().current();
+            int cols = snap.getWidth();
+            int rows = snap.getHeight();
             double cellW = canvas.getWidth() / (double) Math.max(1, cols);
             double cellH = canvas.getHeight() / (double) Math.max(1, rows);
             int gx = (int) Math.floor(e.getX() / cellW);
             int gy = (int) Math.floor(e.getY() / cellH);
             if (gx >= 0 && gx < cols && gy >= 0 && gy < rows) {
-                java.util.List<Organism> objs = controller.getEngine().getGrid().organismsAt(gx, gy);
-                if (!objs.isEmpty()) {
+                int top = snap.topAt(gx, gy);
+                if (top >= 0) {
                     // select the top organism at the clicked cell (selection manager listener will update list)
-                    Organism o = objs.get(0);
-                    controller.getSelectionManager().select(o.getId());
-                    drawGrid();
+                    controller.getSelectionManager().select(snap.getId(top));
                 } else {
                     // click on empty cell -> clear selection
                     controller.getSelectionManager().clear();
                     if (orgListView != null) orgListView.getSelectionModel().clearSelection();
-                    drawGrid();
                 }
             }
         });
         return controls;
     }
 
+    /** Stretch the scrubber over the recorded days and move its knob to the day on screen. */
+    private void updateReplaySlider(WorldSnapshot snap) {
+        ecosystem.logic.ReplayRecorder replay = controller.getEngine().getReplay();
+        long first = replay == null ? -1 : replay.getFirstDay();
+        long last = replay == null ? -1 : replay.getLastDay();
+        boolean viewing = controller.getLoop().isViewing();
+        updatingReplay = true;
+        try {
+            replaySlider.setDisable(first < 0 || first == last);
+            if (first >= 0) {
+                replaySlider.setMin(first);
+                replaySlider.setMax(Math.max(first, last));
+                if (!replaySlider.isValueChanging()) replaySlider.setValue(snap.getDay());
+            }
+        } finally {
+            updatingReplay = false;
+        }
+        replayLabel.setText(viewing ? "Day " + snap.getDay() + " (replay)" : "Day " + snap.getDay());
+    }
+
+    /** Pause and show a recorded day; the newest one is the engine's own world. */
+    private void showRecordedDay(long day) {
+        ecosystem.logic.ReplayRecorder replay = controller.getEngine().getReplay();
+        if (replay == null || replay.getFirstDay() < 0) return;
+        controller.getLoop().pause();
+        if (day >= replay.getLastDay()) {
+            if (controller.getLoop().isViewing()) controller.getLoop().publishNow();
+            return;
+        }
+        if (day == controller.getLoop().current().getDay() && controller.getLoop().isViewing()) return;
+        try {
+            controller.getLoop().publishView(replay.seek(Math.max(day, replay.getFirstDay())));
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
     private String formatCounts() {
-        java.util.Map<String, Integer> counts = controller.getEngine().counts();
+        java.util.Map<String, Integer> counts = controller.getLoop().current().counts();
         return String.format("Plants: %d  Herbivores: %d  Carnivores: %d",
             counts.getOrDefault("Plant", 0),
             counts.getOrDefault("Herbivore", 0),
@@ -416,111 +497,20 @@ public class SimulationUIManager {
     }
 
     private void regenerateEnvironment() {
-        int cols = controller.getEngine().getGrid().getWidth();
-        int rows = controller.getEngine().getGrid().getHeight();
-        EnvironmentGenerator.EnvironmentData env = EnvironmentGenerator.generateEnvironment(cols, rows);
-        envMap = env.colors;
-        controller.getEngine().getGrid().setTerrain(env.terrain);
+        controller.getLoop().whilePaused(() -> {
+            int cols = controller.getEngine().getGrid().getWidth();
+            int rows = controller.getEngine().getGrid().getHeight();
+            EnvironmentGenerator.EnvironmentData env = EnvironmentGenerator.generateEnvironment(cols, rows, controller.nextTerrainSeed());
+            envMap = env;
+            controller.getEngine().getGrid().setTerrainCells(env.terrain);
+        });
         drawGrid();
     }
 
+    /** Repaint the whole simulation canvas on the next frame (picks up the current envMap). */
     private void drawGrid() {
-        if (canvas == null || controller.getEngine() == null) return;
-        GraphicsContext g = canvas.getGraphicsContext2D();
-        int cols = controller.getEngine().getGrid().getWidth();
-        int rows = controller.getEngine().getGrid().getHeight();
-        double w = canvas.getWidth() / Math.max(1, cols);
-        double h = canvas.getHeight() / Math.max(1, rows);
-        if (controller.isUseImageBackground() && controller.getGridBackgroundImage() != null) {
-            g.drawImage(controller.getGridBackgroundImage(), 0, 0, canvas.getWidth(), canvas.getHeight());
-        } else if (envMap != null && envMap.length == cols && envMap[0].length == rows) {
-            // draw per-cell environment "pixel" background
-            for (int y = 0; y < rows; y++) {
-                for (int x = 0; x < cols; x++) {
-                    Color c = envMap[x][y];
-                    g.setFill(c);
-                    g.fillRect(x * w, y * h, w, h);
-                }
-            }
-        } else {
-            // fallback gradient background when envMap not available
-            javafx.scene.paint.LinearGradient lg = new javafx.scene.paint.LinearGradient(
-                0, 0, 1, 1, true, javafx.scene.paint.CycleMethod.NO_CYCLE,
-                new javafx.scene.paint.Stop(0, Color.web("#f7fbf9")),
-                new javafx.scene.paint.Stop(1, Color.web("#eef6ef"))
-            );
-            g.setFill(lg);
-            g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
-            // soft vignette overlay
-            javafx.scene.paint.RadialGradient rg = new javafx.scene.paint.RadialGradient(
-                0, 0.1, canvas.getWidth() / 2, canvas.getHeight() / 2,
-                Math.max(canvas.getWidth(), canvas.getHeight()) * 0.7, false, javafx.scene.paint.CycleMethod.NO_CYCLE,
-                new javafx.scene.paint.Stop(0, Color.color(0,0,0,0.0)),
-                new javafx.scene.paint.Stop(1, Color.color(0,0,0,0.06))
-            );
-            g.setFill(rg);
-            g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
-        }
-        // subtle grid lines for visual structure
-        g.setStroke(Color.web("#e8e8e8", 0.9));
-        g.setLineWidth(0.6);
-        for (int i = 1; i < cols; i++) {
-            double x = i * w + 0.5;
-            g.strokeLine(x, 0, x, canvas.getHeight());
-        }
-        for (int j = 1; j < rows; j++) {
-            double y = j * h + 0.5;
-            g.strokeLine(0, y, canvas.getWidth(), y);
-        }
-        for (int y = 0; y < rows; y++) {
-            for (int x = 0; x < cols; x++) {
-                java.util.List<Organism> objs = controller.getEngine().getGrid().organismsAt(x, y);
-                if (objs.isEmpty()) continue;
-                String name = objs.get(0).getType();
-                Image img = controller.getIconMap().get(name);
-                if (img != null) {
-                    g.drawImage(img, x * w, y * h, w, h);
-                } else {
-                    switch (name) {
-                        case "Plant": g.setFill(Color.web("#7fbf7f")); break;
-                        case "Herbivore": g.setFill(Color.web("#ffb84d")); break;
-                        case "Carnivore": g.setFill(Color.web("#ff6b6b")); break;
-                        default: g.setFill(Color.BLACK); break;
-                    }
-                    g.fillRect(x * w, y * h, w, h);
-                }
-                // Always draw a white border around animals (Herbivore, Carnivore)
-                if ("Herbivore".equals(name) || "Carnivore".equals(name)) {
-                    g.setStroke(Color.WHITE);
-                    double borderWidth = Math.max(1, Math.min(3, Math.min(w, h) * 0.15));
-                    g.setLineWidth(borderWidth);
-                    double inset = borderWidth * 0.5;
-                    g.strokeRect(x * w + inset, y * h + inset, w - 2 * inset, h - 2 * inset);
-                }
-
-                if ("Plant".equals(name)) {
-                    // For plants, draw a semi-transparent dark green border
-                    g.setStroke(Color.web("#004d00", 0.6));
-                    double borderWidth = Math.max(1, Math.min(2, Math.min(w, h) * 0.1));
-                    g.setLineWidth(borderWidth);
-                    double inset = borderWidth * 0.5;
-                    g.strokeRect(x * w + inset, y * h + inset, w - 2 * inset, h - 2 * inset);
-                }
-            }
-        }
-
-        // If an organism is selected, just highlight it. The
-        // detail text is managed centrally via RightPanel
-        // (through updateDetail.run()).
-        Integer selId = controller.getSelectionManager().getSelectedIdProperty().get();
-        if (selId != null) {
-            Organism o = controller.getEngine().getGrid().getOrganismById(selId);
-            if (o != null) {
-                g.setStroke(Color.BLACK);
-                g.setLineWidth(Math.max(1, Math.min(4, (float) (Math.min(w, h) * 0.08))));
-                g.strokeRect(o.getX() * w, o.getY() * h, w, h);
-            }
-        }
+        if (gridRenderer == null) return;
+        gridRenderer.setEnvironment(envMap);
     }
 
     private void showMainMenu(Stage stage, Runnable onStart, Runnable onSettings) {
@@ -563,7 +553,7 @@ public class SimulationUIManager {
             int cols = Math.max(24, (int)Math.round(w / 22));
             int rows = Math.max(14, (int)Math.round(h / 22));
             EnvironmentGenerator.EnvironmentData env = EnvironmentGenerator.generateEnvironment(cols, rows);
-            menuEnvColors = env.colors;
+            menuEnv = env;
             // clear canvas before scan
             GraphicsContext g = menuCanvas.getGraphicsContext2D();
             g.setFill(Color.web("#000000ff"));
@@ -573,7 +563,7 @@ public class SimulationUIManager {
             menuScanRow = menuScanDown ? 0 : rows - 1;
             if (menuScanTimeline != null) menuScanTimeline.stop();
             menuScanTimeline = new Timeline(new KeyFrame(Duration.millis(70), e2 -> {
-                drawMenuEnvironmentRow(menuCanvas, menuEnvColors, menuScanRow);
+                drawMenuEnvironmentRow(menuCanvas, menuEnv, menuScanRow);
                 menuScanRow += menuScanDown ? 1 : -1;
                 if (menuScanRow < 0 || menuScanRow >= rows) {
                     // add gentle overlay and pause before next scan
@@ -607,16 +597,16 @@ public class SimulationUIManager {
         stage.show();
     }
 
-    private void drawMenuEnvironmentRow(Canvas c, Color[][] colors, int rowIndex) {
-        if (c == null || colors == null || rowIndex < 0) return;
-        int cols = colors.length;
-        int rows = cols > 0 ? colors[0].length : 0;
+    private void drawMenuEnvironmentRow(Canvas c, EnvironmentGenerator.EnvironmentData env, int rowIndex) {
+        if (c == null || env == null || rowIndex < 0) return;
+        int cols = env.cols;
+        int rows = env.rows;
         if (cols == 0 || rows == 0 || rowIndex >= rows) return;
         GraphicsContext g = c.getGraphicsContext2D();
         double cellW = c.getWidth() / (double) cols;
         double cellH = c.getHeight() / (double) rows;
         for (int x = 0; x < cols; x++) {
-            g.setFill(colors[x][rowIndex]);
+            g.setFill(env.colorAt(x, rowIndex));
             g.fillRect(x * cellW, rowIndex * cellH, cellW, cellH);
         }
     }